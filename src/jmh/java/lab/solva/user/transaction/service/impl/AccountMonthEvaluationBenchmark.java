@@ -0,0 +1,67 @@
+package lab.solva.user.transaction.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lab.solva.user.transaction.enumeration.CurrencyType;
+import lab.solva.user.transaction.metrics.TransactionMetrics;
+import lab.solva.user.transaction.model.AmountLimitEntity;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+
+// Sequential evaluation of all transactions of an account for a month, as done for a group of the batch endpoint;
+// Each transaction is evaluated against the totals of the previous ones
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class AccountMonthEvaluationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int transactionCount;
+
+    private BankServiceImpl bankServiceImpl;
+
+    private AmountLimitEntity amountLimitEntity;
+
+    private String[] currencyCodes;
+
+    private CurrencyType[] currencyTypes;
+
+    private double[] transactionSums;
+
+    @Setup
+    public void setUp() {
+
+        bankServiceImpl = new BankServiceImpl(null, null, null, null, null, null,
+                new TransactionMetrics(new SimpleMeterRegistry()), null, null, null);
+
+        amountLimitEntity = new AmountLimitEntity();
+        amountLimitEntity.setLimitSum(1000000.0);
+        amountLimitEntity.setLimitCurrencyCode(CurrencyType.USD.name());
+
+        currencyCodes = BenchmarkData.currencyCodes(transactionCount);
+        transactionSums = BenchmarkData.transactionSums(transactionCount);
+
+        currencyTypes = new CurrencyType[transactionCount];
+        for (int i = 0; i < transactionCount; i++) {
+            currencyTypes[i] = CurrencyType.valueOf(currencyCodes[i]);
+        }
+    }
+
+    @Benchmark
+    public int evaluateAccountMonth() {
+
+        LimitEvaluationContext limitEvaluationContext = new LimitEvaluationContext("0000000001", "Service",
+                YearMonth.now(), amountLimitEntity, BenchmarkData.CROSS_RATES, new long[CurrencyType.values().length]);
+
+        int exceededCount = 0;
+        for (int i = 0; i < transactionCount; i++) {
+            if (bankServiceImpl.getLimitExceeded(limitEvaluationContext, currencyCodes[i], transactionSums[i])) {
+                exceededCount++;
+            }
+            limitEvaluationContext.addTransactionSum(currencyTypes[i], transactionSums[i]);
+        }
+
+        return exceededCount;
+    }
+}
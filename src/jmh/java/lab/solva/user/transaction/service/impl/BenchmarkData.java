@@ -0,0 +1,52 @@
+package lab.solva.user.transaction.service.impl;
+
+import lab.solva.user.transaction.cache.CrossRates;
+import lab.solva.user.transaction.enumeration.CurrencyType;
+
+import java.util.Map;
+import java.util.Random;
+
+// Generated data shared by the benchmarks, a fixed seed makes runs comparable
+final class BenchmarkData {
+
+    // Exchange rates (tenge per unit of currency) of the National Bank on 01.02.2024
+    static final Map<String, Double> EXCHANGE_RATES = Map.of(
+            CurrencyType.USD.name(), 449.89,
+            CurrencyType.EUR.name(), 487.78,
+            CurrencyType.RUB.name(), 5.02);
+
+    static final CrossRates CROSS_RATES = CrossRates.of(EXCHANGE_RATES);
+
+    static final DoubleCrossRates DOUBLE_CROSS_RATES = DoubleCrossRates.of(EXCHANGE_RATES);
+
+    private static final long SEED = 20240201L;
+
+    private BenchmarkData() {
+    }
+
+    static String[] currencyCodes(int count) {
+
+        CurrencyType[] currencyTypes = CurrencyType.values();
+        Random random = new Random(SEED);
+
+        String[] currencyCodes = new String[count];
+        for (int i = 0; i < count; i++) {
+            currencyCodes[i] = currencyTypes[random.nextInt(currencyTypes.length)].name();
+        }
+
+        return currencyCodes;
+    }
+
+    static double[] transactionSums(int count) {
+
+        Random random = new Random(SEED + 1);
+
+        double[] transactionSums = new double[count];
+        for (int i = 0; i < count; i++) {
+            // Amounts with two decimal places from 1.00 to 10000.00
+            transactionSums[i] = (100 + random.nextInt(999901)) / 100.0;
+        }
+
+        return transactionSums;
+    }
+}
@@ -0,0 +1,95 @@
+package lab.solva.user.transaction.service.impl;
+
+import lab.solva.user.transaction.dto.ExchangeInfoDto;
+import lab.solva.user.transaction.dto.ExchangeRateDto;
+import lab.solva.user.transaction.enumeration.CurrencyType;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// The previous DOM parser of ExchangeServiceImpl (response as a string, whole document in memory),
+// kept as the baseline of ExchangeRateParsingBenchmark
+final class DomExchangeRateParser {
+
+    // Parsing the XML document of the National Bank, only the required currencies are included in the result
+    ExchangeInfoDto parseXmlData(String xmlData) throws Exception {
+
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        InputSource inputSource = new InputSource(new StringReader(xmlData));
+        Document document = builder.parse(inputSource);
+
+        NodeList item = document.getElementsByTagName("item");
+        List<ExchangeRateDto> exchangeRateDtoList = parseExchangeRates(item);
+
+        Element rootElement = document.getDocumentElement();
+
+        return parseExchangeInfo(rootElement, exchangeRateDtoList);
+    }
+
+    private List<ExchangeRateDto> parseExchangeRates(NodeList item) {
+
+        List<ExchangeRateDto> exchangeRateDtoList = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < item.getLength(); i++) {
+                Element itemElement = (Element) item.item(i);
+                String title = getTextContent(itemElement, "title");
+
+                // Selection of required currencies for storing them in the database
+                if (CurrencyType.USD.name().equals(title)||
+                    CurrencyType.EUR.name().equals(title)||
+                    CurrencyType.RUB.name().equals(title)) {
+                    String fullname = getTextContent(itemElement, "fullname");
+                    double description = Double.parseDouble(Objects.requireNonNull(getTextContent(itemElement, "description")));
+
+                    ExchangeRateDto exchangeRateDto = new ExchangeRateDto(fullname, title, description);
+                    exchangeRateDtoList.add(exchangeRateDto);
+                }
+            }
+
+        } catch (Exception e) {
+            // The rates parsed before the error are returned, as before
+        }
+
+        return exchangeRateDtoList;
+    }
+
+    private ExchangeInfoDto parseExchangeInfo(Element rootElement, List<ExchangeRateDto> item) {
+
+        try {
+            String link = getTextContent(rootElement, "link");
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+            LocalDate date = LocalDate.parse(Objects.requireNonNull(getTextContent(rootElement, "date")), formatter);
+
+            return new ExchangeInfoDto(link, date, item);
+
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private String getTextContent(Element parentElement, String tagName) {
+
+        NodeList nodeList = parentElement.getElementsByTagName(tagName);
+
+        if (nodeList.getLength() > 0) {
+
+            return nodeList.item(0).getTextContent();
+
+        } else {
+
+            return null;
+        }
+    }
+}
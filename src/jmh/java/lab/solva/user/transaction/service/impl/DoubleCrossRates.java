@@ -0,0 +1,64 @@
+package lab.solva.user.transaction.service.impl;
+
+import lab.solva.user.transaction.enumeration.CurrencyType;
+
+import java.util.Map;
+
+// The previous matrix of conversion factors of CrossRates (double arithmetic), kept as the baseline
+// of MoneyComparisonBenchmark: factors[from][to] is the amount in currency "to" for one unit of currency "from",
+// a currency without a rate is not converted (factor 0)
+final class DoubleCrossRates {
+
+    private static final CurrencyType[] CURRENCY_TYPES = CurrencyType.values();
+
+    private final double[][] factors;
+
+    private DoubleCrossRates(double[][] factors) {
+        this.factors = factors;
+    }
+
+    // Building the matrix from the exchange rates (tenge per unit of currency) by Currency Code
+    static DoubleCrossRates of(Map<String, Double> exchangeRates) {
+
+        // Rates of all currencies in tenge, 0 if there is no rate for the currency
+        double[] tengeRates = new double[CURRENCY_TYPES.length];
+        for (CurrencyType currencyType : CURRENCY_TYPES) {
+            Double exchangeRate = currencyType == CurrencyType.KZT ? Double.valueOf(1.0) :
+                    exchangeRates.get(currencyType.name());
+
+            if (exchangeRate != null && exchangeRate > 0.0) {
+                tengeRates[currencyType.ordinal()] = exchangeRate;
+            }
+        }
+
+        double[][] factors = new double[CURRENCY_TYPES.length][CURRENCY_TYPES.length];
+        for (int from = 0; from < CURRENCY_TYPES.length; from++) {
+            for (int to = 0; to < CURRENCY_TYPES.length; to++) {
+                if (from == to) {
+                    factors[from][to] = 1.0;
+                } else if (tengeRates[from] > 0.0 && tengeRates[to] > 0.0) {
+                    factors[from][to] = tengeRates[from] / tengeRates[to];
+                }
+            }
+        }
+
+        return new DoubleCrossRates(factors);
+    }
+
+    double getFactor(CurrencyType fromCurrency, CurrencyType toCurrency) {
+        return factors[fromCurrency.ordinal()][toCurrency.ordinal()];
+    }
+
+    // Converting the amounts of all currencies (indexed by CurrencyType.ordinal()) into one currency and summing them
+    double convert(double[] sums, CurrencyType toCurrency) {
+
+        int to = toCurrency.ordinal();
+
+        double result = 0.0;
+        for (int from = 0; from < sums.length; from++) {
+            result += sums[from] * factors[from][to];
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,49 @@
+package lab.solva.user.transaction.service.impl;
+
+import lab.solva.user.transaction.client.ExchangeRateXmlParser;
+import lab.solva.user.transaction.dto.ExchangeInfoDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+// Parsing of the daily exchange rates document of the National Bank (get_rates.cfm, 39 currencies):
+// the previous DOM parser against the streaming StAX parser used by NationalBankClient;
+// Both start from the bytes of the response, as received from the HTTP client
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ExchangeRateParsingBenchmark {
+
+    private DomExchangeRateParser domExchangeRateParser;
+
+    private ExchangeRateXmlParser exchangeRateXmlParser;
+
+    private byte[] xmlBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+
+        domExchangeRateParser = new DomExchangeRateParser();
+        exchangeRateXmlParser = new ExchangeRateXmlParser();
+
+        try (InputStream inputStream = Objects.requireNonNull(
+                ExchangeRateParsingBenchmark.class.getResourceAsStream("/get_rates.xml"))) {
+            xmlBytes = inputStream.readAllBytes();
+        }
+    }
+
+    @Benchmark
+    public ExchangeInfoDto parseDom() throws Exception {
+        return domExchangeRateParser.parseXmlData(new String(xmlBytes, StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public ExchangeInfoDto parseStax() throws Exception {
+        return exchangeRateXmlParser.parse(new ByteArrayInputStream(xmlBytes));
+    }
+}
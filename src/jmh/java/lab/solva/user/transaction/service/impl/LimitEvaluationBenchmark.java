@@ -0,0 +1,50 @@
+package lab.solva.user.transaction.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lab.solva.user.transaction.metrics.TransactionMetrics;
+import lab.solva.user.transaction.model.AmountLimitEntity;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+
+// Evaluation of one transaction against the totals of the month, including the conversion
+// of all currencies into the currency of the limit
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class LimitEvaluationBenchmark {
+
+    @Param({"KZT", "USD", "EUR", "RUB"})
+    public String limitCurrencyCode;
+
+    private BankServiceImpl bankServiceImpl;
+
+    private LimitEvaluationContext limitEvaluationContext;
+
+    @Setup
+    public void setUp() {
+
+        // Only the in-memory part of the service is used, repositories and caches are not needed;
+        // The meters are recorded into an in-memory registry, as in the application
+        bankServiceImpl = new BankServiceImpl(null, null, null, null, null, null,
+                new TransactionMetrics(new SimpleMeterRegistry()), null, null, null);
+
+        AmountLimitEntity amountLimitEntity = new AmountLimitEntity();
+        amountLimitEntity.setLimitSum(1000.0);
+        amountLimitEntity.setLimitCurrencyCode(limitCurrencyCode);
+
+        limitEvaluationContext = new LimitEvaluationContext("0000000001", "Service", YearMonth.now(),
+                amountLimitEntity, BenchmarkData.CROSS_RATES, new long[] {15000000L, 20000L, 15000L, 2000000L});
+    }
+
+    @Benchmark
+    public boolean getLimitExceededKZT() {
+        return bankServiceImpl.getLimitExceeded(limitEvaluationContext, "KZT", 5000.0);
+    }
+
+    @Benchmark
+    public boolean getLimitExceededUSD() {
+        return bankServiceImpl.getLimitExceeded(limitEvaluationContext, "USD", 10.0);
+    }
+}
@@ -0,0 +1,42 @@
+package lab.solva.user.transaction.service.impl;
+
+import lab.solva.user.transaction.enumeration.CurrencyType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Comparison of the monthly totals with the limit: the previous double arithmetic
+// against the exact arithmetic on minor units used by the service
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class MoneyComparisonBenchmark {
+
+    @Param({"KZT", "USD"})
+    public String limitCurrencyCode;
+
+    private CurrencyType limitCurrencyType;
+
+    private final double[] doubleSums = {150000.0, 200.0, 150.0, 20000.0};
+
+    private final long[] minorUnitSums = {15000000L, 20000L, 15000L, 2000000L};
+
+    @Setup
+    public void setUp() {
+        limitCurrencyType = CurrencyType.valueOf(limitCurrencyCode);
+    }
+
+    @Benchmark
+    public boolean compareDouble() {
+        double sumTransactionResult = BenchmarkData.DOUBLE_CROSS_RATES.convert(doubleSums, limitCurrencyType) +
+                10.0 * BenchmarkData.DOUBLE_CROSS_RATES.getFactor(CurrencyType.USD, limitCurrencyType);
+
+        return 1000.0 < sumTransactionResult;
+    }
+
+    @Benchmark
+    public boolean compareMinorUnits() {
+        return BenchmarkData.CROSS_RATES.isLimitExceeded(minorUnitSums, CurrencyType.USD, 1000L,
+                limitCurrencyType, 100000L);
+    }
+}
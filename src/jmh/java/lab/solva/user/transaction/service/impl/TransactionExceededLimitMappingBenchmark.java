@@ -0,0 +1,80 @@
+package lab.solva.user.transaction.service.impl;
+
+import lab.solva.user.transaction.dto.TransactionExceededLimitDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Mapping of the rows of the exceeded limit report into Dto: rows read as Object[] and copied into a second list
+// (as before the constructor expression) compared with rows mapped directly by the constructor expression
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class TransactionExceededLimitMappingBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rowCount;
+
+    private String[] currencyCodes;
+
+    private double[] transactionSums;
+
+    private Timestamp[] transactionDateTimes;
+
+    private Timestamp limitDateTime;
+
+    @Setup
+    public void setUp() {
+
+        currencyCodes = BenchmarkData.currencyCodes(rowCount);
+        transactionSums = BenchmarkData.transactionSums(rowCount);
+
+        long startMillis = Timestamp.valueOf("2024-02-01 00:00:00").getTime();
+        transactionDateTimes = new Timestamp[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            transactionDateTimes[i] = new Timestamp(startMillis + i * 1000L);
+        }
+
+        limitDateTime = new Timestamp(startMillis);
+    }
+
+    @Benchmark
+    public List<TransactionExceededLimitDto> objectArrayRows() {
+
+        // Rows as returned by the query with a list of columns
+        List<Object[]> result = new ArrayList<>();
+        for (int i = 0; i < rowCount; i++) {
+            result.add(new Object[] {"0000000001", "9000000000", currencyCodes[i], transactionSums[i], "Service",
+                    transactionDateTimes[i], 1000.0, limitDateTime, "USD"});
+        }
+
+        List<TransactionExceededLimitDto> transactionExceededLimitDtoList = new ArrayList<>();
+        for (Object[] objects : result) {
+            transactionExceededLimitDtoList.add(new TransactionExceededLimitDto(
+                    (String) objects[0], (String) objects[1], (String) objects[2], (Double) objects[3],
+                    (String) objects[4], ((Timestamp) objects[5]).toInstant().atZone(ZoneId.systemDefault()),
+                    (Double) objects[6], ((Timestamp) objects[7]).toInstant().atZone(ZoneId.systemDefault()),
+                    (String) objects[8]));
+        }
+
+        return transactionExceededLimitDtoList;
+    }
+
+    @Benchmark
+    public List<TransactionExceededLimitDto> constructorExpressionRows() {
+
+        // Rows as returned by the query with a constructor expression
+        List<TransactionExceededLimitDto> transactionExceededLimitDtoList = new ArrayList<>();
+        for (int i = 0; i < rowCount; i++) {
+            transactionExceededLimitDtoList.add(new TransactionExceededLimitDto((long) i, "0000000001", "9000000000",
+                    currencyCodes[i], transactionSums[i], "Service", transactionDateTimes[i],
+                    1000.0, limitDateTime, "USD"));
+        }
+
+        return transactionExceededLimitDtoList;
+    }
+}
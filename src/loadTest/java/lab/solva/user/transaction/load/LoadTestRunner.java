@@ -0,0 +1,365 @@
+package lab.solva.user.transaction.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lab.solva.user.transaction.UserTransactionApplication;
+import lab.solva.user.transaction.cache.ExchangeRateCache;
+import lab.solva.user.transaction.model.ExchangeInfoEntity;
+import lab.solva.user.transaction.model.ExchangeRateEntity;
+import lab.solva.user.transaction.repository.ExchangeInfoRepository;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Load generator that replays the request samples of the scripts/ directory with a configurable mix;
+// If load.baseUrl is not set, the application is started in this JVM with an embedded H2 database.
+//
+// Settings (system properties):
+//   load.baseUrl          URL of a running application, e.g. http://localhost:8000
+//   load.scriptsDir       directory with request samples (scripts)
+//   load.mix              weights by sample name, e.g. saveExpenseTransaction:70,saveAmountLimit:10
+//   load.concurrency      number of concurrent clients (64)
+//   load.warmupSeconds    duration of the warm-up, not included in the report (10)
+//   load.durationSeconds  duration of the measurement (60)
+//   load.accounts         number of distinct client accounts (1000)
+//   load.batchSize        number of transactions in a request of a batch sample, e.g. saveExpenseTransactionList (50)
+//   load.threadModes      request threads of the embedded application, run one after another
+//                         for comparison, e.g. platform,virtual (the setting of application.yml)
+//   load.logModes         logging of the embedded application at DEBUG level, run one after another
+//                         for comparison, e.g. sync,async (by default logging of the loadtest profile)
+public final class LoadTestRunner {
+
+    private static final String DEFAULT_MIX = "saveExpenseTransaction:70,saveAmountLimit:5," +
+            "getAllTransactionExceededLimitByAccountClient:10,getAllAmountLimitDateByAccountClient:10," +
+            "getAllExchangeRateByCurrentDate:5";
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssXXX");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final String baseUrl;
+
+    private final int accounts;
+
+    private final int batchSize;
+
+    private final List<RequestScript> requestScripts = new ArrayList<>();
+
+    // Cumulative weights of the scripts, a random number in [0, totalWeight) selects a script
+    private final int[] cumulativeWeights;
+
+    private LoadTestRunner(String baseUrl, Path scriptsDir, String mix, int accounts, int batchSize)
+            throws IOException {
+
+        this.baseUrl = baseUrl;
+        this.accounts = accounts;
+        this.batchSize = batchSize;
+
+        Map<String, RequestScript> scriptsByName = new HashMap<>();
+        try (Stream<Path> files = Files.list(scriptsDir)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                RequestScript requestScript = RequestScript.load(file, objectMapper);
+                scriptsByName.put(requestScript.getName(), requestScript);
+            }
+        }
+
+        List<Integer> weights = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] nameAndWeight = entry.trim().split(":");
+            RequestScript requestScript = scriptsByName.get(nameAndWeight[0]);
+            if (requestScript == null) {
+                throw new IllegalArgumentException("Request sample not found: " + nameAndWeight[0]);
+            }
+
+            requestScripts.add(requestScript);
+            weights.add(Integer.parseInt(nameAndWeight[1]));
+        }
+
+        cumulativeWeights = new int[weights.size()];
+        for (int i = 0, sum = 0; i < weights.size(); i++) {
+            sum += weights.get(i);
+            cumulativeWeights[i] = sum;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        String baseUrl = System.getProperty("load.baseUrl");
+        Path scriptsDir = Path.of(System.getProperty("load.scriptsDir", "scripts"));
+        String mix = System.getProperty("load.mix", DEFAULT_MIX);
+        int concurrency = Integer.getInteger("load.concurrency", 64);
+        int warmupSeconds = Integer.getInteger("load.warmupSeconds", 10);
+        int durationSeconds = Integer.getInteger("load.durationSeconds", 60);
+        int accounts = Integer.getInteger("load.accounts", 1000);
+        int batchSize = Integer.getInteger("load.batchSize", 50);
+        String threadModes = System.getProperty("load.threadModes", "");
+        String logModes = System.getProperty("load.logModes", "");
+
+        if (baseUrl != null && !baseUrl.isBlank()) {
+            new LoadTestRunner(baseUrl, scriptsDir, mix, accounts, batchSize).runLoadTest(concurrency, warmupSeconds,
+                    durationSeconds, mix);
+            return;
+        }
+
+        for (String threadMode : threadModes.isBlank() ? new String[] {""} : threadModes.split(",")) {
+            for (String logMode : logModes.isBlank() ? new String[] {""} : logModes.split(",")) {
+                ConfigurableApplicationContext applicationContext = startEmbeddedApplication(threadMode.trim(),
+                        logMode.trim());
+
+                try {
+                    String embeddedBaseUrl = "http://localhost:" +
+                            ((ServletWebServerApplicationContext) applicationContext).getWebServer().getPort();
+
+                    if (!threadMode.isBlank()) {
+                        System.out.printf("Thread mode: %s%n", threadMode.trim());
+                    }
+                    if (!logMode.isBlank()) {
+                        System.out.printf("Log mode: %s%n", logMode.trim());
+                    }
+                    new LoadTestRunner(embeddedBaseUrl, scriptsDir, mix, accounts, batchSize).runLoadTest(concurrency,
+                            warmupSeconds, durationSeconds, mix);
+
+                } finally {
+                    applicationContext.close();
+                }
+            }
+        }
+    }
+
+    private void runLoadTest(int concurrency, int warmupSeconds, int durationSeconds, String mix)
+            throws InterruptedException {
+
+        System.out.printf("Load test: baseUrl=%s, concurrency=%d, warmup=%ds, duration=%ds, mix=%s, batchSize=%d%n",
+                baseUrl, concurrency, warmupSeconds, durationSeconds, mix, batchSize);
+
+        run(concurrency, warmupSeconds, null);
+
+        Map<String, LatencyHistogram> histograms = new LinkedHashMap<>();
+        requestScripts.forEach(requestScript ->
+                histograms.putIfAbsent(requestScript.getName(), new LatencyHistogram()));
+
+        long startTime = System.nanoTime();
+        run(concurrency, durationSeconds, histograms);
+        double elapsedSeconds = (System.nanoTime() - startTime) / 1e9;
+
+        printReport(histograms, elapsedSeconds);
+    }
+
+    // Each client sends requests one after another until the end of the period (closed model)
+    private void run(int concurrency, int seconds, Map<String, LatencyHistogram> histograms)
+            throws InterruptedException {
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        ExecutorService executorService = newClientExecutor(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            executorService.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    RequestScript requestScript = nextRequestScript();
+                    LatencyHistogram histogram = histograms == null ? null : histograms.get(requestScript.getName());
+
+                    long requestStart = System.nanoTime();
+                    boolean success = send(requestScript);
+                    long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - requestStart);
+
+                    if (histogram != null) {
+                        if (success) {
+                            histogram.record(latencyMicros);
+                        } else {
+                            histogram.recordError();
+                        }
+                    }
+                }
+            });
+        }
+
+        executorService.shutdown();
+        if (!executorService.awaitTermination(seconds + 60L, TimeUnit.SECONDS)) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private RequestScript nextRequestScript() {
+
+        int value = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return requestScripts.get(i);
+            }
+        }
+
+        return requestScripts.get(requestScripts.size() - 1);
+    }
+
+    private boolean send(RequestScript requestScript) {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String accountClient = String.format("%010d", 1 + random.nextInt(accounts));
+
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + requestScript.pathFor(accountClient)))
+                .timeout(Duration.ofSeconds(30));
+
+        try {
+            if (requestScript.hasBody()) {
+                requestBuilder.header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(createBody(requestScript, accountClient, random)));
+            } else {
+                requestBuilder.GET();
+            }
+
+            HttpResponse<Void> response = httpClient.send(requestBuilder.build(),
+                    HttpResponse.BodyHandlers.discarding());
+
+            return response.statusCode() < 400;
+
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // The sample body with the account of the request, a random amount and the date and time within the last hour;
+    // A batch contains load.batchSize such transactions of the account
+    private String createBody(RequestScript requestScript, String accountClient, ThreadLocalRandom random)
+            throws IOException {
+
+        if (requestScript.isBatch()) {
+            ArrayNode batch = objectMapper.createArrayNode();
+            for (int i = 0; i < batchSize; i++) {
+                batch.add(fillBody(requestScript.newBody(), accountClient, random));
+            }
+
+            return objectMapper.writeValueAsString(batch);
+        }
+
+        return objectMapper.writeValueAsString(fillBody(requestScript.newBody(), accountClient, random));
+    }
+
+    private static ObjectNode fillBody(ObjectNode body, String accountClient, ThreadLocalRandom random) {
+
+        body.put("account_from", accountClient);
+
+        if (body.has("Sum")) {
+            body.put("Sum", random.nextInt(100, 1000000) / 100.0);
+        }
+        if (body.has("limit_sum")) {
+            body.put("limit_sum", random.nextInt(1000, 100000));
+        }
+        if (body.has("datetime")) {
+            body.put("datetime", ZonedDateTime.now().minusSeconds(1 + random.nextInt(3600))
+                    .format(DATE_TIME_FORMATTER));
+        }
+
+        return body;
+    }
+
+    // Virtual threads are used when the runtime supports them (Java 21+), otherwise one platform thread per client
+    private static ExecutorService newClientExecutor(int concurrency) {
+
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(concurrency);
+        }
+    }
+
+    private static ConfigurableApplicationContext startEmbeddedApplication(String threadMode, String logMode) {
+
+        SpringApplication springApplication = new SpringApplication(UserTransactionApplication.class);
+
+        List<String> args = new ArrayList<>();
+
+        // The thread mode overrides the setting of application.yml
+        if (!threadMode.isBlank()) {
+            args.add("--transaction.virtual-threads.enabled=" + "virtual".equalsIgnoreCase(threadMode));
+        }
+
+        // The log mode enables the DEBUG level of application.yml, events are written synchronously
+        // with the sync-logging profile (see logback-spring.xml)
+        if (logMode.isBlank()) {
+            springApplication.setAdditionalProfiles("loadtest");
+        } else {
+            args.add("--logging.level.lab.solva.user.transaction=DEBUG");
+            springApplication.setAdditionalProfiles("sync".equalsIgnoreCase(logMode) ?
+                    new String[] {"loadtest", "sync-logging"} : new String[] {"loadtest"});
+        }
+
+        ConfigurableApplicationContext applicationContext = springApplication.run(args.toArray(new String[0]));
+
+        // Exchange rates are stored in advance, so that the external service is not requested
+        ExchangeInfoEntity exchangeInfoEntity = new ExchangeInfoEntity();
+        exchangeInfoEntity.setResource("https://nationalbank.kz");
+        exchangeInfoEntity.setRequestDate(LocalDate.now());
+
+        Set<ExchangeRateEntity> exchangeRateEntitySet = new HashSet<>();
+        exchangeRateEntitySet.add(createExchangeRateEntity(exchangeInfoEntity, "ДОЛЛАР США", "USD", 449.89));
+        exchangeRateEntitySet.add(createExchangeRateEntity(exchangeInfoEntity, "ЕВРО", "EUR", 487.78));
+        exchangeRateEntitySet.add(createExchangeRateEntity(exchangeInfoEntity, "РОССИЙСКИЙ РУБЛЬ", "RUB", 5.02));
+        exchangeInfoEntity.setExchangeRateEntities(exchangeRateEntitySet);
+
+        applicationContext.getBean(ExchangeInfoRepository.class).save(exchangeInfoEntity);
+        applicationContext.getBean(ExchangeRateCache.class).refresh();
+
+        return applicationContext;
+    }
+
+    private static ExchangeRateEntity createExchangeRateEntity(ExchangeInfoEntity exchangeInfoEntity,
+                                                               String currencyName, String currencyCode,
+                                                               double exchangeRate) {
+
+        ExchangeRateEntity exchangeRateEntity = new ExchangeRateEntity();
+        exchangeRateEntity.setCurrencyName(currencyName);
+        exchangeRateEntity.setCurrencyCode(currencyCode);
+        exchangeRateEntity.setExchangeRate(exchangeRate);
+        exchangeRateEntity.setExchangeInfoEntity(exchangeInfoEntity);
+
+        return exchangeRateEntity;
+    }
+
+    private static void printReport(Map<String, LatencyHistogram> histograms, double elapsedSeconds) {
+
+        System.out.printf("%n%-46s %10s %8s %10s %10s %10s %10s%n",
+                "Endpoint", "Requests", "Errors", "Req/s", "p50 ms", "p99 ms", "p999 ms");
+
+        long totalCount = 0;
+        long totalErrors = 0;
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            totalCount += histogram.getCount();
+            totalErrors += histogram.getErrorCount();
+
+            System.out.printf("%-46s %10d %8d %10.1f %10.2f %10.2f %10.2f%n", entry.getKey(),
+                    histogram.getCount(), histogram.getErrorCount(), histogram.getCount() / elapsedSeconds,
+                    histogram.percentile(50) / 1000.0, histogram.percentile(99) / 1000.0,
+                    histogram.percentile(99.9) / 1000.0);
+        }
+
+        System.out.printf("%-46s %10d %8d %10.1f%n", "Total", totalCount, totalErrors, totalCount / elapsedSeconds);
+    }
+}
@@ -0,0 +1,98 @@
+package lab.solva.user.transaction.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Request sample from the scripts/ directory: link to check, HTTP method and an optional JSON body;
+// A body that is a JSON array is a batch, its first element is the template of each item of the batch
+final class RequestScript {
+
+    private static final Pattern METHOD_PATTERN = Pattern.compile("method\\s+(GET|POST)");
+
+    // Account numbers in links are replaced with the account of the generated request
+    private static final Pattern ACCOUNT_PATTERN = Pattern.compile("/\\d{10}(?=/|$)");
+
+    private final String name;
+
+    private final String method;
+
+    private final String path;
+
+    private final ObjectNode bodyTemplate;
+
+    private final boolean batch;
+
+    private RequestScript(String name, String method, String path, ObjectNode bodyTemplate, boolean batch) {
+        this.name = name;
+        this.method = method;
+        this.path = path;
+        this.bodyTemplate = bodyTemplate;
+        this.batch = batch;
+    }
+
+    static RequestScript load(Path file, ObjectMapper objectMapper) throws IOException {
+
+        List<String> lines = Files.readAllLines(file);
+
+        String link = lines.stream()
+                .map(String::trim)
+                .filter(line -> line.startsWith("http"))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Link not found in " + file));
+
+        String text = String.join("\n", lines);
+        Matcher methodMatcher = METHOD_PATTERN.matcher(text);
+        if (!methodMatcher.find()) {
+            throw new IllegalArgumentException("HTTP method not found in " + file);
+        }
+
+        int bodyStart = text.indexOf('{');
+        int batchStart = text.indexOf('[');
+        boolean batch = batchStart >= 0 && (bodyStart < 0 || batchStart < bodyStart);
+
+        ObjectNode bodyTemplate;
+        if (batch) {
+            bodyTemplate = (ObjectNode) objectMapper.readTree(text.substring(batchStart, text.lastIndexOf(']') + 1))
+                    .get(0);
+        } else {
+            bodyTemplate = bodyStart < 0 ? null :
+                    (ObjectNode) objectMapper.readTree(text.substring(bodyStart, text.lastIndexOf('}') + 1));
+        }
+
+        return new RequestScript(file.getFileName().toString(), methodMatcher.group(1),
+                URI.create(link).getPath(), bodyTemplate, batch);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getMethod() {
+        return method;
+    }
+
+    boolean hasBody() {
+        return bodyTemplate != null;
+    }
+
+    boolean isBatch() {
+        return batch;
+    }
+
+    String pathFor(String accountClient) {
+        return ACCOUNT_PATTERN.matcher(path).replaceAll("/" + accountClient);
+    }
+
+    // Copy of the sample body (of an item of a batch) that can be changed for a generated request
+    ObjectNode newBody() {
+        return bodyTemplate.deepCopy();
+    }
+}
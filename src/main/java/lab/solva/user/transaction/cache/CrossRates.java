@@ -0,0 +1,99 @@
+package lab.solva.user.transaction.cache;
+
+import lab.solva.user.transaction.enumeration.CurrencyType;
+
+import java.math.BigInteger;
+import java.util.Map;
+
+// Immutable conversion of amounts of all currencies into tenge, indexed by CurrencyType.ordinal();
+// KZT is the base currency, a currency without a rate is not converted (multiplier 0), as before;
+// Limit decisions are made on amounts in minor units and rates scaled to integers, so they are exact
+public final class CrossRates {
+
+    private static final CurrencyType[] CURRENCY_TYPES = CurrencyType.values();
+
+    // Rates are stored with 4 decimal digits, the National Bank publishes them with at most 2
+    private static final long RATE_SCALE = 10_000L;
+
+    // Multiplier bringing minor units of each currency to the smallest minor unit of all currencies
+    private static final long[] MINOR_UNIT_MULTIPLIERS = createMinorUnitMultipliers();
+
+    // Only amounts in the limit currency are taken into account
+    public static final CrossRates IDENTITY = of(Map.of());
+
+    // Multipliers converting minor units of each currency into tenge scaled to a common integer unit,
+    // 0 if there is no rate for the currency
+    private final long[] tengeMultipliers;
+
+    private CrossRates(long[] tengeMultipliers) {
+        this.tengeMultipliers = tengeMultipliers;
+    }
+
+    // Building the multipliers from the exchange rates (tenge per unit of currency) by Currency Code
+    public static CrossRates of(Map<String, Double> exchangeRates) {
+
+        long[] tengeMultipliers = new long[CURRENCY_TYPES.length];
+        for (CurrencyType currencyType : CURRENCY_TYPES) {
+            Double exchangeRate = currencyType == CurrencyType.KZT ? Double.valueOf(1.0) :
+                    exchangeRates.get(currencyType.name());
+
+            if (exchangeRate != null && exchangeRate > 0.0) {
+                tengeMultipliers[currencyType.ordinal()] = Math.round(exchangeRate * RATE_SCALE) *
+                        MINOR_UNIT_MULTIPLIERS[currencyType.ordinal()];
+            }
+        }
+
+        return new CrossRates(tengeMultipliers);
+    }
+
+    // Checking whether the total of all currencies (in minor units, indexed by CurrencyType.ordinal())
+    // together with the added amount exceeds the limit; The amounts are compared in tenge without rounding
+    public boolean isLimitExceeded(long[] sums, CurrencyType addedCurrency, long addedMinorUnits,
+                                   CurrencyType limitCurrency, long limitMinorUnits) {
+
+        int limit = limitCurrency.ordinal();
+        int added = addedCurrency.ordinal();
+
+        // Without the rate of the limit currency only the amounts in this currency are taken into account
+        if (tengeMultipliers[limit] == 0L) {
+            long total = sums[limit] + (addedCurrency == limitCurrency ? addedMinorUnits : 0L);
+            return total > limitMinorUnits;
+        }
+
+        try {
+            long total = Math.multiplyExact(addedMinorUnits, tengeMultipliers[added]);
+            for (int from = 0; from < sums.length; from++) {
+                total = Math.addExact(total, Math.multiplyExact(sums[from], tengeMultipliers[from]));
+            }
+
+            return total > Math.multiplyExact(limitMinorUnits, tengeMultipliers[limit]);
+
+        } catch (ArithmeticException e) {
+            // Amounts beyond the range of long are compared as BigInteger
+            BigInteger total = BigInteger.valueOf(addedMinorUnits)
+                    .multiply(BigInteger.valueOf(tengeMultipliers[added]));
+            for (int from = 0; from < sums.length; from++) {
+                total = total.add(BigInteger.valueOf(sums[from]).multiply(BigInteger.valueOf(tengeMultipliers[from])));
+            }
+
+            return total.compareTo(BigInteger.valueOf(limitMinorUnits)
+                    .multiply(BigInteger.valueOf(tengeMultipliers[limit]))) > 0;
+        }
+    }
+
+    private static long[] createMinorUnitMultipliers() {
+
+        int maxMinorUnitDigits = 0;
+        for (CurrencyType currencyType : CURRENCY_TYPES) {
+            maxMinorUnitDigits = Math.max(maxMinorUnitDigits, currencyType.getMinorUnitDigits());
+        }
+
+        long[] multipliers = new long[CURRENCY_TYPES.length];
+        for (CurrencyType currencyType : CURRENCY_TYPES) {
+            multipliers[currencyType.ordinal()] =
+                    BigInteger.TEN.pow(maxMinorUnitDigits - currencyType.getMinorUnitDigits()).longValueExact();
+        }
+
+        return multipliers;
+    }
+}
@@ -0,0 +1,254 @@
+package lab.solva.user.transaction.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lab.solva.user.transaction.dto.ExchangeRateCacheDto;
+import lab.solva.user.transaction.model.ExchangeInfoEntity;
+import lab.solva.user.transaction.metrics.TransactionMetrics;
+import lab.solva.user.transaction.model.ExchangeRateEntity;
+import lab.solva.user.transaction.repository.ExchangeInfoRepository;
+import lab.solva.user.transaction.service.ExchangeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class ExchangeRateCache {
+
+    private final ExchangeService exchangeService;
+    private final ExchangeInfoRepository exchangeInfoRepository;
+    private final TransactionMetrics transactionMetrics;
+    private final MeterRegistry meterRegistry;
+
+    // The current snapshot is replaced as a whole, readers never see a partially updated set of rates
+    private final AtomicReference<RateSnapshot> snapshot = new AtomicReference<>();
+
+    // Snapshots of all stored dates for the lookup by the date of a transaction;
+    // The map is never modified after publication, every update replaces it with a new map
+    private final AtomicReference<NavigableMap<LocalDate, RateSnapshot>> history =
+            new AtomicReference<>(new TreeMap<>());
+
+    // Only one refresh is performed at a time, concurrent calls are skipped
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder staleCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder refreshCount = new LongAdder();
+    private final LongAdder refreshFailureCount = new LongAdder();
+
+    private volatile long lastRefreshMillis;
+
+    // Returns the current snapshot of exchange rates without any I/O;
+    // If the rates for the current date have not been received yet, the rates of the latest stored date are returned
+    public Optional<RateSnapshot> getSnapshot() {
+
+        RateSnapshot rateSnapshot = snapshot.get();
+
+        if (rateSnapshot == null) {
+            missCount.increment();
+        } else if (rateSnapshot.requestDate().isBefore(LocalDate.now())) {
+            staleCount.increment();
+        } else {
+            hitCount.increment();
+        }
+
+        return Optional.ofNullable(rateSnapshot);
+    }
+
+    // Returns the snapshot of the exchange rates in effect on the date without any I/O: the rates of the date itself
+    // or of the nearest previous date; For a date before all stored dates, the rates of the earliest date are returned
+    public Optional<RateSnapshot> getSnapshot(LocalDate date) {
+
+        NavigableMap<LocalDate, RateSnapshot> rateSnapshotMap = history.get();
+
+        // floorKey and get do not allocate, unlike floorEntry
+        LocalDate snapshotDate = rateSnapshotMap.floorKey(date);
+        if (snapshotDate == null && !rateSnapshotMap.isEmpty()) {
+            snapshotDate = rateSnapshotMap.firstKey();
+        }
+
+        if (snapshotDate == null) {
+            missCount.increment();
+            return Optional.empty();
+        }
+
+        if (snapshotDate.equals(date)) {
+            hitCount.increment();
+        } else {
+            staleCount.increment();
+        }
+        transactionMetrics.recordRateStaleness(Math.abs(ChronoUnit.DAYS.between(snapshotDate, date)));
+
+        return Optional.of(rateSnapshotMap.get(snapshotDate));
+    }
+
+    // Adding the rates of saved dates (e.g. after a backfill) to the history
+    public void addSnapshots(Collection<ExchangeInfoEntity> exchangeInfoEntities) {
+
+        Map<LocalDate, RateSnapshot> rateSnapshotMap = new HashMap<>();
+        for (ExchangeInfoEntity exchangeInfoEntity : exchangeInfoEntities) {
+            rateSnapshotMap.put(exchangeInfoEntity.getRequestDate(),
+                    createSnapshot(exchangeInfoEntity.getRequestDate(), exchangeInfoEntity.getExchangeRateEntities()));
+        }
+
+        history.updateAndGet(currentHistory -> {
+            NavigableMap<LocalDate, RateSnapshot> updatedHistory = new TreeMap<>(currentHistory);
+            updatedHistory.putAll(rateSnapshotMap);
+
+            return updatedHistory;
+        });
+    }
+
+    // Removing all snapshots, they will be loaded again on the next refresh
+    public void clear() {
+
+        snapshot.set(null);
+        history.set(new TreeMap<>());
+
+        log.debug("!Exchange Rates snapshots cleared");
+    }
+
+    // Receiving the exchange rates for the current date (from the database or an external service)
+    // and replacing the snapshot; If there are no rates, the previous snapshot remains in use
+    public void refresh() {
+
+        if (!refreshLock.tryLock()) {
+            log.debug("!Exchange Rates refresh is already in progress");
+            return;
+        }
+
+        long startTime = System.nanoTime();
+
+        try {
+            Set<ExchangeRateEntity> exchangeRateEntitySet = exchangeService.gettingRates();
+
+            if (exchangeRateEntitySet == null || exchangeRateEntitySet.isEmpty()) {
+                refreshFailureCount.increment();
+                log.error("!Attention, Exchange Rates were not refreshed, the previous Rates remain in use, " +
+                        "requestDate={}", Optional.ofNullable(snapshot.get()).map(RateSnapshot::requestDate).orElse(null));
+                return;
+            }
+
+            LocalDate requestDate = exchangeRateEntitySet.iterator().next().getExchangeInfoEntity().getRequestDate();
+            RateSnapshot rateSnapshot = createSnapshot(requestDate, exchangeRateEntitySet);
+            snapshot.set(rateSnapshot);
+            putSnapshot(rateSnapshot);
+            refreshCount.increment();
+
+            log.debug("!Exchange Rates refreshed successfully, requestDate={}", requestDate);
+
+        } catch (RuntimeException e) {
+            refreshFailureCount.increment();
+            log.error("!Attention, Exchange Rates were not refreshed, the previous Rates remain in use", e);
+
+        } finally {
+            lastRefreshMillis = Duration.ofNanos(System.nanoTime() - startTime).toMillis();
+            refreshLock.unlock();
+        }
+    }
+
+    // Loading the rates of all stored dates at startup, without requests to an external service;
+    // The rates of the latest stored date become the current snapshot
+    @EventListener(ContextRefreshedEvent.class)
+    public void loadStoredRates() {
+
+        if (snapshot.get() != null) {
+            return;
+        }
+
+        List<ExchangeInfoEntity> exchangeInfoEntityList = exchangeInfoRepository.findAllExchangeInfoWithRates();
+        if (exchangeInfoEntityList.isEmpty()) {
+            return;
+        }
+
+        addSnapshots(exchangeInfoEntityList);
+
+        Map.Entry<LocalDate, RateSnapshot> latestEntry = history.get().lastEntry();
+        snapshot.compareAndSet(null, latestEntry.getValue());
+
+        log.debug("!Exchange Rates loaded from the Database, days={}, requestDate={}",
+                exchangeInfoEntityList.size(), latestEntry.getKey());
+    }
+
+    public ExchangeRateCacheDto getStatistics() {
+
+        RateSnapshot rateSnapshot = snapshot.get();
+
+        ExchangeRateCacheDto exchangeRateCacheDto = new ExchangeRateCacheDto();
+
+        if (rateSnapshot != null) {
+            exchangeRateCacheDto.date = rateSnapshot.requestDate();
+            exchangeRateCacheDto.snapshot_age_seconds =
+                    Duration.between(rateSnapshot.loadedAt(), Instant.now()).toSeconds();
+        }
+        exchangeRateCacheDto.history_days = history.get().size();
+        exchangeRateCacheDto.last_refresh_millis = lastRefreshMillis;
+        exchangeRateCacheDto.refresh_count = refreshCount.sum();
+        exchangeRateCacheDto.refresh_failure_count = refreshFailureCount.sum();
+        exchangeRateCacheDto.hit_count = hitCount.sum();
+        exchangeRateCacheDto.stale_count = staleCount.sum();
+        exchangeRateCacheDto.miss_count = missCount.sum();
+
+        return exchangeRateCacheDto;
+    }
+
+    // The statistics of the cache are exposed as meters, they are read from the counters when scraped
+    @PostConstruct
+    public void registerMeters() {
+
+        FunctionCounter.builder("exchange.rate.cache.requests", hitCount, LongAdder::sum)
+                .description("Snapshot requests by result").tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("exchange.rate.cache.requests", staleCount, LongAdder::sum)
+                .description("Snapshot requests by result").tag("result", "stale").register(meterRegistry);
+        FunctionCounter.builder("exchange.rate.cache.requests", missCount, LongAdder::sum)
+                .description("Snapshot requests by result").tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("exchange.rate.cache.refreshes", refreshCount, LongAdder::sum)
+                .description("Refreshes of the snapshot by result").tag("result", "success").register(meterRegistry);
+        FunctionCounter.builder("exchange.rate.cache.refreshes", refreshFailureCount, LongAdder::sum)
+                .description("Refreshes of the snapshot by result").tag("result", "failure").register(meterRegistry);
+
+        // Days between the current date and the date of the current snapshot, -1 if there is no snapshot
+        Gauge.builder("exchange.rate.cache.age", snapshot, currentSnapshot -> Optional.ofNullable(currentSnapshot.get())
+                        .map(rateSnapshot -> ChronoUnit.DAYS.between(rateSnapshot.requestDate(), LocalDate.now()))
+                        .orElse(-1L))
+                .description("Age of the current exchange rates").baseUnit("days").register(meterRegistry);
+        Gauge.builder("exchange.rate.cache.history", history, currentHistory -> currentHistory.get().size())
+                .description("Dates with exchange rates in memory").baseUnit("days").register(meterRegistry);
+    }
+
+    private void putSnapshot(RateSnapshot rateSnapshot) {
+        history.updateAndGet(currentHistory -> {
+            NavigableMap<LocalDate, RateSnapshot> updatedHistory = new TreeMap<>(currentHistory);
+            updatedHistory.put(rateSnapshot.requestDate(), rateSnapshot);
+
+            return updatedHistory;
+        });
+    }
+
+    private RateSnapshot createSnapshot(LocalDate requestDate, Set<ExchangeRateEntity> exchangeRateEntitySet) {
+
+        Map<String, Double> exchangeRateMap = new HashMap<>();
+        for (ExchangeRateEntity exchangeRateEntity : exchangeRateEntitySet) {
+            exchangeRateMap.put(exchangeRateEntity.getCurrencyCode(), exchangeRateEntity.getExchangeRate());
+        }
+
+        return new RateSnapshot(requestDate, exchangeRateMap, Instant.now());
+    }
+}
@@ -0,0 +1,21 @@
+package lab.solva.user.transaction.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Background refresh of exchange rates, requests to the external service are never made on the transaction thread
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "transaction.exchange-rate.refresh.enabled", matchIfMissing = true)
+public class ExchangeRateRefresher {
+
+    private final ExchangeRateCache exchangeRateCache;
+
+    @Scheduled(initialDelayString = "${transaction.exchange-rate.refresh.initial-delay-ms:0}",
+            fixedDelayString = "${transaction.exchange-rate.refresh.delay-ms:600000}")
+    public void refreshRates() {
+        exchangeRateCache.refresh();
+    }
+}
@@ -0,0 +1,168 @@
+package lab.solva.user.transaction.cache;
+
+import lab.solva.user.transaction.dto.TransactionSumDto;
+import lab.solva.user.transaction.enumeration.CurrencyType;
+import lab.solva.user.transaction.repository.MonthlySpendRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class MonthlySpendAccumulator {
+
+    private static final CurrencyType[] CURRENCY_TYPES = CurrencyType.values();
+
+    private static final int LOAD_LOCK_STRIPES = 64;
+
+    private final MonthlySpendRepository monthlySpendRepository;
+
+    // When disabled, the totals are read from the database on each access (under the lock of the evaluation),
+    // so that the transactions saved by other instances of the application are included
+    @Value("${transaction.spend-cache.enabled:false}")
+    private boolean enabled;
+
+    // Running totals in minor units per (account, category, month), the array is indexed by CurrencyType.ordinal();
+    // Arrays are never modified after publication, every update replaces the value with a new array
+    private final ConcurrentMap<SpendKey, long[]> monthlySums = new ConcurrentHashMap<>();
+
+    // Loading of totals from the database is performed under a lock of the key stripe, not inside
+    // ConcurrentHashMap.computeIfAbsent, which would block a carrier of virtual threads during the query
+    private final ReentrantLock[] loadLocks = createLoadLocks();
+
+    // The month in which the last eviction of outdated keys was performed
+    private volatile YearMonth lastEvictionMonth = YearMonth.now();
+
+    // Returns the totals of all transactions for a month for each currency in minor units,
+    // on the first access the totals are loaded from the database
+    public long[] getMonthlySums(String accountClient, String expenseCategory, YearMonth month) {
+
+        if (!enabled) {
+            return loadMonthlySums(new SpendKey(accountClient, expenseCategory, month));
+        }
+
+        evictOutdatedMonths();
+
+        SpendKey key = new SpendKey(accountClient, expenseCategory, month);
+
+        long[] sums = monthlySums.get(key);
+        if (sums == null) {
+            ReentrantLock loadLock = getLoadLock(key);
+            loadLock.lock();
+            try {
+                sums = monthlySums.get(key);
+                if (sums == null) {
+                    sums = loadMonthlySums(key);
+                    monthlySums.put(key, sums);
+                }
+            } finally {
+                loadLock.unlock();
+            }
+        }
+
+        return sums.clone();
+    }
+
+    // Adding the amount of a saved transaction to the running total;
+    // If the totals have not been loaded yet, they will include this transaction when loaded from the database
+    public void addTransactionSum(String accountClient, String expenseCategory, YearMonth month,
+                                  String currencyCode, double transactionSum) {
+
+        CurrencyType currencyType;
+        try {
+            currencyType = CurrencyType.valueOf(currencyCode);
+        } catch (IllegalArgumentException e) {
+            log.error("!Invalid value, received an unknown Currency Code, " +
+                    "accountClient={}, currencyCode={}", accountClient, currencyCode);
+            return;
+        }
+
+        SpendKey spendKey = new SpendKey(accountClient, expenseCategory, month);
+
+        // The lock of the key stripe makes the update wait for totals that are being loaded
+        ReentrantLock loadLock = getLoadLock(spendKey);
+        loadLock.lock();
+        try {
+            monthlySums.computeIfPresent(spendKey, (key, sums) -> {
+                long[] updatedSums = sums.clone();
+                updatedSums[currencyType.ordinal()] += currencyType.toMinorUnits(transactionSum);
+
+                return updatedSums;
+            });
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    // Removing all running totals, they will be loaded from the database again on the next access
+    public void clear() {
+
+        monthlySums.clear();
+
+        log.debug("!Monthly Spend totals cleared");
+    }
+
+    private long[] loadMonthlySums(SpendKey key) {
+
+        long[] sums = new long[CURRENCY_TYPES.length];
+
+        // Reading the totals of the month (one row for each currency), the transactions are not aggregated
+        List<TransactionSumDto> transactionSumDtoList = monthlySpendRepository.findMonthlySpend(
+                key.accountClient(), key.expenseCategory(), key.month());
+
+        for (TransactionSumDto transactionSumDto : transactionSumDtoList) {
+            try {
+                CurrencyType currencyType = CurrencyType.valueOf(transactionSumDto.getCurrencyCode());
+                sums[currencyType.ordinal()] += currencyType.toMinorUnits(transactionSumDto.getTransactionSum());
+            } catch (IllegalArgumentException e) {
+                log.error("!Invalid value, an unknown Currency Code was found in the Database, " +
+                        "accountClient={}, currencyCode={}", key.accountClient(), transactionSumDto.getCurrencyCode());
+            }
+        }
+
+        log.debug("!Monthly Spend totals loaded from the Database, accountClient={}, expenseCategory={}, month={}",
+                key.accountClient(), key.expenseCategory(), key.month());
+
+        return sums;
+    }
+
+    private ReentrantLock getLoadLock(SpendKey key) {
+        return loadLocks[(key.hashCode() & Integer.MAX_VALUE) % loadLocks.length];
+    }
+
+    private static ReentrantLock[] createLoadLocks() {
+
+        ReentrantLock[] locks = new ReentrantLock[LOAD_LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+
+        return locks;
+    }
+
+    private void evictOutdatedMonths() {
+
+        // Totals of the previous month are kept, transactions can still arrive for it shortly after rollover
+        YearMonth currentMonth = YearMonth.now();
+
+        if (!currentMonth.equals(lastEvictionMonth)) {
+            lastEvictionMonth = currentMonth;
+
+            YearMonth previousMonth = currentMonth.minusMonths(1);
+            monthlySums.keySet().removeIf(key -> key.month().isBefore(previousMonth));
+
+            log.debug("!Monthly Spend totals evicted, before month={}", previousMonth);
+        }
+    }
+
+    private record SpendKey(String accountClient, String expenseCategory, YearMonth month) {
+    }
+}
@@ -0,0 +1,19 @@
+package lab.solva.user.transaction.cache;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+
+// Immutable set of exchange rates (tenge per unit of currency) for one date of the National Bank,
+// together with the conversion of all currencies into tenge calculated once for the snapshot
+public record RateSnapshot(LocalDate requestDate, Map<String, Double> exchangeRates, Instant loadedAt,
+                           CrossRates crossRates) {
+
+    public RateSnapshot {
+        exchangeRates = Map.copyOf(exchangeRates);
+    }
+
+    public RateSnapshot(LocalDate requestDate, Map<String, Double> exchangeRates, Instant loadedAt) {
+        this(requestDate, exchangeRates, loadedAt, CrossRates.of(exchangeRates));
+    }
+}
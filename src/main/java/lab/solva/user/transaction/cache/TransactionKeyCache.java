@@ -0,0 +1,113 @@
+package lab.solva.user.transaction.cache;
+
+import lab.solva.user.transaction.repository.ExpenseTransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// In-memory front of the unique index on the transaction key: the recent keys are kept in an LRU map,
+// all keys received since the start (and saved during the last days) are added to a Bloom filter;
+// Only a key that the filter might contain and that is not a recent key is looked up in the database
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class TransactionKeyCache {
+
+    private final ExpenseTransactionRepository expenseTransactionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${transaction.dedup.expected-keys:1000000}")
+    private long expectedKeys;
+
+    @Value("${transaction.dedup.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${transaction.dedup.recent-keys:100000}")
+    private int recentKeys;
+
+    // Keys of the transactions saved during these days are added to the filter at startup
+    @Value("${transaction.dedup.warm-days:35}")
+    private int warmDays;
+
+    private BloomFilter bloomFilter;
+
+    // Recent keys in the order of access, the eldest key is removed when the map is full; The value is false
+    // while the transaction of the key is being saved and true after it has been saved; Guarded by itself
+    private Map<String, Boolean> recentKeyMap;
+
+    public enum KeyStatus {
+        NEW, // The key has never been received, the transaction is saved without a lookup
+        RECENT, // The transaction of the key has been saved recently, the transaction is a duplicate
+        IN_FLIGHT, // The transaction of the key is being saved by another request, it may still fail
+        POSSIBLY_SEEN // The key might have been received before, it is looked up in the database
+    }
+
+    @PostConstruct
+    public void warm() {
+
+        bloomFilter = new BloomFilter(expectedKeys, falsePositiveRate);
+        recentKeyMap = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > recentKeys;
+            }
+        };
+
+        Timestamp fromDateTime = Timestamp.valueOf(LocalDateTime.now().minusDays(warmDays));
+
+        // Keys are read with a database cursor, they are not kept in memory
+        long keyCount = transactionTemplate.execute(status -> {
+            try (Stream<String> transactionKeys = expenseTransactionRepository.streamTransactionKeys(fromDateTime)) {
+                return transactionKeys.peek(bloomFilter::add).count();
+            }
+        });
+
+        log.debug("!Transaction Key cache warmed, keys={}, bits={}, hashes={}",
+                keyCount, bloomFilter.getBitCount(), bloomFilter.getHashCount());
+    }
+
+    // Registering a received key, a key is claimed by one request only: until it is committed or released,
+    // the same key received by another request is IN_FLIGHT, after it has been committed it is RECENT
+    public KeyStatus claim(String transactionKey) {
+
+        synchronized (recentKeyMap) {
+            Boolean saved = recentKeyMap.putIfAbsent(transactionKey, Boolean.FALSE);
+            if (saved != null) {
+                return saved ? KeyStatus.RECENT : KeyStatus.IN_FLIGHT;
+            }
+        }
+
+        if (!bloomFilter.mightContain(transactionKey)) {
+            bloomFilter.add(transactionKey);
+            return KeyStatus.NEW;
+        }
+
+        return KeyStatus.POSSIBLY_SEEN;
+    }
+
+    // Committing a claimed key after its transaction has been saved (or found in the database),
+    // the same key received again is a duplicate
+    public void commit(String transactionKey) {
+
+        synchronized (recentKeyMap) {
+            recentKeyMap.replace(transactionKey, Boolean.TRUE);
+        }
+    }
+
+    // Releasing a key of a transaction that has not been saved, the same key can be received again
+    public void release(String transactionKey) {
+
+        synchronized (recentKeyMap) {
+            recentKeyMap.remove(transactionKey);
+        }
+    }
+}
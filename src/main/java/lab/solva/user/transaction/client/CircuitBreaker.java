@@ -0,0 +1,60 @@
+package lab.solva.user.transaction.client;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+// Circuit breaker of calls to an external service: after the given number of consecutive failures
+// the calls are not made for the open duration, then a single trial call decides whether to close it again
+class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+
+    private final Duration openDuration;
+
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+
+    private int consecutiveFailures;
+
+    private Instant openedAt;
+
+    CircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    // Returns true if a call is allowed, an open circuit lets one trial call through after the open duration
+    synchronized boolean tryAcquire() {
+
+        if (state == State.OPEN && !clock.instant().isBefore(openedAt.plus(openDuration))) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+
+        return state == State.CLOSED;
+    }
+
+    synchronized void recordSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    synchronized void recordFailure() {
+
+        consecutiveFailures++;
+
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.instant();
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,128 @@
+package lab.solva.user.transaction.client;
+
+import lab.solva.user.transaction.dto.ExchangeInfoDto;
+import lab.solva.user.transaction.dto.ExchangeRateDto;
+import lab.solva.user.transaction.enumeration.CurrencyType;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+// Streaming (StAX) parser of the exchange rates document of the National Bank:
+// <rates><link/><date/><item><fullname/><title/><description/></item>...</rates>;
+// The document is read once from the stream, only the rates of currencies of CurrencyType are kept
+public class ExchangeRateXmlParser {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    // The factory is thread-safe once configured
+    private final XMLInputFactory xmlInputFactory = createXmlInputFactory();
+
+    // Returns null if the link or the date of the document was not found;
+    // XMLStreamException is thrown if the structure of the document is broken
+    public ExchangeInfoDto parse(InputStream inputStream) throws XMLStreamException {
+
+        XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(inputStream);
+
+        try {
+            String link = null;
+            LocalDate date = null;
+            List<ExchangeRateDto> exchangeRateDtoList = new ArrayList<>();
+
+            // Only the children of the root element are read here, the items are read by parseItem
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamReader.START_ELEMENT || reader.getLocalName().equals("rates")) {
+                    continue;
+                }
+
+                switch (reader.getLocalName()) {
+                    case "link" -> link = reader.getElementText().trim();
+                    case "date" -> date = LocalDate.parse(reader.getElementText().trim(), DATE_FORMATTER);
+                    case "item" -> {
+                        ExchangeRateDto exchangeRateDto = parseItem(reader);
+                        if (exchangeRateDto != null) {
+                            exchangeRateDtoList.add(exchangeRateDto);
+                        }
+                    }
+                    default -> skipElement(reader);
+                }
+            }
+
+            return link != null && date != null ? new ExchangeInfoDto(link, date, exchangeRateDtoList) : null;
+
+        } finally {
+            reader.close();
+        }
+    }
+
+    // Reading an item up to its end tag, returns null for a currency that is not required
+    private ExchangeRateDto parseItem(XMLStreamReader reader) throws XMLStreamException {
+
+        String fullname = null;
+        String title = null;
+        String description = null;
+
+        while (reader.nextTag() == XMLStreamReader.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "fullname" -> fullname = reader.getElementText().trim();
+                case "title" -> title = reader.getElementText().trim();
+                case "description" -> description = reader.getElementText().trim();
+                default -> skipElement(reader);
+            }
+        }
+
+        if (title == null || description == null || !isRequiredCurrency(title)) {
+            return null;
+        }
+
+        try {
+            return new ExchangeRateDto(fullname, title, Double.parseDouble(description));
+        } catch (NumberFormatException e) {
+            throw new XMLStreamException("Invalid rate of the currency " + title + ": " + description,
+                    reader.getLocation(), e);
+        }
+    }
+
+    private void skipElement(XMLStreamReader reader) throws XMLStreamException {
+
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamReader.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamReader.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    // Selection of required currencies for storing them in the database, the base currency KZT has no rate
+    public static boolean isRequiredCurrency(String title) {
+
+        for (CurrencyType currencyType : CurrencyType.values()) {
+            if (currencyType != CurrencyType.KZT && currencyType.name().equals(title)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Secure processing: DTDs and external entities are not allowed
+    private static XMLInputFactory createXmlInputFactory() {
+
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+        factory.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+
+        return factory;
+    }
+}
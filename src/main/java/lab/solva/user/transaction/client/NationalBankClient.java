@@ -0,0 +1,184 @@
+package lab.solva.user.transaction.client;
+
+import lab.solva.user.transaction.dto.ExchangeInfoDto;
+import lab.solva.user.transaction.metrics.TransactionMetrics;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Client of the exchange rates service of the National Bank: one shared HttpClient (connections are reused),
+// every request is bounded by a timeout, failed requests are retried with an exponential backoff
+// and after repeated failures the service is not requested for a while (circuit breaker);
+// The backfill of past dates has its own circuit breaker, its failures do not stop the refresh of the current rates;
+// The response is parsed while it is being read, without building a string or a DOM of the whole document
+@Component
+@Log4j2
+public class NationalBankClient {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    private final String resourceUrl;
+
+    private final Duration requestTimeout;
+
+    private final int maxAttempts;
+
+    private final long backoffMillis;
+
+    private final HttpClient httpClient;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final CircuitBreaker backfillCircuitBreaker;
+
+    private final ExchangeRateXmlParser exchangeRateXmlParser = new ExchangeRateXmlParser();
+
+    private final TransactionMetrics transactionMetrics;
+
+    public NationalBankClient(
+            @Value("${transaction.exchange-rate.client.url:https://nationalbank.kz/rss/get_rates.cfm}") String resourceUrl,
+            @Value("${transaction.exchange-rate.client.connect-timeout-ms:5000}") long connectTimeoutMillis,
+            @Value("${transaction.exchange-rate.client.request-timeout-ms:10000}") long requestTimeoutMillis,
+            @Value("${transaction.exchange-rate.client.max-attempts:3}") int maxAttempts,
+            @Value("${transaction.exchange-rate.client.backoff-ms:500}") long backoffMillis,
+            @Value("${transaction.exchange-rate.client.circuit-breaker.failure-threshold:3}") int failureThreshold,
+            @Value("${transaction.exchange-rate.client.circuit-breaker.open-duration-ms:300000}") long openDurationMillis,
+            TransactionMetrics transactionMetrics) {
+
+        this.resourceUrl = resourceUrl;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMillis);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, Duration.ofMillis(openDurationMillis),
+                Clock.systemUTC());
+        this.backfillCircuitBreaker = new CircuitBreaker(failureThreshold, Duration.ofMillis(openDurationMillis),
+                Clock.systemUTC());
+        this.transactionMetrics = transactionMetrics;
+    }
+
+    // Returns the exchange rates for the date, or null if they were not received
+    public ExchangeInfoDto fetchRates(LocalDate requestDate) {
+        return fetchRates(requestDate, circuitBreaker);
+    }
+
+    // Returns the exchange rates of a past date for the backfill, or null if they were not received
+    public ExchangeInfoDto fetchBackfillRates(LocalDate requestDate) {
+        return fetchRates(requestDate, backfillCircuitBreaker);
+    }
+
+    private ExchangeInfoDto fetchRates(LocalDate requestDate, CircuitBreaker circuitBreaker) {
+
+        String requestUrl = resourceUrl + "?fdate=" + requestDate.format(DATE_FORMATTER);
+
+        if (!circuitBreaker.tryAcquire()) {
+            transactionMetrics.recordFetchRejected();
+            log.error("!Attention, Exchange Rates were not requested, the external service is unavailable, " +
+                    "resourceUrl={}", requestUrl);
+            return null;
+        }
+
+        HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(requestUrl))
+                .header("Accept", "application/xml")
+                .timeout(requestTimeout)
+                .GET()
+                .build();
+
+        long startTime = System.nanoTime();
+
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                HttpResponse<InputStream> response = httpClient.send(httpRequest,
+                        HttpResponse.BodyHandlers.ofInputStream());
+
+                try (InputStream inputStream = response.body()) {
+                    if (response.statusCode() == 200) {
+                        // The document is read while it is being parsed, the time includes receiving the body
+                        long parseStartTime = System.nanoTime();
+                        ExchangeInfoDto exchangeInfoDto = exchangeRateXmlParser.parse(inputStream);
+                        transactionMetrics.recordParse(System.nanoTime() - parseStartTime);
+
+                        circuitBreaker.recordSuccess();
+                        transactionMetrics.recordFetch(true, System.nanoTime() - startTime);
+
+                        if (exchangeInfoDto == null) {
+                            log.error("!Attention, there is a problem with the XML parser, " +
+                                    "the necessary Tags were not found, resourceUrl={}", requestUrl);
+                        }
+
+                        return exchangeInfoDto;
+                    }
+                }
+
+                log.error("!Attention, Exchange Rates were not received from the external service, " +
+                        "resourceUrl={}, status={}, attempt={}", requestUrl, response.statusCode(), attempt);
+
+                // Client errors are not retried, the request would fail again
+                if (response.statusCode() < 500 && response.statusCode() != 429) {
+                    break;
+                }
+
+            } catch (XMLStreamException | RuntimeException e) {
+                // A broken document would be received again, the request is not retried
+                log.error("!Attention, there is a problem with the XML parser, the XML Structure is broken, " +
+                        "resourceUrl={}, error={}", requestUrl, e.toString());
+                break;
+
+            } catch (IOException e) {
+                log.error("!Attention, Exchange Rates were not received from the external service, " +
+                        "resourceUrl={}, error={}, attempt={}", requestUrl, e.toString(), attempt);
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            if (attempt < maxAttempts && !sleepBeforeRetry(attempt)) {
+                break;
+            }
+        }
+
+        circuitBreaker.recordFailure();
+        transactionMetrics.recordFetch(false, System.nanoTime() - startTime);
+
+        return null;
+    }
+
+    CircuitBreaker.State getCircuitBreakerState() {
+        return circuitBreaker.getState();
+    }
+
+    CircuitBreaker.State getBackfillCircuitBreakerState() {
+        return backfillCircuitBreaker.getState();
+    }
+
+    // Exponential backoff with jitter, returns false if the thread was interrupted
+    private boolean sleepBeforeRetry(int attempt) {
+
+        long delay = backoffMillis << (attempt - 1);
+
+        try {
+            Thread.sleep(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package lab.solva.user.transaction.config;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Handling of requests on virtual threads (Java 21+) instead of the Tomcat thread pool;
+// Requests are not limited by the number of threads anymore, so the number of requests processed
+// at the same time is limited to the size of the connection pool by ConcurrencyLimitFilter
+@Configuration
+@ConditionalOnProperty(value = "transaction.virtual-threads.enabled", havingValue = "true")
+@Log4j2
+public class VirtualThreadConfig implements WebMvcConfigurer {
+
+    // null if the runtime does not support virtual threads, the platform threads remain in use
+    private final ExecutorService virtualThreadExecutor = createVirtualThreadExecutor();
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            if (virtualThreadExecutor != null) {
+                protocolHandler.setExecutor(virtualThreadExecutor);
+
+                log.debug("!Requests are handled on virtual threads");
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            @Value("${transaction.virtual-threads.max-concurrent-requests}") int maxConcurrentRequests,
+            @Value("${transaction.virtual-threads.acquire-timeout-ms}") long acquireTimeoutMillis) {
+
+        FilterRegistrationBean<ConcurrencyLimitFilter> filterRegistrationBean =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(maxConcurrentRequests, acquireTimeoutMillis));
+        filterRegistrationBean.addUrlPatterns("/api/*");
+        filterRegistrationBean.setOrder(Ordered.HIGHEST_PRECEDENCE);
+
+        return filterRegistrationBean;
+    }
+
+    // Streaming responses (StreamingResponseBody) are written on virtual threads as well
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        if (virtualThreadExecutor != null) {
+            configurer.setTaskExecutor(new TaskExecutorAdapter(virtualThreadExecutor));
+        }
+    }
+
+    // The application is compiled for Java 17, so virtual threads are created via reflection
+    private static ExecutorService createVirtualThreadExecutor() {
+
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.error("!Attention, virtual threads are not supported by the Java runtime {}, " +
+                    "requests are handled on the Tomcat thread pool", Runtime.version());
+            return null;
+        }
+    }
+}
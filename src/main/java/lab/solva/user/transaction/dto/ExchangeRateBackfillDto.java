@@ -0,0 +1,29 @@
+package lab.solva.user.transaction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExchangeRateBackfillDto {
+
+    // Number of dates that were requested or found in the imported file
+    public int requested_days;
+
+    public int saved_days;
+
+    // Dates for which the rates are already stored in the database
+    public int skipped_days;
+
+    public int failed_days;
+
+    public List<LocalDate> failed_dates = new ArrayList<>();
+}
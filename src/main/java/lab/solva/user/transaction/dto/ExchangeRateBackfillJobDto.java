@@ -0,0 +1,30 @@
+package lab.solva.user.transaction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExchangeRateBackfillJobDto {
+
+    // Identifier of the job for requesting its status
+    public String job_id;
+
+    public String status;
+
+    public LocalDate from_date;
+
+    public LocalDate to_date;
+
+    // Result of the backfill, present when the job is completed
+    public ExchangeRateBackfillDto result;
+
+    // Reason why the job failed
+    public String message;
+}
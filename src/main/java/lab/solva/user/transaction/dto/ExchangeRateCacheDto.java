@@ -0,0 +1,38 @@
+package lab.solva.user.transaction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExchangeRateCacheDto {
+
+    // Date of the exchange rates in the current snapshot
+    public LocalDate date;
+
+    public long snapshot_age_seconds;
+
+    // Number of dates with exchange rates kept in memory
+    public int history_days;
+
+    public long last_refresh_millis;
+
+    public long refresh_count;
+
+    public long refresh_failure_count;
+
+    // Requests served with the rates of the current date (or of the requested date)
+    public long hit_count;
+
+    // Requests served with the rates of another date
+    public long stale_count;
+
+    // Requests served without exchange rates
+    public long miss_count;
+}
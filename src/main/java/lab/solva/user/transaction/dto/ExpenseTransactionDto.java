@@ -34,4 +34,8 @@ public class ExpenseTransactionDto {
     // Time Zone Supported Format
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ssXXX")
     public ZonedDateTime datetime;
+
+    // Optional idempotency key, a retry of the same transaction must be sent with the same key
+    @Size(max = 64)
+    public String transaction_key;
 }
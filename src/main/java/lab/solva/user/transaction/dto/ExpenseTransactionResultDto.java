@@ -0,0 +1,23 @@
+package lab.solva.user.transaction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExpenseTransactionResultDto {
+
+    // Position of the transaction in the received batch
+    public int index;
+
+    public String status;
+
+    public Boolean limit_exceeded;
+
+    // Reason why the transaction was rejected
+    public String message;
+}
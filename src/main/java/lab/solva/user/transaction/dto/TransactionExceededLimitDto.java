@@ -1,18 +1,27 @@
 package lab.solva.user.transaction.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import javax.validation.constraints.Size;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Date;
 
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
 public class TransactionExceededLimitDto {
 
+    // Id of the transaction, used only as a cursor for pagination
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    public Long id;
+
     @Size(max = 10)
     public String account_from;
 
@@ -37,4 +46,31 @@ public class TransactionExceededLimitDto {
 
     @Size(max = 3)
     public String limit_currency_shortname;
+
+    public TransactionExceededLimitDto(String account_from, String account_to, String currency_shortname,
+                                       double sum, String expense_category, ZonedDateTime datetime,
+                                       double limit_sum, ZonedDateTime limit_datetime,
+                                       String limit_currency_shortname) {
+        this.account_from = account_from;
+        this.account_to = account_to;
+        this.currency_shortname = currency_shortname;
+        this.sum = sum;
+        this.expense_category = expense_category;
+        this.datetime = datetime;
+        this.limit_sum = limit_sum;
+        this.limit_datetime = limit_datetime;
+        this.limit_currency_shortname = limit_currency_shortname;
+    }
+
+    // Constructor for JPQL constructor expressions, the row is mapped directly without an intermediate array;
+    // Hibernate declares timestamp columns as Date, the values are java.sql.Timestamp
+    public TransactionExceededLimitDto(Long id, String account_from, String account_to, String currency_shortname,
+                                       double sum, String expense_category, Date datetime,
+                                       double limit_sum, Date limit_datetime,
+                                       String limit_currency_shortname) {
+        this(account_from, account_to, currency_shortname, sum, expense_category,
+                datetime.toInstant().atZone(ZoneId.systemDefault()), limit_sum,
+                limit_datetime.toInstant().atZone(ZoneId.systemDefault()), limit_currency_shortname);
+        this.id = id;
+    }
 }
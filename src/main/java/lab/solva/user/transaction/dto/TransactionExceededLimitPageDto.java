@@ -0,0 +1,24 @@
+package lab.solva.user.transaction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionExceededLimitPageDto {
+
+    public List<TransactionExceededLimitDto> transactions;
+
+    // Cursor for the next page (date and time and id of the last transaction on the page),
+    // both values are null if there are no more transactions
+    public ZonedDateTime next_datetime;
+
+    public Long next_id;
+}
@@ -0,0 +1,18 @@
+package lab.solva.user.transaction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import javax.validation.constraints.Size;
+import java.math.BigDecimal;
+
+@Getter
+@AllArgsConstructor
+public class TransactionSumDto {
+
+    @Size(max = 3)
+    private String currencyCode;
+
+    // Exact sum of the amounts, each amount is rounded to minor units in the database
+    private BigDecimal transactionSum;
+}
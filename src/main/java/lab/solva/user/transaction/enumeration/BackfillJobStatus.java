@@ -0,0 +1,5 @@
+package lab.solva.user.transaction.enumeration;
+
+public enum BackfillJobStatus {
+    PENDING, RUNNING, COMPLETED, FAILED // State of a backfill of exchange rates performed in the background
+}
@@ -1,5 +1,33 @@
 package lab.solva.user.transaction.enumeration;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
 public enum CurrencyType {
-    KZT, USD, EUR, RUB // Add other types of currencies (if necessary)
+    KZT(2), USD(2), EUR(2), RUB(2); // Add other types of currencies (if necessary)
+
+    // Number of decimal digits of the minor unit (tiyn, cent, kopeck)
+    private final int minorUnitDigits;
+
+    CurrencyType(int minorUnitDigits) {
+        this.minorUnitDigits = minorUnitDigits;
+    }
+
+    public int getMinorUnitDigits() {
+        return minorUnitDigits;
+    }
+
+    // Converting an amount into minor units, a value received as double is taken as its shortest decimal
+    // representation (1.005 is 1.005, not 1.00499...) and rounded HALF_UP, the same as a decimal amount
+    public long toMinorUnits(double amount) {
+        return toMinorUnits(BigDecimal.valueOf(amount));
+    }
+
+    public long toMinorUnits(BigDecimal amount) {
+        return amount.setScale(minorUnitDigits, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public BigDecimal fromMinorUnits(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, minorUnitDigits);
+    }
 }
@@ -0,0 +1,5 @@
+package lab.solva.user.transaction.enumeration;
+
+public enum ProcessingStatus {
+    SAVED, REJECTED, DUPLICATE, IN_PROGRESS // Result of processing a transaction received in a batch
+}
@@ -0,0 +1,106 @@
+package lab.solva.user.transaction.journal;
+
+import lab.solva.user.transaction.model.AmountLimitEntity;
+import lab.solva.user.transaction.model.ExpenseTransactionEntity;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+
+// An evaluated expense transaction as it is stored in the journal; The sequence is assigned by the journal,
+// amountLimitId is 0 if the transaction has no limit, transactionKey is null if the transaction has no key
+public record JournalRecord(long sequence, String accountClient, String accountCounterparty, String currencyCode,
+                            double transactionSum, String expenseCategory, long transactionEpochMillis,
+                            boolean limitExceeded, long amountLimitId, String transactionKey) {
+
+    public static JournalRecord of(ExpenseTransactionEntity expenseTransactionEntity) {
+
+        AmountLimitEntity amountLimitEntity = expenseTransactionEntity.getAmountLimitEntity();
+
+        return new JournalRecord(0L, expenseTransactionEntity.getAccountClient(),
+                expenseTransactionEntity.getAccountCounterparty(), expenseTransactionEntity.getCurrencyCode(),
+                expenseTransactionEntity.getTransactionSum(), expenseTransactionEntity.getExpenseCategory(),
+                expenseTransactionEntity.getTransactionDateTime().getTime(), expenseTransactionEntity.isLimitExceeded(),
+                amountLimitEntity != null && amountLimitEntity.getId() != null ? amountLimitEntity.getId() : 0L,
+                expenseTransactionEntity.getTransactionKey());
+    }
+
+    public JournalRecord withSequence(long sequence) {
+        return new JournalRecord(sequence, accountClient, accountCounterparty, currencyCode, transactionSum,
+                expenseCategory, transactionEpochMillis, limitExceeded, amountLimitId, transactionKey);
+    }
+
+    // The reference to the limit is set by the caller (amountLimitId)
+    public ExpenseTransactionEntity toExpenseTransactionEntity() {
+
+        ExpenseTransactionEntity expenseTransactionEntity = new ExpenseTransactionEntity();
+
+        expenseTransactionEntity.setAccountClient(accountClient);
+        expenseTransactionEntity.setAccountCounterparty(accountCounterparty);
+        expenseTransactionEntity.setCurrencyCode(currencyCode);
+        expenseTransactionEntity.setTransactionSum(transactionSum);
+        expenseTransactionEntity.setExpenseCategory(expenseCategory);
+        expenseTransactionEntity.setTransactionDateTime(new Timestamp(transactionEpochMillis));
+        expenseTransactionEntity.setLimitExceeded(limitExceeded);
+        expenseTransactionEntity.setTransactionKey(transactionKey);
+
+        return expenseTransactionEntity;
+    }
+
+    // Fields without the sequence, strings are written as a length (short) and UTF-8 bytes;
+    // The key is written last, an empty key is read as null
+    byte[] encodePayload() {
+
+        byte[][] strings = {bytes(accountClient), bytes(accountCounterparty), bytes(currencyCode),
+                bytes(expenseCategory)};
+
+        byte[] key = bytes(transactionKey);
+
+        int size = Double.BYTES + Long.BYTES + 1 + Long.BYTES + Short.BYTES + key.length;
+        for (byte[] string : strings) {
+            size += Short.BYTES + string.length;
+        }
+
+        ByteBuffer byteBuffer = ByteBuffer.allocate(size);
+        for (byte[] string : strings) {
+            byteBuffer.putShort((short) string.length).put(string);
+        }
+        byteBuffer.putDouble(transactionSum)
+                .putLong(transactionEpochMillis)
+                .put((byte) (limitExceeded ? 1 : 0))
+                .putLong(amountLimitId)
+                .putShort((short) key.length).put(key);
+
+        return byteBuffer.array();
+    }
+
+    static JournalRecord decode(long sequence, ByteBuffer payload) {
+
+        String accountClient = string(payload);
+        String accountCounterparty = string(payload);
+        String currencyCode = string(payload);
+        String expenseCategory = string(payload);
+
+        double transactionSum = payload.getDouble();
+        long transactionEpochMillis = payload.getLong();
+        boolean limitExceeded = payload.get() == 1;
+        long amountLimitId = payload.getLong();
+        String transactionKey = string(payload);
+
+        return new JournalRecord(sequence, accountClient, accountCounterparty, currencyCode, transactionSum,
+                expenseCategory, transactionEpochMillis, limitExceeded, amountLimitId,
+                transactionKey.isEmpty() ? null : transactionKey);
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer payload) {
+
+        byte[] bytes = new byte[payload.getShort()];
+        payload.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
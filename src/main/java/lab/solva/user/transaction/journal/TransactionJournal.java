@@ -0,0 +1,451 @@
+package lab.solva.user.transaction.journal;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Append-only journal of evaluated transactions in memory-mapped segment files of a fixed size;
+// An append returns after the record has been forced to disk, the records written during one flush interval
+// are forced together (group commit), so that the cost of fsync is shared by concurrent requests.
+//
+// Record: payload length (int), CRC32C of the sequence and the payload (int), sequence (long), payload;
+// A zero length marks the end of the written part of a segment, a record with a wrong checksum
+// (not completely written before a crash, never acknowledged) ends the recovery of the segment.
+@Log4j2
+public class TransactionJournal implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES;
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final long flushIntervalMillis;
+
+    // Segments by the sequence of their first record; Guarded by appendLock
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition durableCondition = durableLock.newCondition();
+
+    // Guarded by appendLock
+    private Segment currentSegment;
+    private long lastSequence;
+
+    // Appended records not yet taken by pollDurable, in the order of their sequence; Guarded by appendLock
+    private final ArrayDeque<JournalRecord> undrainedRecords = new ArrayDeque<>();
+
+    // The last sequence forced to disk, written under durableLock
+    private volatile long durableSequence;
+
+    private volatile boolean closed;
+
+    private Thread flusherThread;
+
+    public TransactionJournal(Path directory, int segmentSize, long flushIntervalMillis) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.flushIntervalMillis = Math.max(1L, flushIntervalMillis);
+    }
+
+    // Reading all records of the existing segments and starting a new segment for the appends;
+    // Returns the recovered records in the order of their sequence
+    public List<JournalRecord> open() {
+        return open(0L);
+    }
+
+    // The sequences of the appends continue after the recovered records, the deleted segments
+    // and lastWrittenSequence (the checkpoint of the records written to the database), so that a record
+    // is never appended with the sequence of a record that has already been written
+    public List<JournalRecord> open(long lastWrittenSequence) {
+
+        List<JournalRecord> journalRecords = new ArrayList<>();
+
+        try {
+            Files.createDirectories(directory);
+
+            List<Path> segmentFiles;
+            try (Stream<Path> files = Files.list(directory)) {
+                segmentFiles = files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX) &&
+                        file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+            }
+
+            for (Path segmentFile : segmentFiles) {
+                long firstSequence = parseFirstSequence(segmentFile);
+
+                // The records before the first one of a segment were appended, their segments may have been deleted
+                lastSequence = Math.max(lastSequence, firstSequence - 1);
+
+                long segmentLastSequence = recoverSegment(segmentFile, firstSequence, journalRecords);
+
+                // A segment without records (created just before a stop) is not needed
+                if (segmentLastSequence < firstSequence) {
+                    Files.delete(segmentFile);
+                    continue;
+                }
+
+                segments.put(firstSequence, new Segment(segmentFile, null, segmentLastSequence));
+                lastSequence = Math.max(lastSequence, segmentLastSequence);
+            }
+
+            lastSequence = Math.max(lastSequence, lastWrittenSequence);
+
+            // Records are never appended to a recovered segment, its tail may be damaged
+            currentSegment = createSegment(lastSequence + 1);
+            durableSequence = lastSequence;
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal cannot be opened, directory=" + directory, e);
+        }
+
+        flusherThread = new Thread(this::runFlusher, "transaction-journal-flusher");
+        flusherThread.setDaemon(true);
+        flusherThread.start();
+
+        log.debug("!Transaction Journal opened, directory={}, segments={}, records={}, lastSequence={}",
+                directory, segments.size(), journalRecords.size(), lastSequence);
+
+        return journalRecords;
+    }
+
+    // Appending the record and waiting until it has been forced to disk, returns the record with its sequence
+    public JournalRecord append(JournalRecord journalRecord) throws InterruptedException {
+
+        byte[] payload = journalRecord.encodePayload();
+        if (RECORD_HEADER_SIZE + payload.length + Integer.BYTES > segmentSize) {
+            throw new IllegalArgumentException("Journal record does not fit into a segment, size=" + payload.length);
+        }
+
+        JournalRecord sequencedRecord;
+
+        appendLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+
+            // The record and the zero length marking the end must fit into the segment
+            if (currentSegment.buffer.remaining() < RECORD_HEADER_SIZE + payload.length + Integer.BYTES) {
+                rotateSegment();
+            }
+
+            long sequence = ++lastSequence;
+            sequencedRecord = journalRecord.withSequence(sequence);
+
+            MappedByteBuffer buffer = currentSegment.buffer;
+            int position = buffer.position();
+
+            // The length is written last, a reader never sees a record with a length but without the contents
+            buffer.position(position + Integer.BYTES);
+            buffer.putInt(checksum(sequence, payload)).putLong(sequence).put(payload);
+            buffer.putInt(position, payload.length);
+
+            currentSegment.lastSequence = sequence;
+            undrainedRecords.addLast(sequencedRecord);
+
+        } finally {
+            appendLock.unlock();
+        }
+
+        awaitDurable(sequencedRecord.sequence());
+
+        return sequencedRecord;
+    }
+
+    // Taking up to maxRecords appended records that have been forced to disk, in the order of their sequence;
+    // Waits up to the timeout if there are no such records, records recovered by open() are not returned
+    public List<JournalRecord> pollDurable(int maxRecords, long timeoutMillis) throws InterruptedException {
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        while (true) {
+            long observedDurableSequence = durableSequence;
+
+            List<JournalRecord> journalRecords = new ArrayList<>();
+
+            appendLock.lock();
+            try {
+                while (journalRecords.size() < maxRecords && !undrainedRecords.isEmpty() &&
+                        undrainedRecords.peekFirst().sequence() <= observedDurableSequence) {
+                    journalRecords.add(undrainedRecords.pollFirst());
+                }
+            } finally {
+                appendLock.unlock();
+            }
+
+            if (!journalRecords.isEmpty()) {
+                return journalRecords;
+            }
+
+            durableLock.lock();
+            try {
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0L) {
+                    return journalRecords;
+                }
+
+                // Records forced after the check above are taken without waiting
+                if (durableSequence == observedDurableSequence) {
+                    durableCondition.awaitNanos(remainingNanos);
+                }
+            } finally {
+                durableLock.unlock();
+            }
+        }
+    }
+
+    public int getUndrainedCount() {
+
+        appendLock.lock();
+        try {
+            return undrainedRecords.size();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Deleting the segments whose records have all been written to the database, the current segment is kept
+    public void deleteSegmentsUpTo(long sequence) {
+
+        appendLock.lock();
+        try {
+            Iterator<Segment> iterator = segments.values().iterator();
+            while (iterator.hasNext()) {
+                Segment segment = iterator.next();
+                if (segment == currentSegment || segment.lastSequence > sequence) {
+                    break;
+                }
+
+                Files.deleteIfExists(segment.path);
+                iterator.remove();
+
+                log.debug("!Transaction Journal segment deleted, segment={}", segment.path.getFileName());
+            }
+
+        } catch (IOException e) {
+            log.error("!Attention, Transaction Journal segment was not deleted, directory={}, error={}",
+                    directory, e.toString());
+
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public int getSegmentCount() {
+
+        appendLock.lock();
+        try {
+            return segments.size();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Forcing the appended records to disk and stopping the flusher, waiting appends are released
+    @Override
+    public void close() {
+
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            appendLock.unlock();
+        }
+
+        if (flusherThread != null) {
+            flusherThread.interrupt();
+            try {
+                flusherThread.join(flushIntervalMillis * 10 + 1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        flush();
+
+        log.debug("!Transaction Journal closed, directory={}, lastSequence={}", directory, lastSequence);
+    }
+
+    private void awaitDurable(long sequence) throws InterruptedException {
+
+        durableLock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (closed && !flusherThread.isAlive()) {
+                    throw new IllegalStateException("Journal is closed");
+                }
+                durableCondition.await();
+            }
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    private void runFlusher() {
+
+        while (!closed) {
+            try {
+                Thread.sleep(flushIntervalMillis);
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            flush();
+        }
+    }
+
+    // One fsync for all records appended since the previous flush
+    private void flush() {
+
+        Segment segment;
+        long sequence;
+
+        appendLock.lock();
+        try {
+            segment = currentSegment;
+            sequence = lastSequence;
+        } finally {
+            appendLock.unlock();
+        }
+
+        durableLock.lock();
+        try {
+            if (sequence <= durableSequence) {
+                return;
+            }
+        } finally {
+            durableLock.unlock();
+        }
+
+        // Forcing does not block appends, the records appended meanwhile are forced by the next flush
+        if (segment != null) {
+            segment.buffer.force();
+        }
+
+        durableLock.lock();
+        try {
+            durableSequence = Math.max(durableSequence, sequence);
+            durableCondition.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    // Forcing the full segment before the appends continue in a new one; Called under appendLock
+    private void rotateSegment() {
+
+        currentSegment.buffer.force();
+        currentSegment = createSegment(lastSequence + 1);
+
+        log.debug("!Transaction Journal segment rotated, firstSequence={}", lastSequence + 1);
+    }
+
+    private Segment createSegment(long firstSequence) {
+
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+            // The mapping remains valid after the channel is closed
+            MappedByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+
+            Segment segment = new Segment(path, buffer, firstSequence - 1);
+            segments.put(firstSequence, segment);
+
+            return segment;
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal segment cannot be created, segment=" + path, e);
+        }
+    }
+
+    // Reading the valid records of a segment, returns the sequence of the last valid record
+    private static long recoverSegment(Path segmentFile, long firstSequence, List<JournalRecord> journalRecords)
+            throws IOException {
+
+        long segmentLastSequence = firstSequence - 1;
+
+        try (FileChannel fileChannel = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+            ByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+
+            while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+                int position = buffer.position();
+                int length = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining() - Integer.BYTES - Long.BYTES) {
+                    break;
+                }
+
+                int checksum = buffer.getInt();
+                long sequence = buffer.getLong();
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+
+                if (checksum != checksum(sequence, payload) || sequence != segmentLastSequence + 1) {
+                    log.error("!Attention, Transaction Journal record is damaged, the rest of the segment is " +
+                            "skipped, segment={}, position={}", segmentFile.getFileName(), position);
+                    break;
+                }
+
+                journalRecords.add(JournalRecord.decode(sequence, ByteBuffer.wrap(payload)));
+                segmentLastSequence = sequence;
+            }
+        }
+
+        return segmentLastSequence;
+    }
+
+    private static long parseFirstSequence(Path segmentFile) {
+
+        String fileName = segmentFile.getFileName().toString();
+
+        return Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static int checksum(long sequence, byte[] payload) {
+
+        CRC32C crc32c = new CRC32C();
+        crc32c.update(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence));
+        crc32c.update(payload);
+
+        return (int) crc32c.getValue();
+    }
+
+    private static final class Segment {
+
+        private final Path path;
+
+        // null for a recovered segment, records are not appended to it
+        private final MappedByteBuffer buffer;
+
+        private volatile long lastSequence;
+
+        private Segment(Path path, MappedByteBuffer buffer, long lastSequence) {
+            this.path = path;
+            this.buffer = buffer;
+            this.lastSequence = lastSequence;
+        }
+    }
+}
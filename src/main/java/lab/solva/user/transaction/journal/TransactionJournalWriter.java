@@ -0,0 +1,362 @@
+package lab.solva.user.transaction.journal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lab.solva.user.transaction.model.ExpenseTransactionEntity;
+import lab.solva.user.transaction.model.JournalCheckpointEntity;
+import lab.solva.user.transaction.model.JournalDeadLetterEntity;
+import lab.solva.user.transaction.repository.AmountLimitRepository;
+import lab.solva.user.transaction.repository.ExpenseTransactionRepository;
+import lab.solva.user.transaction.repository.JournalCheckpointRepository;
+import lab.solva.user.transaction.repository.JournalDeadLetterRepository;
+import lab.solva.user.transaction.repository.MonthlySpendRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.validation.ConstraintViolationException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Write-behind of expense transactions: a saved transaction is acknowledged after it has been appended
+// to the local journal and forced to disk, a background thread writes the journal to the database
+// with batched inserts; Records of the journal not yet in the database are written at startup,
+// before requests are accepted (the checkpoint is updated in the same database transaction as the records);
+// A record rejected by the database is moved to the dead letters, so that it does not block the following records
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class TransactionJournalWriter {
+
+    private static final String JOURNAL_NAME = "expense-transaction";
+
+    // Delay before a batch that failed with a transient error (the database is not available) is written again,
+    // the records remain in the journal meanwhile
+    private static final long RETRY_DELAY_MILLIS = 1000L;
+
+    private static final long POLL_TIMEOUT_MILLIS = 100L;
+
+    private final ExpenseTransactionRepository expenseTransactionRepository;
+    private final AmountLimitRepository amountLimitRepository;
+    private final MonthlySpendRepository monthlySpendRepository;
+    private final JournalCheckpointRepository journalCheckpointRepository;
+    private final JournalDeadLetterRepository journalDeadLetterRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // When disabled, transactions are saved to the database on the request thread
+    @Value("${transaction.journal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${transaction.journal.directory:journal}")
+    private String directory;
+
+    @Value("${transaction.journal.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${transaction.journal.flush-interval-ms:2}")
+    private long flushIntervalMillis;
+
+    @Value("${transaction.journal.batch-size:50}")
+    private int batchSize;
+
+    @Value("${transaction.spend-cache.enabled:false}")
+    private boolean spendCacheEnabled;
+
+    private TransactionJournal transactionJournal;
+
+    private Counter deadLetterCounter;
+
+    private Counter writeFailureCounter;
+
+    // The sequence of the last record written to the database or moved to the dead letters (the checkpoint);
+    // Used by the thread of replay() and then by the writer thread
+    private long writtenSequence;
+
+    private Thread writerThread;
+
+    private volatile boolean stopping;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+
+        if (!enabled) {
+            return;
+        }
+
+        // The limits are evaluated before the transactions of the journal are written to the database,
+        // the totals read from the database would not include them; The running totals in memory include them
+        // (a single instance of the application)
+        if (!spendCacheEnabled) {
+            throw new IllegalStateException("transaction.journal.enabled requires transaction.spend-cache.enabled, " +
+                    "the totals of the month in the database do not include the transactions of the journal");
+        }
+
+        deadLetterCounter = Counter.builder("transaction.journal.dead.letters")
+                .description("Records of the journal rejected by the database and moved to the dead letters")
+                .register(meterRegistry);
+        writeFailureCounter = Counter.builder("transaction.journal.write.failures")
+                .description("Records of the journal not written to the database because of an error " +
+                        "that is not a constraint violation, the records are written again")
+                .register(meterRegistry);
+
+        transactionJournal = new TransactionJournal(Path.of(directory), segmentSizeMb * 1024 * 1024,
+                flushIntervalMillis);
+
+        replay(transactionJournal.open(findCheckpoint()));
+
+        Gauge.builder("transaction.journal.pending", transactionJournal, TransactionJournal::getUndrainedCount)
+                .description("Transactions appended to the journal and not yet written to the database")
+                .register(meterRegistry);
+
+        writerThread = new Thread(this::runWriter, "transaction-journal-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    // Appending the evaluated transaction to the journal, returns the sequence of the record
+    // after it has been forced to disk; The transaction is written to the database later
+    public long append(ExpenseTransactionEntity expenseTransactionEntity) {
+
+        try {
+            return transactionJournal.append(JournalRecord.of(expenseTransactionEntity)).sequence();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Transaction was not appended to the journal, the thread was interrupted", e);
+        }
+    }
+
+    // Stopping the appends and writing the remaining records, records not written remain in the journal
+    @PreDestroy
+    public void stop() {
+
+        if (transactionJournal == null) {
+            return;
+        }
+
+        transactionJournal.close();
+        stopping = true;
+
+        try {
+            writerThread.join(30_000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        log.debug("!Transaction Journal writer stopped, pending={}", transactionJournal.getUndrainedCount());
+    }
+
+    // Writing the recovered records after the checkpoint, the records before it are already in the database
+    void replay(List<JournalRecord> journalRecords) {
+
+        long checkpoint = findCheckpoint();
+
+        List<JournalRecord> pendingRecords = new ArrayList<>();
+        for (JournalRecord journalRecord : journalRecords) {
+            if (journalRecord.sequence() > checkpoint) {
+                pendingRecords.add(journalRecord);
+            }
+        }
+
+        writtenSequence = Math.max(writtenSequence, checkpoint);
+
+        for (int from = 0; from < pendingRecords.size(); from += batchSize) {
+            if (!writeRecords(pendingRecords.subList(from, Math.min(from + batchSize, pendingRecords.size())))) {
+                throw new IllegalStateException("Transactions of the Journal were not written to the Database");
+            }
+        }
+
+        if (!journalRecords.isEmpty()) {
+            transactionJournal.deleteSegmentsUpTo(journalRecords.get(journalRecords.size() - 1).sequence());
+        }
+
+        log.debug("!Transaction Journal replayed, records={}, written={}, checkpoint={}",
+                journalRecords.size(), pendingRecords.size(), checkpoint);
+    }
+
+    private long findCheckpoint() {
+        return journalCheckpointRepository.findById(JOURNAL_NAME)
+                .map(JournalCheckpointEntity::getLastSequence)
+                .orElse(0L);
+    }
+
+    private void runWriter() {
+
+        while (true) {
+            List<JournalRecord> journalRecords;
+            try {
+                journalRecords = transactionJournal.pollDurable(batchSize, POLL_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            if (journalRecords.isEmpty()) {
+                if (stopping) {
+                    break;
+                }
+                continue;
+            }
+
+            // The batch is written again until it succeeds, the order of the records is kept
+            while (!writeRecords(journalRecords)) {
+                if (stopping) {
+                    return;
+                }
+                try {
+                    Thread.sleep(RETRY_DELAY_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+
+            transactionJournal.deleteSegmentsUpTo(journalRecords.get(journalRecords.size() - 1).sequence());
+        }
+    }
+
+    // Writing the records not yet written in one batch; If the batch fails, the records are written one at a time
+    // and a record rejected by the database is moved to the dead letters; Returns false on a transient error,
+    // the records from the failed one on are written again
+    private boolean writeRecords(List<JournalRecord> journalRecords) {
+
+        List<JournalRecord> pendingRecords = new ArrayList<>(journalRecords.size());
+        for (JournalRecord journalRecord : journalRecords) {
+            if (journalRecord.sequence() > writtenSequence) {
+                pendingRecords.add(journalRecord);
+            }
+        }
+
+        if (pendingRecords.isEmpty()) {
+            return true;
+        }
+
+        try {
+            writeBatch(pendingRecords);
+            return true;
+
+        } catch (RuntimeException e) {
+            log.error("!Attention, Transactions of the Journal were not written to the Database, " +
+                    "the records will be written one at a time, firstSequence={}, error={}",
+                    pendingRecords.get(0).sequence(), e.toString());
+        }
+
+        for (JournalRecord journalRecord : pendingRecords) {
+            try {
+                writeBatch(List.of(journalRecord));
+
+            } catch (RuntimeException e) {
+                if (!isRejectedRecord(e)) {
+                    writeFailureCounter.increment();
+                    log.error("!Attention, Transaction of the Journal was not written to the Database, " +
+                            "the record will be written again, sequence={}", journalRecord.sequence(), e);
+                    return false;
+                }
+
+                try {
+                    writeDeadLetter(journalRecord, e);
+                } catch (RuntimeException deadLetterException) {
+                    log.error("!Attention, Transaction of the Journal was not moved to the dead letters, " +
+                            "the record will be written again, sequence={}, error={}",
+                            journalRecord.sequence(), deadLetterException.toString());
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    // A record violating a constraint of the database or of the entity is rejected every time it is written;
+    // Any other error (of the database, or a defect of the writer) is not a property of the record, the record
+    // is written again and the failure is counted, so that a defect does not move acknowledged transactions
+    // out of the ledger
+    private static boolean isRejectedRecord(RuntimeException e) {
+
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataIntegrityViolationException || cause instanceof ConstraintViolationException) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // The record and the error are saved together with the checkpoint, the record is not written again
+    private void writeDeadLetter(JournalRecord journalRecord, RuntimeException e) {
+
+        transactionTemplate.executeWithoutResult(status -> {
+            journalDeadLetterRepository.save(new JournalDeadLetterEntity(journalRecord.sequence(), JOURNAL_NAME,
+                    journalRecord.toString(), e.toString(), new Timestamp(System.currentTimeMillis())));
+            journalCheckpointRepository.save(new JournalCheckpointEntity(JOURNAL_NAME, journalRecord.sequence()));
+        });
+
+        writtenSequence = journalRecord.sequence();
+        deadLetterCounter.increment();
+
+        log.error("!Attention, Transaction of the Journal was rejected by the Database and moved to the dead " +
+                "letters, sequence={}, accountClient={}, error={}",
+                journalRecord.sequence(), journalRecord.accountClient(), e.toString());
+    }
+
+    // The records, the totals of the month and the checkpoint are saved in one database transaction;
+    // A record with the key of a saved transaction is skipped, the unique index would reject the whole batch
+    private void writeBatch(List<JournalRecord> journalRecords) {
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<String> savedKeys = findSavedTransactionKeys(journalRecords);
+
+            List<ExpenseTransactionEntity> expenseTransactionEntityList = new ArrayList<>(journalRecords.size());
+            for (JournalRecord journalRecord : journalRecords) {
+                if (journalRecord.transactionKey() != null && !savedKeys.add(journalRecord.transactionKey())) {
+                    log.debug("!Transaction of the Journal has already been saved, sequence={}, transactionKey={}",
+                            journalRecord.sequence(), journalRecord.transactionKey());
+                    continue;
+                }
+
+                ExpenseTransactionEntity expenseTransactionEntity = journalRecord.toExpenseTransactionEntity();
+                if (journalRecord.amountLimitId() != 0L) {
+                    expenseTransactionEntity.setAmountLimitEntity(
+                            amountLimitRepository.getReferenceById(journalRecord.amountLimitId()));
+                }
+                expenseTransactionEntityList.add(expenseTransactionEntity);
+            }
+
+            expenseTransactionRepository.saveAll(expenseTransactionEntityList);
+            monthlySpendRepository.addTransactions(expenseTransactionEntityList);
+            journalCheckpointRepository.save(new JournalCheckpointEntity(JOURNAL_NAME,
+                    journalRecords.get(journalRecords.size() - 1).sequence()));
+        });
+
+        writtenSequence = journalRecords.get(journalRecords.size() - 1).sequence();
+
+        log.debug("!Transactions of the Journal written to the Database, records={}, lastSequence={}",
+                journalRecords.size(), journalRecords.get(journalRecords.size() - 1).sequence());
+    }
+
+    private Set<String> findSavedTransactionKeys(List<JournalRecord> journalRecords) {
+
+        List<String> transactionKeys = new ArrayList<>();
+        for (JournalRecord journalRecord : journalRecords) {
+            if (journalRecord.transactionKey() != null) {
+                transactionKeys.add(journalRecord.transactionKey());
+            }
+        }
+
+        return transactionKeys.isEmpty() ? new HashSet<>() :
+                new HashSet<>(expenseTransactionRepository.findExistingTransactionKeys(transactionKeys));
+    }
+}
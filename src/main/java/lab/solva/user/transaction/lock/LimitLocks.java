@@ -0,0 +1,128 @@
+package lab.solva.user.transaction.lock;
+
+import lab.solva.user.transaction.repository.AmountLimitRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Serialization of the limit evaluations of one account and expense category: the limit and the totals are read,
+// the transaction is evaluated and saved, and the totals are updated under one lock, so that concurrent
+// transactions of the same account see each other; Unrelated accounts use different locks of the stripes.
+//
+// Within the application the locks are striped ReentrantLocks (they do not pin virtual threads);
+// Several instances of the application are serialized with transaction-level advisory locks of PostgreSQL,
+// acquired within the database transaction in which the transaction is saved; The totals of the month must then
+// be read from the database under the lock, the running totals in memory of one instance would not include
+// the transactions of the others, so the advisory locks and the spend cache are not enabled together
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class LimitLocks {
+
+    private final AmountLimitRepository amountLimitRepository;
+
+    // Rounded up to a power of two
+    @Value("${transaction.limit-lock.stripes:1024}")
+    private int stripes;
+
+    // Requires PostgreSQL, disabled for other databases (H2 in tests)
+    @Value("${transaction.limit-lock.advisory:true}")
+    private boolean advisoryLockEnabled;
+
+    @Value("${transaction.spend-cache.enabled:false}")
+    private boolean spendCacheEnabled;
+
+    private ReentrantLock[] locks;
+
+    public record Key(String accountClient, String expenseCategory) {
+
+        // The category is validated ignoring case, its variants share a lock
+        public Key {
+            expenseCategory = expenseCategory == null ? null : expenseCategory.toUpperCase(Locale.ROOT);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+
+        if (advisoryLockEnabled && spendCacheEnabled) {
+            throw new IllegalStateException("transaction.limit-lock.advisory (several instances of the application) " +
+                    "and transaction.spend-cache.enabled (a single instance) must not be enabled together");
+        }
+
+        int stripeCount = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        locks = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            locks[i] = new ReentrantLock();
+        }
+
+        log.debug("!Limit locks created, stripes={}, advisoryLockEnabled={}", stripeCount, advisoryLockEnabled);
+    }
+
+    // Acquiring the lock of the account and category, returns the lock to be unlocked by the caller
+    public ReentrantLock lock(Key key) {
+
+        ReentrantLock lock = locks[getStripe(key)];
+        lock.lock();
+
+        return lock;
+    }
+
+    // Acquiring the locks of several keys, each stripe once and in the order of the stripes,
+    // so that two batches with the same keys do not wait for each other
+    public List<ReentrantLock> lockAll(Collection<Key> keys) {
+
+        SortedSet<Integer> stripeIndexes = new TreeSet<>();
+        for (Key key : keys) {
+            stripeIndexes.add(getStripe(key));
+        }
+
+        List<ReentrantLock> acquiredLocks = new ArrayList<>(stripeIndexes.size());
+        for (int stripeIndex : stripeIndexes) {
+            locks[stripeIndex].lock();
+            acquiredLocks.add(locks[stripeIndex]);
+        }
+
+        return acquiredLocks;
+    }
+
+    public void unlockAll(List<ReentrantLock> acquiredLocks) {
+
+        for (int i = acquiredLocks.size() - 1; i >= 0; i--) {
+            acquiredLocks.get(i).unlock();
+        }
+    }
+
+    // Acquiring the advisory locks of the keys in a fixed order, must be called within a database transaction,
+    // the locks are released when it ends
+    public void acquireAdvisoryLocks(Collection<Key> keys) {
+
+        if (!advisoryLockEnabled) {
+            return;
+        }
+
+        // String.hashCode() is the same in all instances of the application
+        SortedSet<Long> advisoryKeys = new TreeSet<>();
+        for (Key key : keys) {
+            advisoryKeys.add(((long) key.accountClient().hashCode() << 32) |
+                    (key.expenseCategory().hashCode() & 0xffffffffL));
+        }
+
+        for (long advisoryKey : advisoryKeys) {
+            amountLimitRepository.acquireAdvisoryLock((int) (advisoryKey >> 32), (int) advisoryKey);
+        }
+    }
+
+    private int getStripe(Key key) {
+
+        int hash = 31 * Objects.hashCode(key.accountClient()) + Objects.hashCode(key.expenseCategory());
+
+        // Spreading the higher bits, the stripe is taken from the lower bits
+        return (hash ^ (hash >>> 16)) & (locks.length - 1);
+    }
+}
@@ -0,0 +1,63 @@
+package lab.solva.user.transaction.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Records the number of SQL statements executed for each API request, by the method and the URI pattern
+// (a count growing with the size of the response points to N+1 queries);
+// The statements are counted on the request thread, asynchronous requests (StreamingResponseBody of the /stream
+// endpoints) execute their statements on another thread and are not recorded
+@Component
+@RequiredArgsConstructor
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    // Summaries by the URI pattern and the method, each one is registered once
+    private final ConcurrentMap<String, ConcurrentMap<String, DistributionSummary>> querySummaries =
+            new ConcurrentHashMap<>();
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        QueryCountInspector.reset();
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!request.isAsyncStarted()) {
+                Object uriPattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+                getQuerySummary(request.getMethod(), uriPattern != null ? uriPattern.toString() : "UNKNOWN")
+                        .record(QueryCountInspector.getQueryCount());
+            }
+        }
+    }
+
+    private DistributionSummary getQuerySummary(String method, String uri) {
+        return querySummaries.computeIfAbsent(uri, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(method, key -> DistributionSummary.builder("http.server.requests.queries")
+                        .description("SQL statements executed for a request")
+                        .tag("method", method)
+                        .tag("uri", uri)
+                        .register(meterRegistry));
+    }
+}
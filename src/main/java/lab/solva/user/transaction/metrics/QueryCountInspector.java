@@ -0,0 +1,29 @@
+package lab.solva.user.transaction.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Counts the SQL statements prepared by Hibernate on the current thread, the counter is read by QueryCountFilter;
+// Registered in application.yml (hibernate.session_factory.statement_inspector), Hibernate creates the instance
+public class QueryCountInspector implements StatementInspector {
+
+    // StatementInspector is Serializable, the counters are static and are not serialized
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<int[]> QUERY_COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+
+        QUERY_COUNT.get()[0]++;
+
+        return sql;
+    }
+
+    public static void reset() {
+        QUERY_COUNT.get()[0] = 0;
+    }
+
+    public static int getQueryCount() {
+        return QUERY_COUNT.get()[0];
+    }
+}
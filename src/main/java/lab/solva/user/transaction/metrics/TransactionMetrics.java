@@ -0,0 +1,171 @@
+package lab.solva.user.transaction.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lab.solva.user.transaction.enumeration.ExpenseCategory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Meters of the hot paths: all meters are registered once, recording does not look up the registry;
+// Percentile histograms are enabled in application.yml (management.metrics.distribution)
+@Component
+public class TransactionMetrics {
+
+    private static final ExpenseCategory[] EXPENSE_CATEGORIES = ExpenseCategory.values();
+
+    // One of this number of limit evaluations is timed, reading the clock twice costs more than the evaluation
+    private static final int LIMIT_EVALUATION_SAMPLE_RATE = 64;
+
+    private final Timer saveTimer;
+    private final Timer batchSaveTimer;
+    private final Timer limitEvaluationTimer;
+
+    // Limit decisions by ExpenseCategory.ordinal(), [0] - within the limit, [1] - limit exceeded
+    private final Counter[][] limitDecisionCounters;
+
+    // Counters of the category by the received value of the category (in any case), a lookup by the cached hash
+    // of the string is cheaper than a comparison ignoring case
+    private final ConcurrentMap<String, Counter[]> limitDecisionCountersByValue = new ConcurrentHashMap<>();
+
+    private final Counter duplicateCacheCounter;
+    private final Counter duplicateDatabaseCounter;
+
+    private final Timer fetchSuccessTimer;
+    private final Timer fetchFailureTimer;
+    private final Counter fetchRejectedCounter;
+    private final Timer parseTimer;
+
+    private final DistributionSummary rateStalenessSummary;
+
+    public TransactionMetrics(MeterRegistry meterRegistry) {
+
+        this.saveTimer = Timer.builder("transaction.save")
+                .description("Saving of a transaction or a batch of transactions including the limit evaluation")
+                .tag("mode", "single")
+                .register(meterRegistry);
+        this.batchSaveTimer = Timer.builder("transaction.save")
+                .description("Saving of a transaction or a batch of transactions including the limit evaluation")
+                .tag("mode", "batch")
+                .register(meterRegistry);
+        this.limitEvaluationTimer = Timer.builder("transaction.limit.evaluation")
+                .description("Evaluation of the monthly limit for a transaction, a sample of 1/" +
+                        LIMIT_EVALUATION_SAMPLE_RATE + " of the evaluations")
+                .register(meterRegistry);
+
+        this.limitDecisionCounters = new Counter[EXPENSE_CATEGORIES.length][2];
+        for (ExpenseCategory expenseCategory : EXPENSE_CATEGORIES) {
+            for (int exceeded = 0; exceeded < 2; exceeded++) {
+                limitDecisionCounters[expenseCategory.ordinal()][exceeded] =
+                        Counter.builder("transaction.limit.decisions")
+                                .description("Limit decisions, the share of exceeded limits per category")
+                                .tag("category", expenseCategory.name())
+                                .tag("exceeded", String.valueOf(exceeded == 1))
+                                .register(meterRegistry);
+            }
+        }
+
+        this.duplicateCacheCounter = Counter.builder("transaction.duplicates")
+                .description("Transactions received again with the key of a saved transaction")
+                .tag("detected_by", "cache")
+                .register(meterRegistry);
+        this.duplicateDatabaseCounter = Counter.builder("transaction.duplicates")
+                .description("Transactions received again with the key of a saved transaction")
+                .tag("detected_by", "database")
+                .register(meterRegistry);
+
+        this.fetchSuccessTimer = Timer.builder("exchange.rate.fetch")
+                .description("Request of the exchange rates to the National Bank including retries")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.fetchFailureTimer = Timer.builder("exchange.rate.fetch")
+                .description("Request of the exchange rates to the National Bank including retries")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+        this.fetchRejectedCounter = Counter.builder("exchange.rate.fetch.rejected")
+                .description("Requests of the exchange rates not sent while the circuit breaker is open")
+                .register(meterRegistry);
+        this.parseTimer = Timer.builder("exchange.rate.parse")
+                .description("Parsing of the exchange rates document while it is being read")
+                .register(meterRegistry);
+
+        this.rateStalenessSummary = DistributionSummary.builder("exchange.rate.staleness")
+                .description("Days between the date of a transaction and the date of the rates used for it")
+                .baseUnit("days")
+                .register(meterRegistry);
+    }
+
+    public void recordSave(long durationNanos) {
+        saveTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordBatchSave(long durationNanos) {
+        batchSaveTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public boolean isLimitEvaluationSampled() {
+        return ThreadLocalRandom.current().nextInt(LIMIT_EVALUATION_SAMPLE_RATE) == 0;
+    }
+
+    public void recordLimitEvaluationTime(long durationNanos) {
+        limitEvaluationTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Every decision is counted, only for a valid category (the category of a saved transaction is always valid)
+    public void recordLimitDecision(String expenseCategory, boolean limitExceeded) {
+
+        if (expenseCategory == null) {
+            return;
+        }
+
+        Counter[] counters = limitDecisionCountersByValue.get(expenseCategory);
+        if (counters == null) {
+            ExpenseCategory category = toExpenseCategory(expenseCategory);
+            if (category == null) {
+                return;
+            }
+            counters = limitDecisionCountersByValue.computeIfAbsent(expenseCategory,
+                    value -> limitDecisionCounters[category.ordinal()]);
+        }
+
+        counters[limitExceeded ? 1 : 0].increment();
+    }
+
+    // A duplicate is detected by the recent keys in memory or by a lookup in the database
+    public void recordDuplicate(boolean detectedByCache) {
+        (detectedByCache ? duplicateCacheCounter : duplicateDatabaseCounter).increment();
+    }
+
+    public void recordFetch(boolean success, long durationNanos) {
+        (success ? fetchSuccessTimer : fetchFailureTimer).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFetchRejected() {
+        fetchRejectedCounter.increment();
+    }
+
+    public void recordParse(long durationNanos) {
+        parseTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRateStaleness(long days) {
+        rateStalenessSummary.record(days);
+    }
+
+    private static ExpenseCategory toExpenseCategory(String expenseCategory) {
+
+        // Comparison ignoring case, as the category is validated
+        for (ExpenseCategory category : EXPENSE_CATEGORIES) {
+            if (category.name().equalsIgnoreCase(expenseCategory)) {
+                return category;
+            }
+        }
+
+        return null;
+    }
+}
@@ -11,7 +11,10 @@ import java.sql.Timestamp;
 import java.util.Set;
 
 @Entity
-@Table(name = "t_amount_limit")
+@Table(name = "t_amount_limit", indexes = {
+        @Index(name = "t_amount_limit_account_category_date_idx",
+                columnList = "account_client, expense_category, limit_date")
+})
 @Setter
 @Getter
 @AllArgsConstructor
@@ -37,7 +40,8 @@ public class AmountLimitEntity extends BaseEntity {
     @Column(name = "expense_category", nullable = false)
     private String expenseCategory;
 
-    @OneToMany(mappedBy = "amountLimitEntity", fetch = FetchType.EAGER,
+    // Transactions are not needed when the limit is read, they are loaded only on explicit access
+    @OneToMany(mappedBy = "amountLimitEntity", fetch = FetchType.LAZY,
             cascade = CascadeType.REMOVE)
     private Set<ExpenseTransactionEntity> expenseTransactionEntities;
 }
@@ -2,6 +2,8 @@ package lab.solva.user.transaction.model;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
@@ -10,8 +12,16 @@ import javax.persistence.*;
 @MappedSuperclass
 public class BaseEntity {
 
+    // Ids are allocated from the table sequence in blocks of 50 (pooled optimizer),
+    // unlike IDENTITY this allows Hibernate to batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "table_sequence")
+    @GenericGenerator(name = "table_sequence",
+            strategy = "lab.solva.user.transaction.model.TableSequenceGenerator",
+            parameters = {
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled")
+            })
     @Column(name = "id")
     private Long id;
 }
@@ -7,7 +7,9 @@ import java.time.LocalDate;
 import java.util.Set;
 
 @Entity
-@Table(name = "t_exchange_info")
+@Table(name = "t_exchange_info", indexes = {
+        @Index(name = "t_exchange_info_request_date_idx", columnList = "request_date", unique = true)
+})
 @Setter
 @Getter
 @AllArgsConstructor
@@ -10,7 +10,11 @@ import javax.validation.constraints.Size;
 import java.sql.Timestamp;
 
 @Entity
-@Table(name = "t_expense_transaction")
+@Table(name = "t_expense_transaction", indexes = {
+        @Index(name = "t_expense_transaction_account_category_date_idx",
+                columnList = "account_client, expense_category, transaction_date"),
+        @Index(name = "t_expense_transaction_key_idx", columnList = "transaction_key", unique = true)
+})
 @Setter
 @Getter
 @AllArgsConstructor
@@ -42,6 +46,11 @@ public class ExpenseTransactionEntity extends BaseEntity {
     @Column(name = "limit_exceeded", nullable = false)
     private boolean limitExceeded;
 
+    // Optional key of the transaction assigned by the client, a transaction received again is not saved
+    @Size(max = 64)
+    @Column(name = "transaction_key", length = 64)
+    private String transactionKey;
+
     @ManyToOne
     @JoinColumn(name = "amount_limit_id")
     private AmountLimitEntity amountLimitEntity;
@@ -0,0 +1,26 @@
+package lab.solva.user.transaction.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+
+// The sequence of the last journal record written to the database, updated in the same database transaction
+// as the records, so that a record is never written twice when the journal is replayed
+@Entity
+@Table(name = "t_journal_checkpoint")
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class JournalCheckpointEntity {
+
+    @Id
+    @Column(name = "journal_name", length = 50)
+    private String journalName;
+
+    @Column(name = "last_sequence", nullable = false)
+    private long lastSequence;
+}
@@ -0,0 +1,36 @@
+package lab.solva.user.transaction.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.sql.Timestamp;
+
+// A record of the journal rejected by the database (it can never be written), saved with the error
+// in the same database transaction as the checkpoint, so that the following records are not blocked by it
+@Entity
+@Table(name = "t_journal_dead_letter")
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class JournalDeadLetterEntity {
+
+    @Id
+    @Column(name = "journal_sequence")
+    private long sequence;
+
+    @Column(name = "journal_name", length = 50, nullable = false)
+    private String journalName;
+
+    @Column(name = "journal_record", nullable = false, columnDefinition = "TEXT")
+    private String journalRecord;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(name = "failed_date", nullable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private Timestamp failedDateTime;
+}
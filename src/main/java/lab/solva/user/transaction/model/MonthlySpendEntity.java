@@ -0,0 +1,45 @@
+package lab.solva.user.transaction.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import javax.validation.constraints.Size;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Total of the transactions of an account and expense category for a month in one currency, updated in the same
+// database transaction as the transactions are saved (MonthlySpendRepository.addTransactions)
+@Entity
+@Table(name = "t_monthly_spend")
+@IdClass(MonthlySpendId.class)
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class MonthlySpendEntity {
+
+    @Id
+    @Size(max = 10)
+    @Column(name = "account_client", length = 10)
+    private String accountClient;
+
+    @Id
+    @Column(name = "expense_category", length = 10)
+    private String expenseCategory;
+
+    // The first day of the month
+    @Id
+    @Column(name = "spend_month")
+    private LocalDate spendMonth;
+
+    @Id
+    @Size(max = 3)
+    @Column(name = "currency_code", length = 3)
+    private String currencyCode;
+
+    @Column(name = "total", nullable = false, precision = 19, scale = 2)
+    private BigDecimal total;
+}
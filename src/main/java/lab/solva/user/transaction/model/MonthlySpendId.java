@@ -0,0 +1,28 @@
+package lab.solva.user.transaction.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Setter
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor
+public class MonthlySpendId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String accountClient;
+
+    private String expenseCategory;
+
+    private LocalDate spendMonth;
+
+    private String currencyCode;
+}
@@ -0,0 +1,24 @@
+package lab.solva.user.transaction.model;
+
+import org.hibernate.MappingException;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+// Sequence generator that uses the sequence created for the SERIAL id column of the entity table
+// (<table>_id_seq), so one mapping in BaseEntity serves all entities
+public class TableSequenceGenerator extends SequenceStyleGenerator {
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+
+        if (params.getProperty(SEQUENCE_PARAM) == null) {
+            params.setProperty(SEQUENCE_PARAM, params.getProperty(PersistentIdentifierGenerator.TABLE) + "_id_seq");
+        }
+
+        super.configure(type, params, serviceRegistry);
+    }
+}
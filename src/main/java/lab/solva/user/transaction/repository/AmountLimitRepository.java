@@ -6,6 +6,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import javax.transaction.Transactional;
+import java.sql.Timestamp;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,15 +21,27 @@ public interface AmountLimitRepository extends JpaRepository<AmountLimitEntity,
             "ORDER BY c.limitDateTime DESC")
     List<AmountLimitEntity> findAllAmountLimitByAccount(String accountClient);
 
-    // Returns the customer's last set limit by cost category for the current month
+    // Returns the customer's last set limit by cost category for the current month;
+    // The date range is half-open [monthStart, nextMonthStart) so that the index on limit_date can be used
     @Query("SELECT c FROM AmountLimitEntity c " +
             "WHERE c.accountClient = :accountClient " +
                 "AND c.expenseCategory = :expenseCategory " +
-                "AND MONTH(c.limitDateTime) = :month AND YEAR(c.limitDateTime) = :year " +
+                "AND c.limitDateTime >= :monthStart AND c.limitDateTime < :nextMonthStart " +
             "ORDER BY c.limitDateTime DESC")
     List<AmountLimitEntity> findAmountLimitByAccountAndCategoryAndMonth(String accountClient,
-            String expenseCategory, int month, int year);
+            String expenseCategory, Timestamp monthStart, Timestamp nextMonthStart);
+    default Optional<AmountLimitEntity> findAmountLimit(String accountClient, String expenseCategory, YearMonth month) {
+        return findAmountLimitByAccountAndCategoryAndMonth(accountClient, expenseCategory,
+                Timestamp.valueOf(month.atDay(1).atStartOfDay()),
+                Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay())).stream().findFirst();
+    }
     default Optional<AmountLimitEntity> findAmountLimit(String accountClient, String expenseCategory, int month, int year) {
-        return findAmountLimitByAccountAndCategoryAndMonth(accountClient, expenseCategory, month, year).stream().findFirst();
+        return findAmountLimit(accountClient, expenseCategory, YearMonth.of(year, month));
     }
+
+    // Transaction-level advisory lock of PostgreSQL, waits for the lock and holds it until the end of the current
+    // transaction (the function returns void, which is not mapped, so its row is counted)
+    @Query(value = "SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(:accountKey, :categoryKey)) AS advisory_lock",
+            nativeQuery = true)
+    long acquireAdvisoryLock(int accountKey, int categoryKey);
 }
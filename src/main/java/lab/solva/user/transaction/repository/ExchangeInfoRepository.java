@@ -7,6 +7,7 @@ import org.springframework.stereotype.Repository;
 
 import javax.transaction.Transactional;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -26,4 +27,13 @@ public interface ExchangeInfoRepository extends JpaRepository<ExchangeInfoEntity
     default Optional<ExchangeInfoEntity> findCurrentExchangeInfo(LocalDate requestDate) {
         return findExchangeInfoByRequestDate(requestDate).stream().findFirst();
     }
+
+    // Returns all records with their exchange rates in one query
+    @Query("SELECT DISTINCT c FROM ExchangeInfoEntity c LEFT JOIN FETCH c.exchangeRateEntities")
+    List<ExchangeInfoEntity> findAllExchangeInfoWithRates();
+
+    // Returns the dates of the range for which the exchange rates are stored
+    @Query("SELECT DISTINCT c.requestDate FROM ExchangeInfoEntity c " +
+            "WHERE c.requestDate >= :fromDate AND c.requestDate <= :toDate")
+    Set<LocalDate> findRequestDatesBetween(LocalDate fromDate, LocalDate toDate);
 }
@@ -1,19 +1,29 @@
 package lab.solva.user.transaction.repository;
 
+import lab.solva.user.transaction.dto.TransactionExceededLimitDto;
 import lab.solva.user.transaction.model.ExpenseTransactionEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import javax.transaction.Transactional;
+import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 @Transactional
 public interface ExpenseTransactionRepository extends JpaRepository<ExpenseTransactionEntity, Long>  {
 
-    // Getting a list of transactions that have exceeded the limit, returns an array of Entity field objects
-    @Query("SELECT t.accountClient, " +
+    // Getting a list of transactions that have exceeded the limit, each row is mapped directly into the Dto
+    @Query("SELECT new lab.solva.user.transaction.dto.TransactionExceededLimitDto(t.id, " +
+                "t.accountClient, " +
                 "t.accountCounterparty, " +
                 "t.currencyCode, " +
                 "t.transactionSum, " +
@@ -21,21 +31,84 @@ public interface ExpenseTransactionRepository extends JpaRepository<ExpenseTrans
                 "t.transactionDateTime, " +
                 "l.limitSum, " +
                 "l.limitDateTime, " +
-                "l.limitCurrencyCode " +
+                "l.limitCurrencyCode) " +
             "FROM ExpenseTransactionEntity t " +
             "JOIN t.amountLimitEntity l " +
             "WHERE t.accountClient = :accountClient " +
                 "AND t.limitExceeded = true " +
             "ORDER BY t.transactionDateTime ASC")
-    List<Object[]> findAllTransactionWithExceededLimit(String accountClient);
-
-    // Returns the sum of all transactions according to the condition;
-    // If there are no records, it will return the value 0
-    @Query(value = "SELECT COALESCE(SUM(c.transactionSum), 0) " +
-            "FROM ExpenseTransactionEntity c " +
-            "WHERE c.accountClient = :accountClient " +
-                "AND c.expenseCategory = :expenseCategory " +
-                "AND c.currencyCode = :currencyCode " +
-                "AND MONTH(c.transactionDateTime) = :month AND YEAR(c.transactionDateTime) = :year")
-    double calcTransactionSum(String accountClient, String expenseCategory, String currencyCode, int month, int year);
-}
+    List<TransactionExceededLimitDto> findAllTransactionWithExceededLimit(String accountClient);
+
+    // Reading transactions that have exceeded the limit with a database cursor, rows are fetched in portions
+    // and are not kept in the persistence context; Must be consumed within a transaction and closed after use
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new lab.solva.user.transaction.dto.TransactionExceededLimitDto(t.id, " +
+                "t.accountClient, " +
+                "t.accountCounterparty, " +
+                "t.currencyCode, " +
+                "t.transactionSum, " +
+                "t.expenseCategory, " +
+                "t.transactionDateTime, " +
+                "l.limitSum, " +
+                "l.limitDateTime, " +
+                "l.limitCurrencyCode) " +
+            "FROM ExpenseTransactionEntity t " +
+            "JOIN t.amountLimitEntity l " +
+            "WHERE t.accountClient = :accountClient " +
+                "AND t.limitExceeded = true " +
+            "ORDER BY t.transactionDateTime ASC, t.id ASC")
+    Stream<TransactionExceededLimitDto> streamAllTransactionWithExceededLimit(String accountClient);
+
+    // Getting the first page of transactions that have exceeded the limit
+    @Query("SELECT new lab.solva.user.transaction.dto.TransactionExceededLimitDto(t.id, " +
+                "t.accountClient, " +
+                "t.accountCounterparty, " +
+                "t.currencyCode, " +
+                "t.transactionSum, " +
+                "t.expenseCategory, " +
+                "t.transactionDateTime, " +
+                "l.limitSum, " +
+                "l.limitDateTime, " +
+                "l.limitCurrencyCode) " +
+            "FROM ExpenseTransactionEntity t " +
+            "JOIN t.amountLimitEntity l " +
+            "WHERE t.accountClient = :accountClient " +
+                "AND t.limitExceeded = true " +
+            "ORDER BY t.transactionDateTime ASC, t.id ASC")
+    List<TransactionExceededLimitDto> findTransactionWithExceededLimitPage(String accountClient, Pageable pageable);
+
+    // Getting the next page of transactions that have exceeded the limit after the cursor (date and time, id);
+    // Unlike OFFSET, the rows of the previous pages are not read again
+    @Query("SELECT new lab.solva.user.transaction.dto.TransactionExceededLimitDto(t.id, " +
+                "t.accountClient, " +
+                "t.accountCounterparty, " +
+                "t.currencyCode, " +
+                "t.transactionSum, " +
+                "t.expenseCategory, " +
+                "t.transactionDateTime, " +
+                "l.limitSum, " +
+                "l.limitDateTime, " +
+                "l.limitCurrencyCode) " +
+            "FROM ExpenseTransactionEntity t " +
+            "JOIN t.amountLimitEntity l " +
+            "WHERE t.accountClient = :accountClient " +
+                "AND t.limitExceeded = true " +
+                "AND (t.transactionDateTime > :afterDateTime " +
+                    "OR (t.transactionDateTime = :afterDateTime AND t.id > :afterId)) " +
+            "ORDER BY t.transactionDateTime ASC, t.id ASC")
+    List<TransactionExceededLimitDto> findTransactionWithExceededLimitPageAfter(String accountClient,
+            Timestamp afterDateTime, Long afterId, Pageable pageable);
+
+    boolean existsByTransactionKey(String transactionKey);
+
+    // Getting the keys among the given ones that have already been saved, one query for a batch
+    @Query("SELECT t.transactionKey FROM ExpenseTransactionEntity t WHERE t.transactionKey IN :transactionKeys")
+    List<String> findExistingTransactionKeys(Collection<String> transactionKeys);
+
+    // Reading the keys of the transactions made since the date with a database cursor;
+    // Must be consumed within a transaction and closed after use
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t.transactionKey FROM ExpenseTransactionEntity t " +
+            "WHERE t.transactionKey IS NOT NULL AND t.transactionDateTime >= :fromDateTime")
+    Stream<String> streamTransactionKeys(Timestamp fromDateTime);
+}
\ No newline at end of file
@@ -0,0 +1,12 @@
+package lab.solva.user.transaction.repository;
+
+import lab.solva.user.transaction.model.JournalDeadLetterEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import javax.transaction.Transactional;
+
+@Repository
+@Transactional
+public interface JournalDeadLetterRepository extends JpaRepository<JournalDeadLetterEntity, Long> {
+}
@@ -0,0 +1,30 @@
+package lab.solva.user.transaction.repository;
+
+import lab.solva.user.transaction.dto.TransactionSumDto;
+import lab.solva.user.transaction.model.MonthlySpendEntity;
+import lab.solva.user.transaction.model.MonthlySpendId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import javax.transaction.Transactional;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+@Repository
+@Transactional
+public interface MonthlySpendRepository extends JpaRepository<MonthlySpendEntity, MonthlySpendId>,
+        MonthlySpendRepositoryCustom {
+
+    // Returns the totals of the month grouped by currency, one row for each currency that has transactions
+    @Query("SELECT new lab.solva.user.transaction.dto.TransactionSumDto(s.currencyCode, s.total) " +
+            "FROM MonthlySpendEntity s " +
+            "WHERE s.accountClient = :accountClient " +
+                "AND s.expenseCategory = :expenseCategory " +
+                "AND s.spendMonth = :spendMonth")
+    List<TransactionSumDto> findMonthlySpend(String accountClient, String expenseCategory, LocalDate spendMonth);
+    default List<TransactionSumDto> findMonthlySpend(String accountClient, String expenseCategory, YearMonth month) {
+        return findMonthlySpend(accountClient, expenseCategory, month.atDay(1));
+    }
+}
@@ -0,0 +1,13 @@
+package lab.solva.user.transaction.repository;
+
+import lab.solva.user.transaction.model.ExpenseTransactionEntity;
+
+import java.util.Collection;
+
+// Updating the totals of the month with the upsert statement of the database
+public interface MonthlySpendRepositoryCustom {
+
+    // Adding the amounts of saved transactions to the totals, one statement for each account, category,
+    // month and currency; Must be called in the database transaction in which the transactions are saved
+    void addTransactions(Collection<ExpenseTransactionEntity> expenseTransactionEntities);
+}
@@ -0,0 +1,85 @@
+package lab.solva.user.transaction.repository;
+
+import lab.solva.user.transaction.enumeration.CurrencyType;
+import lab.solva.user.transaction.model.ExpenseTransactionEntity;
+import lab.solva.user.transaction.model.MonthlySpendId;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// The row of the month is created with the first transaction and updated with the following ones in one statement;
+// INSERT ... ON CONFLICT of PostgreSQL is atomic, concurrent first transactions of the same row (also of several
+// instances of the application) add to it; Databases without ON CONFLICT (H2 in tests) use MERGE, which can fail
+// with a unique violation for concurrent first transactions of the same row
+public class MonthlySpendRepositoryCustomImpl implements MonthlySpendRepositoryCustom {
+
+    private static final String UPSERT_SQL = "INSERT INTO t_monthly_spend " +
+                "(account_client, expense_category, spend_month, currency_code, total) " +
+            "VALUES (:accountClient, :expenseCategory, :spendMonth, :currencyCode, :amount) " +
+            "ON CONFLICT (account_client, expense_category, spend_month, currency_code) " +
+            "DO UPDATE SET total = t_monthly_spend.total + EXCLUDED.total";
+
+    private static final String MERGE_SQL = "MERGE INTO t_monthly_spend s " +
+            "USING (VALUES (:accountClient, :expenseCategory, CAST(:spendMonth AS DATE), :currencyCode, " +
+                    "CAST(:amount AS NUMERIC(19, 2)))) " +
+                "AS v (account_client, expense_category, spend_month, currency_code, amount) " +
+            "ON s.account_client = v.account_client AND s.expense_category = v.expense_category " +
+                "AND s.spend_month = v.spend_month AND s.currency_code = v.currency_code " +
+            "WHEN MATCHED THEN UPDATE SET total = s.total + v.amount " +
+            "WHEN NOT MATCHED THEN INSERT (account_client, expense_category, spend_month, currency_code, total) " +
+                "VALUES (v.account_client, v.expense_category, v.spend_month, v.currency_code, v.amount)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Requires PostgreSQL, disabled for other databases (H2 in tests)
+    @Value("${transaction.monthly-spend.on-conflict:true}")
+    private boolean onConflictEnabled;
+
+    @Override
+    public void addTransactions(Collection<ExpenseTransactionEntity> expenseTransactionEntities) {
+
+        // Amounts in minor units, each amount is rounded as by the running totals in memory
+        Map<MonthlySpendId, Long> amounts = new LinkedHashMap<>();
+
+        for (ExpenseTransactionEntity expenseTransactionEntity : expenseTransactionEntities) {
+            // Amounts in an unknown currency are not included in the totals (as in the running totals)
+            CurrencyType currencyType = findCurrencyType(expenseTransactionEntity.getCurrencyCode());
+            if (currencyType == null) {
+                continue;
+            }
+
+            // The month in the time zone of the application
+            MonthlySpendId monthlySpendId = new MonthlySpendId(expenseTransactionEntity.getAccountClient(),
+                    expenseTransactionEntity.getExpenseCategory(),
+                    YearMonth.from(expenseTransactionEntity.getTransactionDateTime().toLocalDateTime()).atDay(1),
+                    expenseTransactionEntity.getCurrencyCode());
+
+            amounts.merge(monthlySpendId, currencyType.toMinorUnits(expenseTransactionEntity.getTransactionSum()),
+                    Long::sum);
+        }
+
+        amounts.forEach((monthlySpendId, minorUnits) -> entityManager
+                .createNativeQuery(onConflictEnabled ? UPSERT_SQL : MERGE_SQL)
+                .setParameter("accountClient", monthlySpendId.getAccountClient())
+                .setParameter("expenseCategory", monthlySpendId.getExpenseCategory())
+                .setParameter("spendMonth", monthlySpendId.getSpendMonth())
+                .setParameter("currencyCode", monthlySpendId.getCurrencyCode())
+                .setParameter("amount", CurrencyType.valueOf(monthlySpendId.getCurrencyCode())
+                        .fromMinorUnits(minorUnits))
+                .executeUpdate());
+    }
+
+    private static CurrencyType findCurrencyType(String currencyCode) {
+        try {
+            return CurrencyType.valueOf(currencyCode);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+    }
+}
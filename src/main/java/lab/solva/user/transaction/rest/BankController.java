@@ -1,14 +1,22 @@
 package lab.solva.user.transaction.rest;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lab.solva.user.transaction.dto.ExpenseTransactionDto;
+import lab.solva.user.transaction.dto.ExpenseTransactionResultDto;
 import lab.solva.user.transaction.service.BankService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 @RestController
 @RequestMapping(value = "/api/bank")
 @CrossOrigin
@@ -18,6 +26,7 @@ import org.springframework.web.bind.annotation.*;
 public class BankController {
 
     private final BankService bankService;
+    private final ObjectMapper objectMapper;
 
     @SuppressWarnings("unused")
     @PostMapping
@@ -30,4 +39,37 @@ public class BankController {
         // Return expenseTransactionDto
         return ResponseEntity.ok(expenseTransactionDto);
     }
+
+    @SuppressWarnings("unused")
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(description = "Saving a batch of Transactions to the Database")
+    public ResponseEntity<List<ExpenseTransactionResultDto>> saveExpenseTransactionList(
+            @RequestBody List<ExpenseTransactionDto> expenseTransactionDtoList){
+
+        log.debug("!Call method saving a batch of Transactions to the Database, size={}",
+                expenseTransactionDtoList.size());
+
+        // Return the result for each Transaction in the order received
+        return ResponseEntity.ok(bankService.saveExpenseTransactionDtoList(expenseTransactionDtoList));
+    }
+
+    @SuppressWarnings("unused")
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(description = "Saving a batch of Transactions to the Database, one Transaction per line")
+    public ResponseEntity<List<ExpenseTransactionResultDto>> saveExpenseTransactionStream(
+            InputStream inputStream) throws IOException {
+
+        // Reading Transactions line by line without building a JSON array
+        List<ExpenseTransactionDto> expenseTransactionDtoList;
+        try (MappingIterator<ExpenseTransactionDto> iterator =
+                     objectMapper.readerFor(ExpenseTransactionDto.class).readValues(inputStream)) {
+            expenseTransactionDtoList = iterator.readAll();
+        }
+
+        log.debug("!Call method saving a batch of Transactions to the Database, size={}",
+                expenseTransactionDtoList.size());
+
+        // Return the result for each Transaction in the order received
+        return ResponseEntity.ok(bankService.saveExpenseTransactionDtoList(expenseTransactionDtoList));
+    }
 }
@@ -1,16 +1,27 @@
 package lab.solva.user.transaction.rest;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lab.solva.user.transaction.dto.AmountLimitDateDto;
 import lab.solva.user.transaction.dto.AmountLimitDto;
 import lab.solva.user.transaction.dto.TransactionExceededLimitDto;
+import lab.solva.user.transaction.dto.TransactionExceededLimitPageDto;
 import lab.solva.user.transaction.service.ClientService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.ZonedDateTime;
 import java.util.List;
 
 @RestController
@@ -22,6 +33,7 @@ import java.util.List;
 public class ClientController {
 
     private final ClientService clientService;
+    private final ObjectMapper objectMapper;
 
     @SuppressWarnings("unused")
     @GetMapping(value = "{account_client}")
@@ -43,6 +55,54 @@ public class ClientController {
         return clientService.getAllTransactionExceededLimitDtoByAccountClient(accountClient);
     }
 
+    @SuppressWarnings("unused")
+    @GetMapping(value = "transaction/{account_client}/page")
+    @Operation(description = "Retrieving a page of Transactions that exceeded the specified limit from the Database, " +
+            "the next page is requested with the cursor (next_datetime, next_id) of the previous one")
+    public TransactionExceededLimitPageDto getTransactionExceededLimitPageByAccountClient(
+            @PathVariable(name = "account_client") String accountClient,
+            @RequestParam(name = "after_datetime", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime afterDateTime,
+            @RequestParam(name = "after_id", required = false) Long afterId,
+            @RequestParam(name = "size", defaultValue = "100") int size) {
+
+        log.debug("!Call method getting a page of transactions that exceeded the established limit from the database");
+        return clientService.getTransactionExceededLimitPageDtoByAccountClient(accountClient, afterDateTime, afterId, size);
+    }
+
+    @SuppressWarnings("unused")
+    @GetMapping(value = "transaction/{account_client}/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(description = "Streaming all Transactions that exceeded the specified limit from the Database, " +
+            "rows are written to the response as they are read")
+    public ResponseEntity<StreamingResponseBody> streamAllTransactionExceededLimitByAccountClient(
+            @PathVariable(name = "account_client") String accountClient) {
+
+        log.debug("!Call method streaming all transactions that exceeded the established limit from the database");
+
+        // The response is the same JSON array as for the list, but is written without building the list in memory;
+        // The output is flushed by the generator buffer, not after every transaction
+        ObjectWriter objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody responseBody = outputStream -> {
+            try (JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(outputStream)) {
+                jsonGenerator.writeStartArray();
+
+                clientService.streamAllTransactionExceededLimitDtoByAccountClient(accountClient,
+                        transactionExceededLimitDto -> {
+                            try {
+                                objectWriter.writeValue(jsonGenerator, transactionExceededLimitDto);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+
+                jsonGenerator.writeEndArray();
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(responseBody);
+    }
+
     @SuppressWarnings("unused")
     @PostMapping
     @Operation(description = "Setting and saving a Limit in the Database")
@@ -2,15 +2,23 @@ package lab.solva.user.transaction.rest;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import lab.solva.user.transaction.cache.ExchangeRateCache;
+import lab.solva.user.transaction.dto.ExchangeRateBackfillJobDto;
+import lab.solva.user.transaction.dto.ExchangeRateCacheDto;
 import lab.solva.user.transaction.dto.ExchangeRateDto;
+import lab.solva.user.transaction.service.ExchangeRateBackfillService;
 import lab.solva.user.transaction.service.ExchangeService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.springframework.web.bind.annotation.CrossOrigin;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
 
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -22,6 +30,8 @@ import java.util.List;
 public class ExchangeController {
 
     private final ExchangeService exchangeService;
+    private final ExchangeRateCache exchangeRateCache;
+    private final ExchangeRateBackfillService exchangeRateBackfillService;
 
     @GetMapping
     @Operation(description = "Retrieving all Exchange Rates for the Current Date from the Database")
@@ -30,4 +40,66 @@ public class ExchangeController {
         log.debug("!Call method getting all Exchange Rates for the Current Date from the Database");
         return exchangeService.getAllExchangeRateDtoByCurrentDate();
     }
+
+    @GetMapping(value = "cache")
+    @Operation(description = "Retrieving the state and statistics of the in-memory Exchange Rates snapshot")
+    public ExchangeRateCacheDto getExchangeRateCacheStatistics(){
+
+        log.debug("!Call method getting the state of the Exchange Rates snapshot");
+        return exchangeRateCache.getStatistics();
+    }
+
+    @SuppressWarnings("unused")
+    @PostMapping(value = "backfill")
+    @Operation(description = "Starting the receiving of the Exchange Rates for a range of dates from the external " +
+            "service in the background, the dates already stored are skipped, the status of the job is returned")
+    public ResponseEntity<Object> backfillExchangeRates(
+            @RequestParam(name = "from_date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(name = "to_date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate){
+
+        log.debug("!Call method backfill of Exchange Rates, fromDate={}, toDate={}", fromDate, toDate);
+        try {
+            return ResponseEntity.accepted()
+                    .body(exchangeRateBackfillService.startBackfillExchangeRates(fromDate, toDate));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @GetMapping(value = "backfill/{job_id}")
+    @Operation(description = "Retrieving the status and the result of a backfill of Exchange Rates")
+    public ResponseEntity<ExchangeRateBackfillJobDto> getBackfillJob(@PathVariable(name = "job_id") String jobId){
+
+        log.debug("!Call method getting the status of a backfill of Exchange Rates, jobId={}", jobId);
+        return ResponseEntity.of(exchangeRateBackfillService.getBackfillJob(jobId));
+    }
+
+    @SuppressWarnings("unused")
+    @PostMapping(value = "import", consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE})
+    @Operation(description = "Saving the Exchange Rates of a document of the National Bank (get_rates.cfm) " +
+            "in the Database")
+    public ResponseEntity<Object> importExchangeRatesXml(InputStream inputStream){
+
+        log.debug("!Call method import of Exchange Rates from XML");
+        try {
+            return ResponseEntity.ok(exchangeRateBackfillService.importExchangeRatesXml(inputStream));
+        } catch (XMLStreamException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @PostMapping(value = "import", consumes = "text/csv")
+    @Operation(description = "Saving the Exchange Rates of a CSV file (date,currency_code,currency_name," +
+            "exchange_rate) in the Database")
+    public ResponseEntity<Object> importExchangeRatesCsv(InputStream inputStream) throws IOException {
+
+        log.debug("!Call method import of Exchange Rates from CSV");
+        try {
+            return ResponseEntity.ok(exchangeRateBackfillService.importExchangeRatesCsv(inputStream));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 }
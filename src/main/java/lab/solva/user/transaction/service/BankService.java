@@ -1,9 +1,15 @@
 package lab.solva.user.transaction.service;
 
 import lab.solva.user.transaction.dto.ExpenseTransactionDto;
+import lab.solva.user.transaction.dto.ExpenseTransactionResultDto;
+
+import java.util.List;
 
 public interface BankService {
 
     // Saving a transaction to the database
     void saveExpenseTransactionDto(ExpenseTransactionDto expenseTransactionDto);
+
+    // Saving a batch of transactions to the database, returns the result for each transaction in the order received
+    List<ExpenseTransactionResultDto> saveExpenseTransactionDtoList(List<ExpenseTransactionDto> expenseTransactionDtoList);
 }
@@ -3,8 +3,11 @@ package lab.solva.user.transaction.service;
 import lab.solva.user.transaction.dto.AmountLimitDateDto;
 import lab.solva.user.transaction.dto.AmountLimitDto;
 import lab.solva.user.transaction.dto.TransactionExceededLimitDto;
+import lab.solva.user.transaction.dto.TransactionExceededLimitPageDto;
 
+import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ClientService {
 
@@ -16,4 +19,13 @@ public interface ClientService {
 
     // Obtaining a list of all transactions that exceeded the established limit from the database in Dto format
     List<TransactionExceededLimitDto> getAllTransactionExceededLimitDtoByAccountClient(String accountClient);
+
+    // Obtaining a page of transactions that exceeded the established limit after the cursor (date and time, id),
+    // the first page is returned if the cursor is not specified
+    TransactionExceededLimitPageDto getTransactionExceededLimitPageDtoByAccountClient(String accountClient,
+            ZonedDateTime afterDateTime, Long afterId, int size);
+
+    // Passing all transactions that exceeded the established limit to the consumer as they are read from the database
+    void streamAllTransactionExceededLimitDtoByAccountClient(String accountClient,
+            Consumer<TransactionExceededLimitDto> consumer);
 }
@@ -0,0 +1,29 @@
+package lab.solva.user.transaction.service;
+
+import lab.solva.user.transaction.dto.ExchangeRateBackfillDto;
+import lab.solva.user.transaction.dto.ExchangeRateBackfillJobDto;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface ExchangeRateBackfillService {
+
+    // Receiving the exchange rates for all dates of the range from an external service and saving in the database,
+    // the dates already stored are skipped
+    ExchangeRateBackfillDto backfillExchangeRates(LocalDate fromDate, LocalDate toDate);
+
+    // Starting the backfill of the range in the background, the jobs are performed one at a time
+    ExchangeRateBackfillJobDto startBackfillExchangeRates(LocalDate fromDate, LocalDate toDate);
+
+    // Returns the status of a backfill job, the statuses of the last jobs are kept
+    Optional<ExchangeRateBackfillJobDto> getBackfillJob(String jobId);
+
+    // Saving the exchange rates of a document of the National Bank (get_rates.cfm) in the database
+    ExchangeRateBackfillDto importExchangeRatesXml(InputStream inputStream) throws XMLStreamException;
+
+    // Saving the exchange rates of a CSV file (date,currency_code,currency_name,exchange_rate) in the database
+    ExchangeRateBackfillDto importExchangeRatesCsv(InputStream inputStream) throws IOException;
+}
@@ -1,26 +1,40 @@
 package lab.solva.user.transaction.service.impl;
 
+import lab.solva.user.transaction.cache.CrossRates;
+import lab.solva.user.transaction.cache.ExchangeRateCache;
+import lab.solva.user.transaction.cache.MonthlySpendAccumulator;
+import lab.solva.user.transaction.cache.RateSnapshot;
+import lab.solva.user.transaction.cache.TransactionKeyCache;
 import lab.solva.user.transaction.dto.ExpenseTransactionDto;
+import lab.solva.user.transaction.dto.ExpenseTransactionResultDto;
 import lab.solva.user.transaction.enumeration.CurrencyType;
 import lab.solva.user.transaction.enumeration.ExpenseCategory;
+import lab.solva.user.transaction.enumeration.ProcessingStatus;
+import lab.solva.user.transaction.journal.TransactionJournalWriter;
+import lab.solva.user.transaction.lock.LimitLocks;
+import lab.solva.user.transaction.metrics.TransactionMetrics;
 import lab.solva.user.transaction.model.AmountLimitEntity;
-import lab.solva.user.transaction.model.ExchangeRateEntity;
 import lab.solva.user.transaction.model.ExpenseTransactionEntity;
 import lab.solva.user.transaction.repository.AmountLimitRepository;
 import lab.solva.user.transaction.repository.ExpenseTransactionRepository;
+import lab.solva.user.transaction.repository.MonthlySpendRepository;
 import lab.solva.user.transaction.service.BankService;
-import lab.solva.user.transaction.service.ExchangeService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 @RequiredArgsConstructor
@@ -29,221 +43,664 @@ public class BankServiceImpl implements BankService {
 
     private final static double DEFAULT_LIMIT_SUM = 1000.0;
     private final static String DEFAULT_LIMIT_CURRENCY_CODE = CurrencyType.USD.name();
+    private final static int TRANSACTION_KEY_MAX_LENGTH = 64;
+    private final static int ACCOUNT_MAX_LENGTH = 10;
+    private final static int CURRENCY_CODE_MAX_LENGTH = 3;
+    private final static String IN_PROGRESS_MESSAGE =
+            "Transaction with the same key is being saved, the transaction can be sent again";
 
     private final ExpenseTransactionRepository expenseTransactionRepository;
     private final AmountLimitRepository amountLimitRepository;
-    private final ExchangeService exchangeService;
+    private final MonthlySpendRepository monthlySpendRepository;
+    private final ExchangeRateCache exchangeRateCache;
+    private final MonthlySpendAccumulator monthlySpendAccumulator;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionMetrics transactionMetrics;
+    private final TransactionJournalWriter transactionJournalWriter;
+    private final TransactionKeyCache transactionKeyCache;
+    private final LimitLocks limitLocks;
 
     @Override
     public void saveExpenseTransactionDto(ExpenseTransactionDto expenseTransactionDto) {
 
+        long startTime = System.nanoTime();
+
         // Saving received data from expenseTransactionDto
         if (expenseTransactionDto != null) {
-            ExpenseTransactionEntity expenseTransactionEntity = new ExpenseTransactionEntity();
-            expenseTransactionEntity.setAccountClient(expenseTransactionDto.account_from);
-            expenseTransactionEntity.setAccountCounterparty(expenseTransactionDto.account_to);
-            expenseTransactionEntity.setCurrencyCode(expenseTransactionDto.currency_shortname);
-            expenseTransactionEntity.setTransactionSum(expenseTransactionDto.sum);
-
-            // Checking Expense Category for a valid value
-            String expenseCategory = expenseTransactionDto.expense_category;
-
-            if (ExpenseCategory.SERVICE.name().equals(expenseCategory.toUpperCase()) ||
-                    ExpenseCategory.PRODUCT.name().equals(expenseCategory.toUpperCase())) {
-                expenseTransactionEntity.setExpenseCategory(expenseCategory);
-            } else {
-                log.error("!Invalid value, Expense Category not found in the list of valid values, " +
-                          "accountClient={}, expenseCategory={}", expenseTransactionDto.account_from, expenseCategory);
+
+            // Checking received data for valid values
+            if (validateExpenseTransactionDto(expenseTransactionDto) != null) {
                 return;
             }
 
-            // Checking Date and Time for valid values
-            ZonedDateTime transactionZonedDateTime = expenseTransactionDto.datetime;
-            LocalDateTime transactionDateTime = transactionZonedDateTime.toLocalDateTime();
-            LocalDateTime currentDateTime = LocalDateTime.now();
+            // A transaction received again with the key of a saved transaction is not saved twice
+            String transactionKey = expenseTransactionDto.transaction_key;
+            if (transactionKey != null && isDuplicateTransactionKey(transactionKey)) {
+                log.debug("!Expense Transaction has already been received, transactionKey={}, accountClient={}",
+                        transactionKey, expenseTransactionDto.account_from);
+                return;
+            }
 
-            if (transactionDateTime.isBefore(currentDateTime)) {
-                Timestamp transactionTimestamp = Timestamp.from(transactionZonedDateTime.toInstant());
+            boolean saved;
+            try {
+                saved = saveExpenseTransaction(expenseTransactionDto);
+            } catch (RuntimeException e) {
+                // The key of a transaction that has not been saved can be received again
+                if (transactionKey != null) {
+                    transactionKeyCache.release(transactionKey);
+                }
+                throw e;
+            }
 
-                expenseTransactionEntity.setTransactionDateTime(transactionTimestamp);
-            } else {
-                log.error("!Invalid value, Transaction Date and time is later than the Current Date and time, " +
-                        "accountClient={}, transactionDateTime={}, currentDateTime={}",
-                        expenseTransactionDto.account_from, transactionDateTime.toString(), currentDateTime.toString());
+            // The transaction of the key is in the database, the same key received again is a duplicate
+            if (transactionKey != null) {
+                transactionKeyCache.commit(transactionKey);
+            }
 
-                return;
+            if (saved) {
+                transactionMetrics.recordSave(System.nanoTime() - startTime);
             }
+        }
+    }
 
-            // Calculating the value for the limitExceeded field
-            expenseTransactionEntity.setLimitExceeded(getLimitExceeded(expenseTransactionDto.account_from,
-                    expenseTransactionDto.expense_category, expenseTransactionDto.currency_shortname,
-                    expenseTransactionDto.sum));
+    @Override
+    public List<ExpenseTransactionResultDto> saveExpenseTransactionDtoList(
+            List<ExpenseTransactionDto> expenseTransactionDtoList) {
 
-            // Saving a reference to the parent Entity
-            expenseTransactionEntity.setAmountLimitEntity(getAmountLimit(expenseTransactionDto.account_from,
-                    expenseTransactionDto.expense_category));
+        long startTime = System.nanoTime();
 
-            expenseTransactionRepository.save(expenseTransactionEntity);
+        ExpenseTransactionResultDto[] results = new ExpenseTransactionResultDto[expenseTransactionDtoList.size()];
 
-            log.debug("!Expense Transaction save successfully, id={}, accountClient={}",
-                    expenseTransactionEntity.getId(), expenseTransactionEntity.getAccountClient());
-        }
-    }
+        // Transactions accepted for saving, keys claimed by the batch are committed when the batch is saved
+        // and released if it is not saved
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        Set<String> claimedKeys = new HashSet<>();
 
-    protected boolean getLimitExceeded(String accountClient, String expenseCategory, String currencyCode,
-                                     double currentTransactionSum) {
+        // Keys that might have been saved before, looked up in the database with one query
+        Map<String, Integer> possiblySeenKeys = new HashMap<>();
 
-        // Limit amount for the current month
-        double currentLimit;
+        for (int i = 0; i < expenseTransactionDtoList.size(); i++) {
+            ExpenseTransactionDto expenseTransactionDto = expenseTransactionDtoList.get(i);
 
-        // The total amount of all transactions for the month, converted into the limit currency
-        double sumTransactionResult = 0.0;
+            String errorMessage = expenseTransactionDto == null ?
+                    "Transaction is empty" : validateExpenseTransactionDto(expenseTransactionDto);
 
-        // Getting the current month and year
-        LocalDateTime currentDateTime = LocalDateTime.now();
-        int currentMonth = currentDateTime.getMonthValue();
-        int currentYear = currentDateTime.getYear();
-
-        // Calculation of the amount of all transactions for a month for each currency
-        double sumTransactionKZT = expenseTransactionRepository.calcTransactionSum(
-                accountClient, expenseCategory, CurrencyType.KZT.name(), currentMonth, currentYear);
-        double sumTransactionUSD = expenseTransactionRepository.calcTransactionSum(
-                accountClient, expenseCategory, CurrencyType.USD.name(), currentMonth, currentYear);
-        double sumTransactionEUR = expenseTransactionRepository.calcTransactionSum(
-                accountClient, expenseCategory, CurrencyType.EUR.name(), currentMonth, currentYear);
-        double sumTransactionRUB = expenseTransactionRepository.calcTransactionSum(
-                accountClient, expenseCategory, CurrencyType.RUB.name(), currentMonth, currentYear);
-
-        // Adding the current transaction amount to a specific amount
-        switch (CurrencyType.valueOf(currencyCode)) {
-            case KZT -> sumTransactionKZT += currentTransactionSum;
-            case USD -> sumTransactionUSD += currentTransactionSum;
-            case EUR -> sumTransactionEUR += currentTransactionSum;
-            case RUB -> sumTransactionRUB += currentTransactionSum;
-
-            // Other cases for other types of currencies (if necessary)
+            if (errorMessage != null) {
+                results[i] = new ExpenseTransactionResultDto(i, ProcessingStatus.REJECTED.name(), null, errorMessage);
+                continue;
+            }
 
-            default -> {
-                // An unknown type of currency was received that is not in the database
-                log.error("!Invalid value, received an unknown Currency Code, " +
-                        "accountClient={}, currencyCode={}", accountClient, currencyCode);
-                return false;
+            String transactionKey = expenseTransactionDto.transaction_key;
+            if (transactionKey == null) {
+                acceptedIndexes.add(i);
+                continue;
+            }
+
+            switch (transactionKeyCache.claim(transactionKey)) {
+                case NEW -> {
+                    claimedKeys.add(transactionKey);
+                    acceptedIndexes.add(i);
+                }
+                case RECENT -> {
+                    transactionMetrics.recordDuplicate(true);
+                    results[i] = createDuplicateResult(i);
+                }
+                case IN_FLIGHT -> {
+                    // A key received twice in the batch is claimed by the batch itself, the batch is saved
+                    // or rejected as a whole; A key of another request is not acknowledged until it is saved
+                    if (claimedKeys.contains(transactionKey)) {
+                        transactionMetrics.recordDuplicate(true);
+                        results[i] = createDuplicateResult(i);
+                    } else {
+                        results[i] = createInProgressResult(i);
+                    }
+                }
+                case POSSIBLY_SEEN -> {
+                    claimedKeys.add(transactionKey);
+                    possiblySeenKeys.put(transactionKey, i);
+                }
             }
         }
 
-        // Getting the current exchange rate from the database
-        List<ExchangeRateEntity> exchangeRateEntityList = exchangeService.gettingRates().stream().toList();
+        if (!possiblySeenKeys.isEmpty()) {
+            Set<String> existingKeys = new HashSet<>(
+                    expenseTransactionRepository.findExistingTransactionKeys(possiblySeenKeys.keySet()));
 
-        // Create and fill a HashMap with exchange rates
-        Map<String, Double> exchangeRateMap = new HashMap<>();
-        for (ExchangeRateEntity exchangeRateEntity : exchangeRateEntityList) {
-            exchangeRateMap.put(exchangeRateEntity.getCurrencyCode(), exchangeRateEntity.getExchangeRate());
+            for (Map.Entry<String, Integer> possiblySeenKey : possiblySeenKeys.entrySet()) {
+                if (existingKeys.contains(possiblySeenKey.getKey())) {
+                    transactionMetrics.recordDuplicate(false);
+                    results[possiblySeenKey.getValue()] = createDuplicateResult(possiblySeenKey.getValue());
+                } else {
+                    acceptedIndexes.add(possiblySeenKey.getValue());
+                }
+            }
+
+            acceptedIndexes.sort(null);
         }
 
-        // Getting the limit from the database
-        AmountLimitEntity amountLimitEntity = getAmountLimit(accountClient, expenseCategory);
-        if (amountLimitEntity != null) {
-            currentLimit = amountLimitEntity.getLimitSum();
-            String limitCurrencyCode = amountLimitEntity.getLimitCurrencyCode();
-
-            // Converting all transaction amounts to the Currency Code of the set limit
-            switch (CurrencyType.valueOf(limitCurrencyCode)) {
-                case KZT -> {
-                    sumTransactionResult = sumTransactionKZT;
-                    if (exchangeRateMap.get(CurrencyType.USD.name()) != null) {
-                        sumTransactionResult += sumTransactionUSD * exchangeRateMap.get(CurrencyType.USD.name());
-                    }
-                    if (exchangeRateMap.get(CurrencyType.EUR.name()) != null) {
-                        sumTransactionResult += sumTransactionEUR * exchangeRateMap.get(CurrencyType.EUR.name());
-                    }
-                    if (exchangeRateMap.get(CurrencyType.RUB.name()) != null) {
-                        sumTransactionResult += sumTransactionRUB * exchangeRateMap.get(CurrencyType.RUB.name());
-                    }
-                }
-                case USD -> {
-                    sumTransactionResult = sumTransactionUSD;
-                    if (exchangeRateMap.get(CurrencyType.USD.name()) != null) {
-                        sumTransactionResult += sumTransactionKZT / exchangeRateMap.get(CurrencyType.USD.name());
-                    }
-                    if (exchangeRateMap.get(CurrencyType.EUR.name()) != null &&
-                            exchangeRateMap.get(CurrencyType.USD.name()) != null) {
-                        sumTransactionResult += sumTransactionEUR *
-                                (exchangeRateMap.get(CurrencyType.EUR.name()) / exchangeRateMap.get(CurrencyType.USD.name()));
-                    }
-                    if (exchangeRateMap.get(CurrencyType.RUB.name()) != null &&
-                            exchangeRateMap.get(CurrencyType.USD.name()) != null) {
-                        sumTransactionResult += sumTransactionRUB *
-                                (exchangeRateMap.get(CurrencyType.RUB.name()) / exchangeRateMap.get(CurrencyType.USD.name()));
+        List<ExpenseTransactionEntity> expenseTransactionEntityList;
+        try {
+            while (true) {
+                try {
+                    expenseTransactionEntityList = saveAcceptedTransactions(expenseTransactionDtoList,
+                            acceptedIndexes, results);
+                    break;
+
+                } catch (DataIntegrityViolationException e) {
+                    // A key unknown to the cache (saved by another instance of the application, or before the days
+                    // of the keys loaded at startup) has been saved; The batch is saved again without such keys
+                    if (!removeSavedTransactionKeys(expenseTransactionDtoList, acceptedIndexes, results)) {
+                        throw e;
                     }
                 }
-                case EUR -> {
-                    sumTransactionResult = sumTransactionEUR;
-                    if (exchangeRateMap.get(CurrencyType.EUR.name()) != null) {
-                        sumTransactionResult += sumTransactionKZT / exchangeRateMap.get(CurrencyType.EUR.name());
-                    }
-                    if (exchangeRateMap.get(CurrencyType.USD.name()) != null &&
-                            exchangeRateMap.get(CurrencyType.EUR.name()) != null) {
-                        sumTransactionResult += sumTransactionUSD *
-                                (exchangeRateMap.get(CurrencyType.USD.name()) / exchangeRateMap.get(CurrencyType.EUR.name()));
-                    }
-                    if (exchangeRateMap.get(CurrencyType.RUB.name()) != null &&
-                            exchangeRateMap.get(CurrencyType.EUR.name()) != null) {
-                        sumTransactionResult += sumTransactionRUB *
-                                (exchangeRateMap.get(CurrencyType.RUB.name()) / exchangeRateMap.get(CurrencyType.EUR.name()));
+            }
+
+        } catch (RuntimeException e) {
+            // Keys of the transactions that have not been saved can be received again
+            claimedKeys.forEach(transactionKeyCache::release);
+            throw e;
+        }
+
+        // The transactions of the claimed keys are in the database (saved by the batch, or found as duplicates)
+        claimedKeys.forEach(transactionKeyCache::commit);
+
+        transactionMetrics.recordBatchSave(System.nanoTime() - startTime);
+
+        log.debug("!Expense Transactions batch save successfully, received={}, saved={}",
+                expenseTransactionDtoList.size(), expenseTransactionEntityList.size());
+
+        return Arrays.asList(results);
+    }
+
+    // Evaluating the limits of the accepted transactions and saving them in one database transaction,
+    // the results of the saved transactions are set
+    private List<ExpenseTransactionEntity> saveAcceptedTransactions(
+            List<ExpenseTransactionDto> expenseTransactionDtoList, List<Integer> acceptedIndexes,
+            ExpenseTransactionResultDto[] results) {
+
+        // Nothing to save, all transactions of the batch are rejected, duplicates or in flight
+        if (acceptedIndexes.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Grouping valid transactions by account, expense category and month, keeping the order of receipt
+        Map<LimitGroupKey, List<Integer>> limitGroups = new LinkedHashMap<>();
+
+        for (int i : acceptedIndexes) {
+            ExpenseTransactionDto expenseTransactionDto = expenseTransactionDtoList.get(i);
+
+            limitGroups.computeIfAbsent(new LimitGroupKey(expenseTransactionDto.account_from,
+                    expenseTransactionDto.expense_category, getTransactionMonth(expenseTransactionDto)),
+                    key -> new ArrayList<>()).add(i);
+        }
+
+        List<ExpenseTransactionEntity> expenseTransactionEntityList = new ArrayList<>();
+
+        // The locks of all accounts and categories of the batch are held until the totals have been updated
+        List<LimitLocks.Key> limitLockKeys = new ArrayList<>();
+        for (LimitGroupKey limitGroupKey : limitGroups.keySet()) {
+            limitLockKeys.add(new LimitLocks.Key(limitGroupKey.accountClient(), limitGroupKey.expenseCategory()));
+        }
+
+        List<ReentrantLock> acquiredLimitLocks = limitLocks.lockAll(limitLockKeys);
+        try {
+            // All transactions of the batch are evaluated and saved in one database transaction
+            transactionTemplate.executeWithoutResult(status -> {
+                limitLocks.acquireAdvisoryLocks(limitLockKeys);
+
+                for (Map.Entry<LimitGroupKey, List<Integer>> limitGroup : limitGroups.entrySet()) {
+                    LimitGroupKey limitGroupKey = limitGroup.getKey();
+
+                    // The limit and totals are resolved once for the whole group, with the first transaction
+                    LimitEvaluationContext limitEvaluationContext = null;
+
+                    // Transactions of the group are evaluated sequentially in the order of their date and time,
+                    // each transaction takes into account the amounts of the previous ones
+                    List<Integer> indexes = limitGroup.getValue();
+                    indexes.sort(Comparator.comparing(index ->
+                            expenseTransactionDtoList.get(index).datetime.toInstant()));
+
+                    for (int index : indexes) {
+                        ExpenseTransactionDto expenseTransactionDto = expenseTransactionDtoList.get(index);
+                        ExpenseTransactionEntity expenseTransactionEntity =
+                                createExpenseTransactionEntity(expenseTransactionDto);
+
+                        // Amounts are converted at the exchange rates of the date on which the transaction was made
+                        CrossRates crossRates = getCrossRates(expenseTransactionDto);
+                        if (limitEvaluationContext == null) {
+                            limitEvaluationContext = resolveLimitEvaluationContext(limitGroupKey.accountClient(),
+                                    limitGroupKey.expenseCategory(), limitGroupKey.month(), crossRates);
+                        } else {
+                            limitEvaluationContext.setCrossRates(crossRates);
+                        }
+
+                        boolean limitExceeded = getLimitExceeded(limitEvaluationContext,
+                                expenseTransactionDto.currency_shortname, expenseTransactionDto.sum);
+                        addTransactionSum(limitEvaluationContext, expenseTransactionDto);
+
+                        expenseTransactionEntity.setLimitExceeded(limitExceeded);
+                        expenseTransactionEntity.setAmountLimitEntity(limitEvaluationContext.getAmountLimitEntity());
+                        expenseTransactionEntityList.add(expenseTransactionEntity);
+
+                        results[index] = new ExpenseTransactionResultDto(index, ProcessingStatus.SAVED.name(),
+                                limitExceeded, null);
                     }
                 }
-                case RUB -> {
-                    sumTransactionResult = sumTransactionRUB;
-                    if (exchangeRateMap.get(CurrencyType.RUB.name()) != null) {
-                        sumTransactionResult += sumTransactionKZT / exchangeRateMap.get(CurrencyType.RUB.name());
-                    }
-                    if (exchangeRateMap.get(CurrencyType.USD.name()) != null &&
-                            exchangeRateMap.get(CurrencyType.RUB.name()) != null) {
-                        sumTransactionResult += sumTransactionUSD *
-                                (exchangeRateMap.get(CurrencyType.USD.name()) / exchangeRateMap.get(CurrencyType.RUB.name()));
-                    }
-                    if (exchangeRateMap.get(CurrencyType.EUR.name()) != null &&
-                            exchangeRateMap.get(CurrencyType.RUB.name()) != null) {
-                        sumTransactionResult += sumTransactionEUR *
-                                (exchangeRateMap.get(CurrencyType.EUR.name()) / exchangeRateMap.get(CurrencyType.RUB.name()));
-                    }
+
+                expenseTransactionRepository.saveAll(expenseTransactionEntityList);
+                monthlySpendRepository.addTransactions(expenseTransactionEntityList);
+            });
+
+            // Updating the running totals after the transactions have been saved
+            for (ExpenseTransactionEntity expenseTransactionEntity : expenseTransactionEntityList) {
+                monthlySpendAccumulator.addTransactionSum(expenseTransactionEntity.getAccountClient(),
+                        expenseTransactionEntity.getExpenseCategory(),
+                        YearMonth.from(expenseTransactionEntity.getTransactionDateTime().toLocalDateTime()),
+                        expenseTransactionEntity.getCurrencyCode(), expenseTransactionEntity.getTransactionSum());
+            }
+
+        } finally {
+            limitLocks.unlockAll(acquiredLimitLocks);
+        }
+
+        return expenseTransactionEntityList;
+    }
+
+    // Looking up the keys of the accepted transactions in the database, the transactions with saved keys
+    // are removed from the accepted ones as duplicates; Returns false if there are no such transactions
+    private boolean removeSavedTransactionKeys(List<ExpenseTransactionDto> expenseTransactionDtoList,
+                                               List<Integer> acceptedIndexes, ExpenseTransactionResultDto[] results) {
+
+        List<String> transactionKeys = new ArrayList<>();
+        for (int i : acceptedIndexes) {
+            if (expenseTransactionDtoList.get(i).transaction_key != null) {
+                transactionKeys.add(expenseTransactionDtoList.get(i).transaction_key);
+            }
+        }
+
+        if (transactionKeys.isEmpty()) {
+            return false;
+        }
+
+        Set<String> existingKeys = new HashSet<>(
+                expenseTransactionRepository.findExistingTransactionKeys(transactionKeys));
+
+        return acceptedIndexes.removeIf(i -> {
+            if (!existingKeys.contains(expenseTransactionDtoList.get(i).transaction_key)) {
+                return false;
+            }
+
+            transactionMetrics.recordDuplicate(false);
+            results[i] = createDuplicateResult(i);
+
+            return true;
+        });
+    }
+
+    // Evaluating the limit and saving the transaction under the lock of the account and category, so that
+    // concurrent transactions of the account take each other into account; Returns false if the transaction
+    // has already been saved
+    private boolean saveExpenseTransaction(ExpenseTransactionDto expenseTransactionDto) {
+
+        YearMonth transactionMonth = getTransactionMonth(expenseTransactionDto);
+        LimitLocks.Key limitLockKey = new LimitLocks.Key(expenseTransactionDto.account_from,
+                expenseTransactionDto.expense_category);
+
+        ReentrantLock limitLock = limitLocks.lock(limitLockKey);
+        try {
+            ExpenseTransactionEntity expenseTransactionEntity;
+            try {
+                // The transaction and the totals of the month are saved in one database transaction (a transaction
+                // appended to the journal is saved by the journal writer, with a single instance of the application);
+                // Evaluations of several instances of the application are serialized by the advisory lock,
+                // the limit and the totals are read (or the default limit is saved) after it has been acquired
+                expenseTransactionEntity = !transactionJournalWriter.isEnabled() ?
+                        transactionTemplate.execute(status -> {
+                            limitLocks.acquireAdvisoryLocks(List.of(limitLockKey));
+                            return evaluateAndSaveExpenseTransaction(expenseTransactionDto, transactionMonth);
+                        }) :
+                        evaluateAndSaveExpenseTransaction(expenseTransactionDto, transactionMonth);
+
+            } catch (DataIntegrityViolationException e) {
+                // The key has been saved by another instance of the application after the lookup
+                String transactionKey = expenseTransactionDto.transaction_key;
+                if (transactionKey == null || !expenseTransactionRepository.existsByTransactionKey(transactionKey)) {
+                    throw e;
                 }
 
-                // Other cases for other types of currencies (if necessary)
+                transactionMetrics.recordDuplicate(false);
+                log.debug("!Expense Transaction has already been saved, transactionKey={}, accountClient={}",
+                        transactionKey, expenseTransactionDto.account_from);
+
+                return false;
             }
+
+            // Updating the running total of the month in which the transaction was made, before the lock is released
+            monthlySpendAccumulator.addTransactionSum(expenseTransactionEntity.getAccountClient(),
+                    expenseTransactionEntity.getExpenseCategory(), transactionMonth,
+                    expenseTransactionEntity.getCurrencyCode(), expenseTransactionEntity.getTransactionSum());
+
+            return true;
+
+        } finally {
+            limitLock.unlock();
+        }
+    }
+
+    // Evaluating the limit and saving the transaction (or appending it to the journal)
+    private ExpenseTransactionEntity evaluateAndSaveExpenseTransaction(ExpenseTransactionDto expenseTransactionDto,
+                                                                       YearMonth transactionMonth) {
+
+        ExpenseTransactionEntity expenseTransactionEntity = createExpenseTransactionEntity(expenseTransactionDto);
+
+        // Resolving the limit and totals of the month in which the transaction was made once, amounts are converted
+        // at the exchange rates of the date on which the transaction was made
+        LimitEvaluationContext limitEvaluationContext = resolveLimitEvaluationContext(
+                expenseTransactionDto.account_from, expenseTransactionDto.expense_category, transactionMonth,
+                getCrossRates(expenseTransactionDto));
+
+        // Calculating the value for the limitExceeded field
+        expenseTransactionEntity.setLimitExceeded(getLimitExceeded(limitEvaluationContext,
+                expenseTransactionDto.currency_shortname, expenseTransactionDto.sum));
+
+        // Saving a reference to the parent Entity
+        expenseTransactionEntity.setAmountLimitEntity(limitEvaluationContext.getAmountLimitEntity());
+
+        if (transactionJournalWriter.isEnabled()) {
+            // The transaction is acknowledged after it has been appended to the journal on disk,
+            // it is written to the database by the background writer
+            long sequence = transactionJournalWriter.append(expenseTransactionEntity);
+
+            log.debug("!Expense Transaction appended to the Journal, sequence={}, accountClient={}",
+                    sequence, expenseTransactionEntity.getAccountClient());
         } else {
+            expenseTransactionRepository.save(expenseTransactionEntity);
+            monthlySpendRepository.addTransactions(List.of(expenseTransactionEntity));
+
+            log.debug("!Expense Transaction save successfully, id={}, accountClient={}",
+                    expenseTransactionEntity.getId(), expenseTransactionEntity.getAccountClient());
+        }
+
+        return expenseTransactionEntity;
+    }
+
+    // Returns true if a transaction with the key has already been saved, otherwise the key is claimed
+    // by the current request; Only a key that might have been received before is looked up in the database;
+    // A key being saved by another request is rejected with a retryable status, that request may still fail
+    private boolean isDuplicateTransactionKey(String transactionKey) {
+
+        switch (transactionKeyCache.claim(transactionKey)) {
+            case RECENT -> {
+                transactionMetrics.recordDuplicate(true);
+                return true;
+            }
+            case IN_FLIGHT -> {
+                log.debug("!Expense Transaction with the same key is being saved, transactionKey={}", transactionKey);
+                throw new ResponseStatusException(HttpStatus.CONFLICT, IN_PROGRESS_MESSAGE);
+            }
+            case POSSIBLY_SEEN -> {
+                if (expenseTransactionRepository.existsByTransactionKey(transactionKey)) {
+                    transactionKeyCache.commit(transactionKey);
+                    transactionMetrics.recordDuplicate(false);
+                    return true;
+                }
+                return false;
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+
+    private ExpenseTransactionResultDto createDuplicateResult(int index) {
+        return new ExpenseTransactionResultDto(index, ProcessingStatus.DUPLICATE.name(), null,
+                "Transaction with the same key has already been received");
+    }
+
+    private ExpenseTransactionResultDto createInProgressResult(int index) {
+        return new ExpenseTransactionResultDto(index, ProcessingStatus.IN_PROGRESS.name(), null,
+                IN_PROGRESS_MESSAGE);
+    }
+
+    // Checking received data for valid values, returns a description of the error or null if the data is valid
+    // The data must satisfy the constraints of the columns, a transaction appended to the journal is acknowledged
+    // before it is written to the database
+    protected String validateExpenseTransactionDto(ExpenseTransactionDto expenseTransactionDto) {
+
+        // Checking the Accounts and the Currency Code for the lengths of the columns
+        if (isEmptyOrLonger(expenseTransactionDto.account_from, ACCOUNT_MAX_LENGTH)) {
+            log.error("!Invalid value, Client Account is empty or longer than {} characters, accountClient={}",
+                    ACCOUNT_MAX_LENGTH, expenseTransactionDto.account_from);
+
+            return "Client Account is empty or longer than " + ACCOUNT_MAX_LENGTH + " characters";
+        }
+
+        if (isEmptyOrLonger(expenseTransactionDto.account_to, ACCOUNT_MAX_LENGTH)) {
+            log.error("!Invalid value, Counterparty Account is empty or longer than {} characters, " +
+                    "accountClient={}, accountCounterparty={}", ACCOUNT_MAX_LENGTH,
+                    expenseTransactionDto.account_from, expenseTransactionDto.account_to);
+
+            return "Counterparty Account is empty or longer than " + ACCOUNT_MAX_LENGTH + " characters";
+        }
+
+        if (isEmptyOrLonger(expenseTransactionDto.currency_shortname, CURRENCY_CODE_MAX_LENGTH)) {
+            log.error("!Invalid value, Currency Code is empty or longer than {} characters, " +
+                    "accountClient={}, currencyCode={}", CURRENCY_CODE_MAX_LENGTH,
+                    expenseTransactionDto.account_from, expenseTransactionDto.currency_shortname);
+
+            return "Currency Code is empty or longer than " + CURRENCY_CODE_MAX_LENGTH + " characters";
+        }
+
+        // Checking the Sum for a finite value (NaN and Infinity cannot be saved as a number)
+        if (!Double.isFinite(expenseTransactionDto.sum)) {
+            log.error("!Invalid value, Transaction Sum is not a finite number, accountClient={}, sum={}",
+                    expenseTransactionDto.account_from, expenseTransactionDto.sum);
+
+            return "Transaction Sum is not a finite number";
+        }
+
+        // Checking Expense Category for a valid value
+        String expenseCategory = expenseTransactionDto.expense_category;
+
+        if (expenseCategory == null || !(ExpenseCategory.SERVICE.name().equals(expenseCategory.toUpperCase()) ||
+                ExpenseCategory.PRODUCT.name().equals(expenseCategory.toUpperCase()))) {
+            log.error("!Invalid value, Expense Category not found in the list of valid values, " +
+                      "accountClient={}, expenseCategory={}", expenseTransactionDto.account_from, expenseCategory);
+
+            return "Expense Category not found in the list of valid values";
+        }
+
+        // Checking Date and Time for valid values
+        ZonedDateTime transactionZonedDateTime = expenseTransactionDto.datetime;
+
+        if (transactionZonedDateTime == null) {
+            log.error("!Invalid value, Transaction Date and time is empty, accountClient={}",
+                    expenseTransactionDto.account_from);
+
+            return "Transaction Date and time is empty";
+        }
+
+        LocalDateTime transactionDateTime = transactionZonedDateTime.toLocalDateTime();
+        LocalDateTime currentDateTime = LocalDateTime.now();
+
+        if (!transactionDateTime.isBefore(currentDateTime)) {
+            log.error("!Invalid value, Transaction Date and time is later than the Current Date and time, " +
+                    "accountClient={}, transactionDateTime={}, currentDateTime={}",
+                    expenseTransactionDto.account_from, transactionDateTime.toString(), currentDateTime.toString());
+
+            return "Transaction Date and time is later than the Current Date and time";
+        }
+
+        // Checking the optional Transaction Key for a valid length
+        String transactionKey = expenseTransactionDto.transaction_key;
+
+        if (transactionKey != null && (transactionKey.isEmpty() || transactionKey.length() > TRANSACTION_KEY_MAX_LENGTH)) {
+            log.error("!Invalid value, Transaction Key is empty or longer than {} characters, accountClient={}",
+                    TRANSACTION_KEY_MAX_LENGTH, expenseTransactionDto.account_from);
+
+            return "Transaction Key is empty or longer than " + TRANSACTION_KEY_MAX_LENGTH + " characters";
+        }
+
+        return null;
+    }
+
+    private static boolean isEmptyOrLonger(String value, int maxLength) {
+        return value == null || value.isEmpty() || value.length() > maxLength;
+    }
+
+    private ExpenseTransactionEntity createExpenseTransactionEntity(ExpenseTransactionDto expenseTransactionDto) {
+
+        ExpenseTransactionEntity expenseTransactionEntity = new ExpenseTransactionEntity();
+
+        expenseTransactionEntity.setAccountClient(expenseTransactionDto.account_from);
+        expenseTransactionEntity.setAccountCounterparty(expenseTransactionDto.account_to);
+        expenseTransactionEntity.setCurrencyCode(expenseTransactionDto.currency_shortname);
+        expenseTransactionEntity.setTransactionSum(expenseTransactionDto.sum);
+        expenseTransactionEntity.setExpenseCategory(expenseTransactionDto.expense_category);
+        expenseTransactionEntity.setTransactionDateTime(Timestamp.from(expenseTransactionDto.datetime.toInstant()));
+        expenseTransactionEntity.setTransactionKey(expenseTransactionDto.transaction_key);
+
+        return expenseTransactionEntity;
+    }
+
+    // Month in which the transaction was made, in the time zone of the application
+    private YearMonth getTransactionMonth(ExpenseTransactionDto expenseTransactionDto) {
+        return YearMonth.from(expenseTransactionDto.datetime.withZoneSameInstant(ZoneId.systemDefault()));
+    }
+
+    // Exchange rates in effect on the date of the transaction (in the time zone of the application),
+    // received from the in-memory history without requests to the database
+    private CrossRates getCrossRates(ExpenseTransactionDto expenseTransactionDto) {
+        return getCrossRates(expenseTransactionDto.account_from,
+                expenseTransactionDto.datetime.withZoneSameInstant(ZoneId.systemDefault()).toLocalDate());
+    }
+
+    private CrossRates getCrossRates(String accountClient, LocalDate transactionDate) {
+
+        return exchangeRateCache.getSnapshot(transactionDate)
+                .map(RateSnapshot::crossRates)
+                .orElseGet(() -> {
+                    log.error("!Attention, Exchange Rates were not received, amounts in other currencies are not " +
+                                    "converted, accountClient={}, transactionDate={}", accountClient, transactionDate);
+                    return CrossRates.IDENTITY;
+                });
+    }
+
+    private void addTransactionSum(LimitEvaluationContext limitEvaluationContext,
+                                   ExpenseTransactionDto expenseTransactionDto) {
+
+        // Amounts in an unknown currency are not included in the totals (as in the database query)
+        try {
+            limitEvaluationContext.addTransactionSum(CurrencyType.valueOf(expenseTransactionDto.currency_shortname),
+                    expenseTransactionDto.sum);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            log.error("!Invalid value, received an unknown Currency Code, " +
+                    "accountClient={}, currencyCode={}", expenseTransactionDto.account_from,
+                    expenseTransactionDto.currency_shortname);
+        }
+    }
+
+    // The exchange rates of the date of the transaction are received by the caller from the in-memory history
+    protected LimitEvaluationContext resolveLimitEvaluationContext(String accountClient, String expenseCategory,
+                                                                   YearMonth month, CrossRates crossRates) {
+
+        // Getting the limit from the database (or saving the default limit)
+        AmountLimitEntity amountLimitEntity = getAmountLimit(accountClient, expenseCategory, month);
+
+        // Getting the totals of all transactions for the month for each currency
+        long[] monthlySums = monthlySpendAccumulator.getMonthlySums(accountClient, expenseCategory, month);
+
+        return new LimitEvaluationContext(accountClient, expenseCategory, month,
+                amountLimitEntity, crossRates, monthlySums);
+    }
+
+    protected boolean getLimitExceeded(String accountClient, String expenseCategory, String currencyCode,
+                                     double currentTransactionSum) {
+
+        return getLimitExceeded(resolveLimitEvaluationContext(accountClient, expenseCategory, YearMonth.now(),
+                getCrossRates(accountClient, LocalDate.now())), currencyCode, currentTransactionSum);
+    }
+
+    protected boolean getLimitExceeded(LimitEvaluationContext limitEvaluationContext, String currencyCode,
+                                       double currentTransactionSum) {
+
+        boolean limitExceeded;
+
+        // Only a sample of the evaluations is timed, every decision is counted
+        if (transactionMetrics.isLimitEvaluationSampled()) {
+            long startTime = System.nanoTime();
+            limitExceeded = evaluateLimitExceeded(limitEvaluationContext, currencyCode, currentTransactionSum);
+            transactionMetrics.recordLimitEvaluationTime(System.nanoTime() - startTime);
+        } else {
+            limitExceeded = evaluateLimitExceeded(limitEvaluationContext, currencyCode, currentTransactionSum);
+        }
+
+        transactionMetrics.recordLimitDecision(limitEvaluationContext.getExpenseCategory(), limitExceeded);
+
+        return limitExceeded;
+    }
+
+    private boolean evaluateLimitExceeded(LimitEvaluationContext limitEvaluationContext, String currencyCode,
+                                          double currentTransactionSum) {
+
+        String accountClient = limitEvaluationContext.getAccountClient();
+        String expenseCategory = limitEvaluationContext.getExpenseCategory();
+
+        CurrencyType currencyType;
+        try {
+            currencyType = CurrencyType.valueOf(currencyCode);
+        } catch (IllegalArgumentException e) {
+            // An unknown type of currency was received that is not in the database
+            log.error("!Invalid value, received an unknown Currency Code, " +
+                    "accountClient={}, currencyCode={}", accountClient, currencyCode);
+            return false;
+        }
+
+        AmountLimitEntity amountLimitEntity = limitEvaluationContext.getAmountLimitEntity();
+        if (amountLimitEntity == null) {
             log.error("!Attention, Limit is not set and not received from the Database, " +
                     "accountClient={}, expenseCategory={}", accountClient, expenseCategory);
 
             return false;
         }
 
-        return currentLimit < sumTransactionResult;
+        // Limit amount for the month in minor units
+        CurrencyType limitCurrencyType = CurrencyType.valueOf(amountLimitEntity.getLimitCurrencyCode());
+        long currentLimit = limitCurrencyType.toMinorUnits(amountLimitEntity.getLimitSum());
+
+        // The total amount of all transactions for the month including the current transaction
+        // (the totals of each currency are in minor units) is compared with the limit exactly
+        return limitEvaluationContext.getCrossRates().isLimitExceeded(limitEvaluationContext.getMonthlySums(),
+                currencyType, currencyType.toMinorUnits(currentTransactionSum), limitCurrencyType, currentLimit);
     }
 
-    protected AmountLimitEntity getAmountLimit(String accountClient, String expenseCategory){
+    protected AmountLimitEntity getAmountLimit(String accountClient, String expenseCategory) {
+        return getAmountLimit(accountClient, expenseCategory, YearMonth.now());
+    }
 
-        AmountLimitEntity amountLimitEntity;
+    protected AmountLimitEntity getAmountLimit(String accountClient, String expenseCategory, YearMonth month) {
 
-        // Getting the current month and year
-        LocalDateTime currentDateTime = LocalDateTime.now();
-        int currentMonth = currentDateTime.getMonthValue();
-        int currentYear = currentDateTime.getYear();
+        AmountLimitEntity amountLimitEntity;
 
-         // Getting the last set limit from the database
+        // Getting the last set limit for the month from the database
         Optional<AmountLimitEntity> lastAmountLimitOptional = amountLimitRepository.findAmountLimit(
-                accountClient, expenseCategory, currentMonth, currentYear);
+                accountClient, expenseCategory, month);
 
         // Getting a limit if there is a limit in the database, or saving the default limit
-        amountLimitEntity = lastAmountLimitOptional.orElseGet(() -> saveAmountDefaultLimit(accountClient, expenseCategory));
+        amountLimitEntity = lastAmountLimitOptional.orElseGet(() ->
+                saveAmountDefaultLimit(accountClient, expenseCategory, month));
 
         return amountLimitEntity;
     }
 
     protected AmountLimitEntity saveAmountDefaultLimit(String accountClient, String expenseCategory) {
+        return saveAmountDefaultLimit(accountClient, expenseCategory, YearMonth.now());
+    }
 
-        // Receiving the 1st day of the current month with the start time 00:00:00
-        LocalDateTime firstDayOfMonth = LocalDateTime.now().withDayOfMonth(1).toLocalDate().atStartOfDay();
+    protected AmountLimitEntity saveAmountDefaultLimit(String accountClient, String expenseCategory, YearMonth month) {
+
+        // Receiving the 1st day of the month with the start time 00:00:00
+        LocalDateTime firstDayOfMonth = month.atDay(1).atStartOfDay();
 
         AmountLimitEntity amountLimitEntity  = new AmountLimitEntity();
 
@@ -266,4 +723,7 @@ public class BankServiceImpl implements BankService {
 
         return amountLimitEntity;
     }
+
+    private record LimitGroupKey(String accountClient, String expenseCategory, YearMonth month) {
+    }
 }
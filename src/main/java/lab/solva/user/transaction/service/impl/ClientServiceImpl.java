@@ -3,6 +3,7 @@ package lab.solva.user.transaction.service.impl;
 import lab.solva.user.transaction.dto.AmountLimitDateDto;
 import lab.solva.user.transaction.dto.AmountLimitDto;
 import lab.solva.user.transaction.dto.TransactionExceededLimitDto;
+import lab.solva.user.transaction.dto.TransactionExceededLimitPageDto;
 import lab.solva.user.transaction.enumeration.ExpenseCategory;
 import lab.solva.user.transaction.model.AmountLimitEntity;
 import lab.solva.user.transaction.repository.AmountLimitRepository;
@@ -10,7 +11,10 @@ import lab.solva.user.transaction.repository.ExpenseTransactionRepository;
 import lab.solva.user.transaction.service.ClientService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
@@ -18,13 +22,18 @@ import java.time.ZonedDateTime;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Log4j2
 public class ClientServiceImpl implements ClientService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final AmountLimitRepository amountLimitRepository;
     private final ExpenseTransactionRepository expenseTransactionRepository;
 
@@ -96,36 +105,62 @@ public class ClientServiceImpl implements ClientService {
     public List<TransactionExceededLimitDto> getAllTransactionExceededLimitDtoByAccountClient(String accountFrom) {
 
         // Getting a list of transactions from the database that exceeded the limit
-        List<Object[]> result = expenseTransactionRepository.findAllTransactionWithExceededLimit(accountFrom);
-        List<TransactionExceededLimitDto> transactionExceededLimitDtoList = new ArrayList<>();
-
-        for (Object[] objects : result) {
-            String accountClient = (String) objects[0];
-            String accountCounterparty = (String) objects[1];
-            String currencyCode = (String) objects[2];
-            Double transactionSum = (Double) objects[3];
-            String expenseCategory = (String) objects[4];
-
-            // Convert Timestamp to ZonedDateTime
-            Timestamp transactionDateTimeTimestamp = (Timestamp) objects[5];
-            ZonedDateTime transactionDateTime = transactionDateTimeTimestamp.toInstant().atZone(ZoneId.systemDefault());
-            Double limitSum = (Double) objects[6];
-
-            // Convert Timestamp to ZonedDateTime
-            Timestamp limitDateTimeTimestamp = (Timestamp) objects[7];
-            ZonedDateTime limitDateTime = limitDateTimeTimestamp.toInstant().atZone(ZoneId.systemDefault());
-            String limitCurrencyCode = (String) objects[8];
-
-            TransactionExceededLimitDto transactionExceededLimitDto = new TransactionExceededLimitDto(
-                    accountClient, accountCounterparty, currencyCode, transactionSum,
-                    expenseCategory, transactionDateTime, limitSum, limitDateTime, limitCurrencyCode
-            );
-            transactionExceededLimitDtoList.add(transactionExceededLimitDto);
-        }
+        List<TransactionExceededLimitDto> transactionExceededLimitDtoList =
+                expenseTransactionRepository.findAllTransactionWithExceededLimit(accountFrom);
 
         log.debug("!Getting a list of Transactions from the Database that Exceeded the Limit, " +
                         "accountClient={}", accountFrom);
 
         return transactionExceededLimitDtoList;
     }
+
+    @Override
+    public TransactionExceededLimitPageDto getTransactionExceededLimitPageDtoByAccountClient(String accountFrom,
+            ZonedDateTime afterDateTime, Long afterId, int size) {
+
+        // Limiting the page size so that one request cannot read the whole table
+        Pageable pageable = PageRequest.of(0, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+
+        // Getting a page of transactions from the database that exceeded the limit
+        List<TransactionExceededLimitDto> transactionExceededLimitDtoList = (afterDateTime == null || afterId == null) ?
+                expenseTransactionRepository.findTransactionWithExceededLimitPage(accountFrom, pageable) :
+                expenseTransactionRepository.findTransactionWithExceededLimitPageAfter(accountFrom,
+                        Timestamp.from(afterDateTime.toInstant()), afterId, pageable);
+
+        TransactionExceededLimitPageDto transactionExceededLimitPageDto = new TransactionExceededLimitPageDto();
+        transactionExceededLimitPageDto.transactions = transactionExceededLimitDtoList;
+
+        // The cursor of the next page is the last transaction of a full page
+        if (transactionExceededLimitDtoList.size() == pageable.getPageSize()) {
+            TransactionExceededLimitDto lastDto = transactionExceededLimitDtoList.get(
+                    transactionExceededLimitDtoList.size() - 1);
+
+            transactionExceededLimitPageDto.next_datetime = lastDto.datetime;
+            transactionExceededLimitPageDto.next_id = lastDto.id;
+        }
+
+        log.debug("!Getting a page of Transactions from the Database that Exceeded the Limit, " +
+                        "accountClient={}, afterId={}, size={}", accountFrom, afterId,
+                transactionExceededLimitDtoList.size());
+
+        return transactionExceededLimitPageDto;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllTransactionExceededLimitDtoByAccountClient(String accountFrom,
+            Consumer<TransactionExceededLimitDto> consumer) {
+
+        // Rows are passed on one by one, the whole result is never held in memory
+        long count = 0;
+        try (Stream<TransactionExceededLimitDto> result =
+                     expenseTransactionRepository.streamAllTransactionWithExceededLimit(accountFrom)) {
+            for (Iterator<TransactionExceededLimitDto> iterator = result.iterator(); iterator.hasNext(); count++) {
+                consumer.accept(iterator.next());
+            }
+        }
+
+        log.debug("!Streaming Transactions from the Database that Exceeded the Limit, " +
+                "accountClient={}, count={}", accountFrom, count);
+    }
 }
@@ -0,0 +1,367 @@
+package lab.solva.user.transaction.service.impl;
+
+import lab.solva.user.transaction.cache.ExchangeRateCache;
+import lab.solva.user.transaction.client.ExchangeRateXmlParser;
+import lab.solva.user.transaction.client.NationalBankClient;
+import lab.solva.user.transaction.dto.ExchangeInfoDto;
+import lab.solva.user.transaction.dto.ExchangeRateBackfillDto;
+import lab.solva.user.transaction.dto.ExchangeRateBackfillJobDto;
+import lab.solva.user.transaction.dto.ExchangeRateDto;
+import lab.solva.user.transaction.enumeration.BackfillJobStatus;
+import lab.solva.user.transaction.model.ExchangeInfoEntity;
+import lab.solva.user.transaction.repository.ExchangeInfoRepository;
+import lab.solva.user.transaction.service.ExchangeRateBackfillService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.xml.stream.XMLStreamException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class ExchangeRateBackfillServiceImpl implements ExchangeRateBackfillService {
+
+    // About ten years of daily rates
+    private static final int MAX_BACKFILL_DAYS = 3660;
+
+    // Number of dates saved in one transaction, the rows are written with batched inserts
+    private static final int SAVE_CHUNK_SIZE = 50;
+
+    private static final String CSV_RESOURCE = "import:csv";
+
+    // Number of the last backfill jobs whose status can be requested
+    private static final int MAX_BACKFILL_JOBS = 100;
+
+    private final ExchangeInfoRepository exchangeInfoRepository;
+
+    private final NationalBankClient nationalBankClient;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ExchangeRateCache exchangeRateCache;
+
+    private final ExchangeRateXmlParser exchangeRateXmlParser = new ExchangeRateXmlParser();
+
+    // A backfill takes minutes for several years of dates, it is performed outside the request thread
+    private final ExecutorService backfillExecutor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "exchange-rate-backfill"));
+
+    // Statuses of the backfill jobs by id, the oldest ones are removed
+    private final Map<String, ExchangeRateBackfillJobDto> backfillJobs = Collections.synchronizedMap(
+            new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ExchangeRateBackfillJobDto> eldest) {
+                    return size() > MAX_BACKFILL_JOBS;
+                }
+            });
+
+    // Number of requests to the external service performed at the same time
+    @Value("${transaction.exchange-rate.backfill.concurrency:4}")
+    private int concurrency;
+
+    @PreDestroy
+    public void stop() {
+        backfillExecutor.shutdownNow();
+    }
+
+    @Override
+    public ExchangeRateBackfillJobDto startBackfillExchangeRates(LocalDate fromDate, LocalDate toDate) {
+
+        // An invalid range is rejected before the job is created
+        validateBackfillRange(fromDate, toDate);
+
+        String jobId = UUID.randomUUID().toString();
+        ExchangeRateBackfillJobDto exchangeRateBackfillJobDto =
+                updateBackfillJob(jobId, BackfillJobStatus.PENDING, fromDate, toDate, null, null);
+
+        backfillExecutor.execute(() -> {
+            updateBackfillJob(jobId, BackfillJobStatus.RUNNING, fromDate, toDate, null, null);
+            try {
+                ExchangeRateBackfillDto exchangeRateBackfillDto = backfillExchangeRates(fromDate, toDate);
+                updateBackfillJob(jobId, BackfillJobStatus.COMPLETED, fromDate, toDate, exchangeRateBackfillDto, null);
+
+            } catch (RuntimeException e) {
+                log.error("!Attention, Exchange Rates backfill failed, jobId={}, fromDate={}, toDate={}",
+                        jobId, fromDate, toDate, e);
+                updateBackfillJob(jobId, BackfillJobStatus.FAILED, fromDate, toDate, null, e.toString());
+            }
+        });
+
+        log.debug("!Exchange Rates backfill started, jobId={}, fromDate={}, toDate={}", jobId, fromDate, toDate);
+
+        return exchangeRateBackfillJobDto;
+    }
+
+    @Override
+    public Optional<ExchangeRateBackfillJobDto> getBackfillJob(String jobId) {
+        return Optional.ofNullable(backfillJobs.get(jobId));
+    }
+
+    @Override
+    public ExchangeRateBackfillDto backfillExchangeRates(LocalDate fromDate, LocalDate toDate) {
+
+        validateBackfillRange(fromDate, toDate);
+
+        ExchangeRateBackfillDto exchangeRateBackfillDto = new ExchangeRateBackfillDto();
+
+        Set<LocalDate> storedDates = new HashSet<>(exchangeInfoRepository.findRequestDatesBetween(fromDate, toDate));
+
+        List<LocalDate> requestDates = new ArrayList<>();
+        for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+            exchangeRateBackfillDto.requested_days++;
+
+            if (storedDates.contains(date)) {
+                exchangeRateBackfillDto.skipped_days++;
+            } else {
+                requestDates.add(date);
+            }
+        }
+
+        if (requestDates.isEmpty()) {
+            return exchangeRateBackfillDto;
+        }
+
+        // The number of requests at the same time is limited by the size of the pool
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(concurrency, requestDates.size()));
+
+        try {
+            List<Future<ExchangeInfoDto>> futures = new ArrayList<>();
+            for (LocalDate requestDate : requestDates) {
+                futures.add(executorService.submit(() -> nationalBankClient.fetchBackfillRates(requestDate)));
+            }
+
+            // The results are saved in the order of dates as soon as a chunk is received
+            List<ExchangeInfoDto> exchangeInfoDtoList = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                ExchangeInfoDto exchangeInfoDto = getResult(futures.get(i));
+
+                if (exchangeInfoDto == null || exchangeInfoDto.item.isEmpty()) {
+                    exchangeRateBackfillDto.failed_days++;
+                    exchangeRateBackfillDto.failed_dates.add(requestDates.get(i));
+                    continue;
+                }
+
+                // The rates are stored for the requested date, as the external service returns them
+                exchangeInfoDto.date = requestDates.get(i);
+                exchangeInfoDtoList.add(exchangeInfoDto);
+
+                if (exchangeInfoDtoList.size() == SAVE_CHUNK_SIZE) {
+                    saveExchangeInfoDtoList(exchangeInfoDtoList, exchangeRateBackfillDto);
+                    exchangeInfoDtoList.clear();
+                }
+            }
+            saveExchangeInfoDtoList(exchangeInfoDtoList, exchangeRateBackfillDto);
+
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        log.debug("!Exchange Rates backfill completed, fromDate={}, toDate={}, savedDays={}, failedDays={}",
+                fromDate, toDate, exchangeRateBackfillDto.saved_days, exchangeRateBackfillDto.failed_days);
+
+        return exchangeRateBackfillDto;
+    }
+
+    private static void validateBackfillRange(LocalDate fromDate, LocalDate toDate) {
+
+        if (fromDate.isAfter(toDate) || toDate.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("The range of dates must not be empty and must end no later than today");
+        }
+        if (ChronoUnit.DAYS.between(fromDate, toDate) >= MAX_BACKFILL_DAYS) {
+            throw new IllegalArgumentException("The range of dates must not exceed " + MAX_BACKFILL_DAYS + " days");
+        }
+    }
+
+    // The status is replaced with a new object, a requested status is not changed while it is being serialized
+    private ExchangeRateBackfillJobDto updateBackfillJob(String jobId, BackfillJobStatus status,
+                                                         LocalDate fromDate, LocalDate toDate,
+                                                         ExchangeRateBackfillDto result, String message) {
+
+        ExchangeRateBackfillJobDto exchangeRateBackfillJobDto =
+                new ExchangeRateBackfillJobDto(jobId, status.name(), fromDate, toDate, result, message);
+        backfillJobs.put(jobId, exchangeRateBackfillJobDto);
+
+        return exchangeRateBackfillJobDto;
+    }
+
+    @Override
+    public ExchangeRateBackfillDto importExchangeRatesXml(InputStream inputStream) throws XMLStreamException {
+
+        ExchangeRateBackfillDto exchangeRateBackfillDto = new ExchangeRateBackfillDto();
+
+        ExchangeInfoDto exchangeInfoDto = exchangeRateXmlParser.parse(inputStream);
+        if (exchangeInfoDto == null) {
+            throw new IllegalArgumentException("The document does not contain the link or the date of the rates");
+        }
+
+        importExchangeInfoDtoList(List.of(exchangeInfoDto), exchangeRateBackfillDto);
+
+        log.debug("!Exchange Rates imported from XML, requestDate={}", exchangeInfoDto.date);
+
+        return exchangeRateBackfillDto;
+    }
+
+    @Override
+    public ExchangeRateBackfillDto importExchangeRatesCsv(InputStream inputStream) throws IOException {
+
+        ExchangeRateBackfillDto exchangeRateBackfillDto = new ExchangeRateBackfillDto();
+
+        // Rates grouped by date in the order of dates
+        Map<LocalDate, ExchangeInfoDto> exchangeInfoDtoMap = new TreeMap<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+
+                // Empty lines and the header are skipped
+                if (line.isBlank() || (lineNumber == 1 && line.toLowerCase().startsWith("date"))) {
+                    continue;
+                }
+
+                String[] values = line.split(",", -1);
+                if (values.length != 4) {
+                    throw new IllegalArgumentException("Invalid CSV line " + lineNumber +
+                            ", expected date,currency_code,currency_name,exchange_rate");
+                }
+
+                String currencyCode = values[1].trim();
+                if (!ExchangeRateXmlParser.isRequiredCurrency(currencyCode)) {
+                    continue;
+                }
+
+                try {
+                    LocalDate requestDate = LocalDate.parse(values[0].trim());
+                    double exchangeRate = Double.parseDouble(values[3].trim());
+
+                    exchangeInfoDtoMap.computeIfAbsent(requestDate,
+                                    date -> new ExchangeInfoDto(CSV_RESOURCE, date, new ArrayList<>()))
+                            .item.add(new ExchangeRateDto(values[2].trim(), currencyCode, exchangeRate));
+
+                } catch (DateTimeParseException | NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid CSV line " + lineNumber + ", " + e.getMessage());
+                }
+            }
+        }
+
+        importExchangeInfoDtoList(new ArrayList<>(exchangeInfoDtoMap.values()), exchangeRateBackfillDto);
+
+        log.debug("!Exchange Rates imported from CSV, days={}, savedDays={}",
+                exchangeRateBackfillDto.requested_days, exchangeRateBackfillDto.saved_days);
+
+        return exchangeRateBackfillDto;
+    }
+
+    // Saving the rates of the dates that are not stored yet, in chunks
+    private void importExchangeInfoDtoList(List<ExchangeInfoDto> exchangeInfoDtoList,
+                                           ExchangeRateBackfillDto exchangeRateBackfillDto) {
+
+        exchangeRateBackfillDto.requested_days = exchangeInfoDtoList.size();
+        if (exchangeInfoDtoList.isEmpty()) {
+            return;
+        }
+
+        LocalDate fromDate = exchangeInfoDtoList.stream().map(dto -> dto.date).min(LocalDate::compareTo).orElseThrow();
+        LocalDate toDate = exchangeInfoDtoList.stream().map(dto -> dto.date).max(LocalDate::compareTo).orElseThrow();
+        Set<LocalDate> storedDates = exchangeInfoRepository.findRequestDatesBetween(fromDate, toDate);
+
+        List<ExchangeInfoDto> chunk = new ArrayList<>();
+        for (ExchangeInfoDto exchangeInfoDto : exchangeInfoDtoList) {
+            if (storedDates.contains(exchangeInfoDto.date)) {
+                exchangeRateBackfillDto.skipped_days++;
+                continue;
+            }
+
+            chunk.add(exchangeInfoDto);
+            if (chunk.size() == SAVE_CHUNK_SIZE) {
+                saveExchangeInfoDtoList(chunk, exchangeRateBackfillDto);
+                chunk.clear();
+            }
+        }
+        saveExchangeInfoDtoList(chunk, exchangeRateBackfillDto);
+    }
+
+    private void saveExchangeInfoDtoList(List<ExchangeInfoDto> exchangeInfoDtoList,
+                                         ExchangeRateBackfillDto exchangeRateBackfillDto) {
+
+        if (exchangeInfoDtoList.isEmpty()) {
+            return;
+        }
+
+        List<ExchangeInfoEntity> exchangeInfoEntityList = exchangeInfoDtoList.stream()
+                .map(ExchangeServiceImpl::createExchangeInfoEntity)
+                .toList();
+
+        List<ExchangeInfoEntity> savedExchangeInfoEntityList = exchangeInfoEntityList;
+        try {
+            // The rates of the chunk are saved in one transaction with batched inserts
+            transactionTemplate.executeWithoutResult(status -> exchangeInfoRepository.saveAll(exchangeInfoEntityList));
+
+        } catch (DataIntegrityViolationException e) {
+            // A date of the chunk was saved at the same moment by the refresh, the dates are saved one at a time
+            // and the stored ones are skipped
+            savedExchangeInfoEntityList = saveExchangeInfoDtoListByDate(exchangeInfoDtoList, exchangeRateBackfillDto);
+        }
+
+        // The saved rates are used for the transactions of these dates without restarting the application
+        exchangeRateCache.addSnapshots(savedExchangeInfoEntityList);
+
+        exchangeRateBackfillDto.saved_days += savedExchangeInfoEntityList.size();
+    }
+
+    // Returns the saved rates, the dates already stored are counted as skipped
+    private List<ExchangeInfoEntity> saveExchangeInfoDtoListByDate(List<ExchangeInfoDto> exchangeInfoDtoList,
+                                                                   ExchangeRateBackfillDto exchangeRateBackfillDto) {
+
+        List<ExchangeInfoEntity> savedExchangeInfoEntityList = new ArrayList<>();
+
+        for (ExchangeInfoDto exchangeInfoDto : exchangeInfoDtoList) {
+            ExchangeInfoEntity exchangeInfoEntity = ExchangeServiceImpl.createExchangeInfoEntity(exchangeInfoDto);
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> exchangeInfoRepository.save(exchangeInfoEntity));
+                savedExchangeInfoEntityList.add(exchangeInfoEntity);
+
+            } catch (DataIntegrityViolationException e) {
+                log.debug("!Exchange Rates are already stored, requestDate={}", exchangeInfoDto.date);
+                exchangeRateBackfillDto.skipped_days++;
+            }
+        }
+
+        return savedExchangeInfoEntityList;
+    }
+
+    private ExchangeInfoDto getResult(Future<ExchangeInfoDto> future) {
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            log.error("!Attention, Exchange Rates were not received from the external service, error={}",
+                    e.getCause().toString());
+            return null;
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package lab.solva.user.transaction.service.impl;
 
+import lab.solva.user.transaction.client.NationalBankClient;
 import lab.solva.user.transaction.dto.ExchangeInfoDto;
 import lab.solva.user.transaction.dto.ExchangeRateDto;
-import lab.solva.user.transaction.enumeration.CurrencyType;
 import lab.solva.user.transaction.model.ExchangeInfoEntity;
 import lab.solva.user.transaction.model.ExchangeRateEntity;
 import lab.solva.user.transaction.repository.ExchangeInfoRepository;
@@ -10,20 +10,10 @@ import lab.solva.user.transaction.repository.ExchangeRateRepository;
 import lab.solva.user.transaction.service.ExchangeService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.springframework.http.*;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import java.io.StringReader;
-import java.nio.charset.StandardCharsets;
+
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 @Service
@@ -35,6 +25,8 @@ public class ExchangeServiceImpl implements ExchangeService {
 
     private final ExchangeRateRepository exchangeRateRepository;
 
+    private final NationalBankClient nationalBankClient;
+
     @Override
     public Set<ExchangeRateEntity> gettingRates() {
 
@@ -88,147 +80,53 @@ public class ExchangeServiceImpl implements ExchangeService {
 
     private boolean requestExchange(LocalDate currentDate) {
 
-        // Convert to dd.MM.yyyy format
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
-        String formattedDate = currentDate.format(formatter);
-
-        String resourceUrl = "https://nationalbank.kz/rss/get_rates.cfm?fdate=" + formattedDate;
-        String xmlData = fetchXmlData(resourceUrl);
-
-        if (xmlData == null) {
-            return false;
-        }
-
-        try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            InputSource inputSource = new InputSource(new StringReader(xmlData));
-            Document document = builder.parse(inputSource);
+        // The rates are parsed while the response is read, only the required currencies are included
+        ExchangeInfoDto exchangeInfoDto = nationalBankClient.fetchRates(currentDate);
+        List<ExchangeRateDto> exchangeRateDtoList = exchangeInfoDto != null ? exchangeInfoDto.item : List.of();
 
-            NodeList item = document.getElementsByTagName("item");
-            List<ExchangeRateDto> exchangeRateDtoList = parseExchangeRates(item);
-
-            Element rootElement = document.getDocumentElement();
-            ExchangeInfoDto exchangeInfoDto = parseExchangeInfo(rootElement, exchangeRateDtoList);
-
-            // Saving exchangeInfoDTO and exchangeRateDtoList objects in the database
-            if (exchangeInfoDto != null && exchangeRateDtoList.size() > 0) {
-                ExchangeInfoEntity exchangeInfoEntity = new ExchangeInfoEntity();
-                exchangeInfoEntity.setResource(exchangeInfoDto.link);
-                exchangeInfoEntity.setRequestDate(exchangeInfoDto.date);
-
-                Set<ExchangeRateEntity> exchangeRateEntitySet = new HashSet<>();
-
-                for (ExchangeRateDto exchangeRateDto : exchangeRateDtoList) {
-                    ExchangeRateEntity exchangeRateEntity = new ExchangeRateEntity();
-                    exchangeRateEntity.setCurrencyName(exchangeRateDto.fullname);
-                    exchangeRateEntity.setCurrencyCode(exchangeRateDto.title);
-                    exchangeRateEntity.setExchangeRate(exchangeRateDto.description);
-
-                    // Saving a reference to a parent entity
-                    exchangeRateEntity.setExchangeInfoEntity(exchangeInfoEntity);
-                    exchangeRateEntitySet.add(exchangeRateEntity);
-                }
-                exchangeInfoEntity.setExchangeRateEntities(exchangeRateEntitySet);
+        // Saving exchangeInfoDTO and exchangeRateDtoList objects in the database
+        if (exchangeInfoDto != null && exchangeRateDtoList.size() > 0) {
+            ExchangeInfoEntity exchangeInfoEntity = createExchangeInfoEntity(exchangeInfoDto);
 
+            try {
                 exchangeInfoRepository.save(exchangeInfoEntity);
-
-                log.debug("!Exchange Rates save successfully, id={}, currentDate={}",
-                        exchangeInfoEntity.getId(), currentDate);
-
+            } catch (DataIntegrityViolationException e) {
+                // The rates of the date were saved at the same moment by the backfill, they are read from the database
+                log.debug("!Exchange Rates are already stored, currentDate={}", currentDate);
                 return true;
             }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            log.error("!Attention, there is a problem with the XML parser, required Tags were not found or the XML Structure is broken");
-        }
-
-        return false;
-    }
-
-    private String fetchXmlData(String resourceUrl) {
-
-        RestTemplate restTemplate = new RestTemplate();
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setAccept(Collections.singletonList(MediaType.APPLICATION_XML));
-        HttpEntity<String> entity = new HttpEntity<>(headers);
-
-        ResponseEntity<byte[]> response = restTemplate.exchange(resourceUrl, HttpMethod.GET, entity, byte[].class);
-
-        if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-            try {
-
-                return new String(response.getBody(), StandardCharsets.UTF_8);
+            log.debug("!Exchange Rates save successfully, id={}, currentDate={}",
+                    exchangeInfoEntity.getId(), currentDate);
 
-            } catch (Exception e) {
-                e.printStackTrace();
-                log.error("!Attention, there is a problem with the XML parser, failed to convert Request result to string");
-            }
+            return true;
         }
 
-        return null;
+        return false;
     }
 
-    private List<ExchangeRateDto> parseExchangeRates(NodeList item) {
-
-        List<ExchangeRateDto> exchangeRateDtoList = new ArrayList<>();
-
-        try {
-            for (int i = 0; i < item.getLength(); i++) {
-                Element itemElement = (Element) item.item(i);
-                String title = getTextContent(itemElement, "title");
-
-                // Selection of required currencies for storing them in the database
-                if (CurrencyType.USD.name().equals(title)||
-                    CurrencyType.EUR.name().equals(title)||
-                    CurrencyType.RUB.name().equals(title)) {
-                    String fullname = getTextContent(itemElement, "fullname");
-                    double description = Double.parseDouble(Objects.requireNonNull(getTextContent(itemElement, "description")));
-
-                    ExchangeRateDto exchangeRateDto = new ExchangeRateDto(fullname, title, description);
-                    exchangeRateDtoList.add(exchangeRateDto);
-                }
-            }
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            log.error("!Attention, there is a problem with the XML parser, required Tags not found");
-        }
-
-        return exchangeRateDtoList;
-    }
+    // Method for create object of ExchangeInfoEntity with the exchange rates of exchangeInfoDto
+    static ExchangeInfoEntity createExchangeInfoEntity(ExchangeInfoDto exchangeInfoDto) {
 
-    private ExchangeInfoDto parseExchangeInfo(Element rootElement, List<ExchangeRateDto> item) {
+        ExchangeInfoEntity exchangeInfoEntity = new ExchangeInfoEntity();
+        exchangeInfoEntity.setResource(exchangeInfoDto.link);
+        exchangeInfoEntity.setRequestDate(exchangeInfoDto.date);
 
-        try {
-            String link = getTextContent(rootElement, "link");
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
-            LocalDate date = LocalDate.parse(Objects.requireNonNull(getTextContent(rootElement, "date")), formatter);
+        Set<ExchangeRateEntity> exchangeRateEntitySet = new HashSet<>();
 
-            return new ExchangeInfoDto(link, date, item);
+        for (ExchangeRateDto exchangeRateDto : exchangeInfoDto.item) {
+            ExchangeRateEntity exchangeRateEntity = new ExchangeRateEntity();
+            exchangeRateEntity.setCurrencyName(exchangeRateDto.fullname);
+            exchangeRateEntity.setCurrencyCode(exchangeRateDto.title);
+            exchangeRateEntity.setExchangeRate(exchangeRateDto.description);
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            log.error("!Attention, there is a problem with the XML parser, the necessary Tags were not found or their Format is broken");
+            // Saving a reference to a parent entity
+            exchangeRateEntity.setExchangeInfoEntity(exchangeInfoEntity);
+            exchangeRateEntitySet.add(exchangeRateEntity);
         }
+        exchangeInfoEntity.setExchangeRateEntities(exchangeRateEntitySet);
 
-        return null;
-    }
-
-    private String getTextContent(Element parentElement, String tagName) {
-
-        NodeList nodeList = parentElement.getElementsByTagName(tagName);
-
-        if (nodeList.getLength() > 0) {
-
-            return nodeList.item(0).getTextContent();
-
-        } else {
-
-            return null;
-        }
+        return exchangeInfoEntity;
     }
 
     @Override
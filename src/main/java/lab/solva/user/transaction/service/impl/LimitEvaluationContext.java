@@ -0,0 +1,39 @@
+package lab.solva.user.transaction.service.impl;
+
+import lab.solva.user.transaction.cache.CrossRates;
+import lab.solva.user.transaction.enumeration.CurrencyType;
+import lab.solva.user.transaction.model.AmountLimitEntity;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.YearMonth;
+
+// Everything needed to evaluate the limit of an account and expense category for a month,
+// resolved once per request and passed through instead of being queried repeatedly
+@Getter
+@AllArgsConstructor
+public class LimitEvaluationContext {
+
+    private final String accountClient;
+
+    private final String expenseCategory;
+
+    private final YearMonth month;
+
+    // The limit of the month, also used as a reference to the parent Entity of the saved transaction
+    private final AmountLimitEntity amountLimitEntity;
+
+    // Conversion of all currencies at the exchange rates of the transaction date,
+    // replaced before the evaluation of a transaction of another date
+    @Setter
+    private CrossRates crossRates;
+
+    // Totals of all transactions for the month in minor units, indexed by CurrencyType.ordinal()
+    private final long[] monthlySums;
+
+    // Adding an evaluated transaction to the totals, so that the next transaction in this context takes it into account
+    public void addTransactionSum(CurrencyType currencyType, double transactionSum) {
+        monthlySums[currencyType.ordinal()] += currencyType.toMinorUnits(transactionSum);
+    }
+}
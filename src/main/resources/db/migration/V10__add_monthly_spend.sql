@@ -0,0 +1,23 @@
+-- Totals of the transactions of each account, expense category, month and currency,
+-- updated in the same database transaction as the transactions are saved
+CREATE TABLE IF NOT EXISTS t_monthly_spend (
+    account_client VARCHAR(10) NOT NULL,
+    expense_category VARCHAR(10) NOT NULL,
+    spend_month DATE NOT NULL,
+    currency_code VARCHAR(3) NOT NULL,
+    total NUMERIC(19, 2) NOT NULL,
+    PRIMARY KEY (account_client, expense_category, spend_month, currency_code)
+);
+
+ALTER TABLE t_monthly_spend OWNER TO postgres;
+
+-- Totals of the saved transactions, each amount is rounded to minor units;
+-- The month is taken in the time zone of the database session, which must be the time zone of the application
+INSERT INTO t_monthly_spend (account_client, expense_category, spend_month, currency_code, total)
+SELECT account_client,
+       expense_category,
+       CAST(date_trunc('month', transaction_date) AS DATE),
+       currency_code,
+       SUM(ROUND(transaction_sum, 2))
+FROM t_expense_transaction
+GROUP BY account_client, expense_category, CAST(date_trunc('month', transaction_date) AS DATE), currency_code;
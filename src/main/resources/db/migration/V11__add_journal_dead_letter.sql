@@ -0,0 +1,10 @@
+-- Records of the transaction journal rejected by the database, moved aside so that the following records are written
+CREATE TABLE IF NOT EXISTS t_journal_dead_letter (
+    journal_sequence BIGINT PRIMARY KEY NOT NULL,
+    journal_name VARCHAR(50) NOT NULL,
+    journal_record TEXT NOT NULL,
+    error_message TEXT,
+    failed_date TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+ALTER TABLE t_journal_dead_letter OWNER TO postgres;
@@ -0,0 +1,15 @@
+-- Only the first stored rates of a date are kept, the rates saved again for the same date are removed
+DELETE FROM t_exchange_rate
+WHERE exchange_info_id IN (
+    SELECT id FROM t_exchange_info info
+    WHERE EXISTS (SELECT 1 FROM t_exchange_info earlier
+                  WHERE earlier.request_date = info.request_date AND earlier.id < info.id)
+);
+
+DELETE FROM t_exchange_info info
+WHERE EXISTS (SELECT 1 FROM t_exchange_info earlier
+              WHERE earlier.request_date = info.request_date AND earlier.id < info.id);
+
+-- The rates of a date are stored once, the refresh and the backfill saving the same date do not both succeed
+CREATE UNIQUE INDEX IF NOT EXISTS t_exchange_info_request_date_idx
+    ON t_exchange_info (request_date);
@@ -0,0 +1,6 @@
+-- Indexes for monthly lookups by account and expense category within a date range
+CREATE INDEX IF NOT EXISTS t_expense_transaction_account_category_date_idx
+    ON t_expense_transaction (account_client, expense_category, transaction_date);
+
+CREATE INDEX IF NOT EXISTS t_amount_limit_account_category_date_idx
+    ON t_amount_limit (account_client, expense_category, limit_date);
@@ -0,0 +1,9 @@
+-- Ids are allocated by the application in blocks of 50 (pooled optimizer),
+-- the increment of the sequences must match the allocation size
+ALTER SEQUENCE t_amount_limit_id_seq INCREMENT BY 50;
+
+ALTER SEQUENCE t_expense_transaction_id_seq INCREMENT BY 50;
+
+ALTER SEQUENCE t_exchange_info_id_seq INCREMENT BY 50;
+
+ALTER SEQUENCE t_exchange_rate_id_seq INCREMENT BY 50;
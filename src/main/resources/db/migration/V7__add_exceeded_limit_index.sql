@@ -0,0 +1,4 @@
+-- Index for reading transactions that exceeded the limit page by page in the order of date and time, id
+CREATE INDEX IF NOT EXISTS t_expense_transaction_exceeded_limit_idx
+    ON t_expense_transaction (account_client, transaction_date, id)
+    WHERE limit_exceeded = true;
@@ -0,0 +1,7 @@
+-- Sequence of the last record of the transaction journal written to t_expense_transaction
+CREATE TABLE IF NOT EXISTS t_journal_checkpoint (
+    journal_name VARCHAR(50) PRIMARY KEY NOT NULL,
+    last_sequence BIGINT NOT NULL
+);
+
+ALTER TABLE t_journal_checkpoint OWNER TO postgres;
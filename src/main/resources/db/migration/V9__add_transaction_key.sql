@@ -0,0 +1,7 @@
+-- Optional idempotency key of a transaction assigned by the client
+ALTER TABLE t_expense_transaction ADD COLUMN IF NOT EXISTS transaction_key VARCHAR(64);
+
+-- A transaction received again with the same key is not saved twice, transactions without a key are not indexed
+CREATE UNIQUE INDEX IF NOT EXISTS t_expense_transaction_key_idx
+    ON t_expense_transaction (transaction_key)
+    WHERE transaction_key IS NOT NULL;
@@ -0,0 +1,50 @@
+package lab.solva.user.transaction.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+public class BloomFilterTest {
+
+    @Test
+    public void testMightContain_AddedKeys() {
+
+        /* Arrange */
+        BloomFilter bloomFilter = new BloomFilter(10_000, 0.01);
+
+        /* Act */
+        for (int i = 0; i < 10_000; i++) {
+            bloomFilter.add("key-" + i);
+        }
+
+        /* Assert */
+        // An added key is always found
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(bloomFilter.mightContain("key-" + i));
+        }
+    }
+
+    @Test
+    public void testMightContain_FalsePositiveRate() {
+
+        /* Arrange */
+        BloomFilter bloomFilter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            bloomFilter.add("key-" + i);
+        }
+
+        /* Act */
+        int falsePositiveCount = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (bloomFilter.mightContain("other-key-" + i)) {
+                falsePositiveCount++;
+            }
+        }
+
+        /* Assert */
+        // The rate at the expected number of keys is about 1%
+        assertTrue(falsePositiveCount < 2_000, "Expected about 1000 false positives, but was " + falsePositiveCount);
+        assertEquals(7, bloomFilter.getHashCount());
+    }
+}
@@ -0,0 +1,79 @@
+package lab.solva.user.transaction.cache;
+
+import lab.solva.user.transaction.enumeration.CurrencyType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+public class CrossRatesTest {
+
+    private static final Map<String, Double> EXCHANGE_RATES = Map.of("USD", 449.89, "EUR", 487.78, "RUB", 5.02);
+
+    @Test
+    public void testIsLimitExceeded_ExactComparison() {
+
+        /* Arrange */
+        CrossRates crossRates = CrossRates.of(EXCHANGE_RATES);
+        long[] sums = new long[CurrencyType.values().length];
+        sums[CurrencyType.KZT.ordinal()] = 10L;
+        sums[CurrencyType.USD.ordinal()] = 100L;
+
+        /* Act */
+        // 0.10 KZT + 1.00 USD + 0.20 KZT is exactly 450.19 KZT
+        boolean limitReached = crossRates.isLimitExceeded(sums, CurrencyType.KZT, 20L, CurrencyType.KZT, 45019L);
+        boolean limitExceeded = crossRates.isLimitExceeded(sums, CurrencyType.KZT, 21L, CurrencyType.KZT, 45019L);
+
+        // 1.00 USD + 0.10 KZT + 0.20 KZT in USD, the limit of 1.00 USD is exceeded by 0.30 KZT
+        boolean limitExceededUSD = crossRates.isLimitExceeded(sums, CurrencyType.KZT, 20L, CurrencyType.USD, 100L);
+
+        /* Assert */
+        assertFalse(limitReached);
+        assertTrue(limitExceeded);
+        assertTrue(limitExceededUSD);
+    }
+
+    @Test
+    public void testIsLimitExceeded_CurrencyWithoutRateIsNotConverted() {
+
+        /* Arrange */
+        CrossRates crossRates = CrossRates.of(Map.of("USD", 449.89));
+        long[] sums = new long[CurrencyType.values().length];
+        sums[CurrencyType.USD.ordinal()] = 10000L;
+        sums[CurrencyType.RUB.ordinal()] = 100000L;
+
+        /* Act */
+        // Without the RUB rate only amounts in the limit currency itself are taken into account
+        boolean limitExceededUSD = crossRates.isLimitExceeded(sums, CurrencyType.RUB, 100L, CurrencyType.USD, 10000L);
+        boolean limitReachedRUB = crossRates.isLimitExceeded(sums, CurrencyType.USD, 100L, CurrencyType.RUB, 100000L);
+        boolean limitExceededRUB = crossRates.isLimitExceeded(sums, CurrencyType.RUB, 1L, CurrencyType.RUB, 100000L);
+
+        /* Assert */
+        assertFalse(limitExceededUSD);
+        assertFalse(limitReachedRUB);
+        assertTrue(limitExceededRUB);
+        assertFalse(CrossRates.IDENTITY.isLimitExceeded(sums, CurrencyType.EUR, 100L, CurrencyType.EUR, 100L));
+    }
+
+    @Test
+    public void testIsLimitExceeded_LargeAmounts() {
+
+        /* Arrange */
+        CrossRates crossRates = CrossRates.of(EXCHANGE_RATES);
+        long[] sums = new long[CurrencyType.values().length];
+        sums[CurrencyType.USD.ordinal()] = Long.MAX_VALUE / 2;
+
+        /* Act */
+        // The products do not fit into long and are compared as BigInteger
+        boolean limitExceeded = crossRates.isLimitExceeded(sums, CurrencyType.EUR, 0L, CurrencyType.KZT,
+                Long.MAX_VALUE);
+        boolean limitNotExceeded = crossRates.isLimitExceeded(sums, CurrencyType.EUR, 0L, CurrencyType.USD,
+                Long.MAX_VALUE);
+
+        /* Assert */
+        assertTrue(limitExceeded);
+        assertFalse(limitNotExceeded);
+    }
+}
@@ -0,0 +1,134 @@
+package lab.solva.user.transaction.cache;
+
+import lab.solva.user.transaction.dto.ExchangeRateCacheDto;
+import lab.solva.user.transaction.model.ExchangeInfoEntity;
+import lab.solva.user.transaction.model.ExchangeRateEntity;
+import lab.solva.user.transaction.repository.ExchangeInfoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+@Transactional
+@SuppressWarnings("unused")
+public class ExchangeRateCacheTest {
+
+    @Autowired
+    private ExchangeInfoRepository exchangeInfoRepository;
+
+    @Autowired
+    private ExchangeRateCache exchangeRateCache;
+
+    @Test
+    public void testRefresh_CurrentDateRates() {
+
+        /* Arrange */
+        LocalDate currentDate = LocalDate.now();
+        createSampleExchangeRates(currentDate, 449.89);
+
+        long hitCount = exchangeRateCache.getStatistics().hit_count;
+
+        /* Act */
+        exchangeRateCache.refresh();
+        Optional<RateSnapshot> rateSnapshot = exchangeRateCache.getSnapshot();
+
+        /* Assert */
+        assertTrue(rateSnapshot.isPresent());
+        assertEquals(currentDate, rateSnapshot.get().requestDate());
+        assertEquals(449.89, rateSnapshot.get().exchangeRates().get("USD"));
+
+        ExchangeRateCacheDto exchangeRateCacheDto = exchangeRateCache.getStatistics();
+        assertEquals(currentDate, exchangeRateCacheDto.date);
+        assertEquals(hitCount + 1, exchangeRateCacheDto.hit_count);
+    }
+
+    @Test
+    public void testGetSnapshot_IsImmutable() {
+
+        /* Arrange */
+        createSampleExchangeRates(LocalDate.now(), 449.89);
+        exchangeRateCache.refresh();
+
+        /* Act */
+        Map<String, Double> exchangeRates = exchangeRateCache.getSnapshot().orElseThrow().exchangeRates();
+
+        /* Assert */
+        assertThrows(UnsupportedOperationException.class, () -> exchangeRates.put("USD", 1.0));
+    }
+
+    @Test
+    public void testGetSnapshot_ByDate() {
+
+        /* Arrange */
+        exchangeRateCache.clear();
+
+        LocalDate firstDate = LocalDate.of(2024, 1, 15);
+        LocalDate secondDate = LocalDate.of(2024, 2, 1);
+        exchangeRateCache.addSnapshots(List.of(
+                createSampleExchangeRates(firstDate, 450.0), createSampleExchangeRates(secondDate, 449.89)));
+
+        /* Act */
+        RateSnapshot exactSnapshot = exchangeRateCache.getSnapshot(firstDate).orElseThrow();
+        RateSnapshot previousSnapshot = exchangeRateCache.getSnapshot(secondDate.minusDays(1)).orElseThrow();
+        RateSnapshot latestSnapshot = exchangeRateCache.getSnapshot(LocalDate.now()).orElseThrow();
+        RateSnapshot earliestSnapshot = exchangeRateCache.getSnapshot(firstDate.minusYears(1)).orElseThrow();
+
+        /* Assert */
+        // The rates of the nearest previous date are in effect, before all dates the earliest rates are used
+        assertEquals(firstDate, exactSnapshot.requestDate());
+        assertEquals(firstDate, previousSnapshot.requestDate());
+        assertEquals(secondDate, latestSnapshot.requestDate());
+        assertEquals(firstDate, earliestSnapshot.requestDate());
+        assertEquals(2, exchangeRateCache.getStatistics().history_days);
+    }
+
+    @Test
+    public void testGetSnapshot_EmptyHistory() {
+
+        /* Arrange */
+        exchangeRateCache.clear();
+
+        /* Act */
+        Optional<RateSnapshot> rateSnapshot = exchangeRateCache.getSnapshot(LocalDate.now());
+
+        /* Assert */
+        assertTrue(rateSnapshot.isEmpty());
+    }
+
+    private ExchangeInfoEntity createSampleExchangeRates(LocalDate paramDate, double usdRate) {
+
+        ExchangeInfoEntity exchangeInfoEntity = new ExchangeInfoEntity();
+
+        exchangeInfoEntity.setResource("https://nationalbank.kz");
+        exchangeInfoEntity.setRequestDate(paramDate);
+
+        Set<ExchangeRateEntity> exchangeRateEntitySet = new HashSet<>();
+
+        // Added USD
+        ExchangeRateEntity exchangeRateEntity = new ExchangeRateEntity();
+        exchangeRateEntity.setCurrencyName("Доллар США");
+        exchangeRateEntity.setCurrencyCode("USD");
+        exchangeRateEntity.setExchangeRate(usdRate);
+        exchangeRateEntity.setExchangeInfoEntity(exchangeInfoEntity);
+        exchangeRateEntitySet.add(exchangeRateEntity);
+
+        exchangeInfoEntity.setExchangeRateEntities(exchangeRateEntitySet);
+
+        return exchangeInfoRepository.save(exchangeInfoEntity);
+    }
+}
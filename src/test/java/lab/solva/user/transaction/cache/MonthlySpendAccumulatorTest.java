@@ -0,0 +1,204 @@
+package lab.solva.user.transaction.cache;
+
+import lab.solva.user.transaction.dto.TransactionSumDto;
+import lab.solva.user.transaction.enumeration.CurrencyType;
+import lab.solva.user.transaction.model.ExpenseTransactionEntity;
+import lab.solva.user.transaction.repository.ExpenseTransactionRepository;
+import lab.solva.user.transaction.repository.MonthlySpendRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+@Transactional
+@SuppressWarnings("unused")
+public class MonthlySpendAccumulatorTest {
+
+    @Autowired
+    private ExpenseTransactionRepository expenseTransactionRepository;
+
+    @Autowired
+    private MonthlySpendRepository monthlySpendRepository;
+
+    @Autowired
+    private MonthlySpendAccumulator monthlySpendAccumulator;
+
+    @BeforeEach
+    public void setUp() {
+        monthlySpendAccumulator.clear();
+    }
+
+    @Test
+    public void testGetMonthlySums_LoadedFromDatabase() {
+
+        /* Arrange */
+        String accountClient = "0000000001";
+        String expenseCategory = "Service";
+        YearMonth currentMonth = YearMonth.now();
+
+        createExpenseTransactionEntity(accountClient, "KZT", 100.0, expenseCategory,
+                currentMonth.atDay(1).atStartOfDay());
+        createExpenseTransactionEntity(accountClient, "USD", 10.0, expenseCategory,
+                currentMonth.atDay(1).atStartOfDay());
+
+        // Transaction of the previous month should not be included in the totals
+        createExpenseTransactionEntity(accountClient, "KZT", 1000.0, expenseCategory,
+                currentMonth.minusMonths(1).atDay(1).atStartOfDay());
+
+        /* Act */
+        long[] monthlySums = monthlySpendAccumulator.getMonthlySums(accountClient, expenseCategory, currentMonth);
+
+        /* Assert */
+        // Totals are kept in minor units
+        assertEquals(10000L, monthlySums[CurrencyType.KZT.ordinal()]);
+        assertEquals(1000L, monthlySums[CurrencyType.USD.ordinal()]);
+        assertEquals(0L, monthlySums[CurrencyType.EUR.ordinal()]);
+    }
+
+    @Test
+    public void testGetMonthlySums_ExactTotals() {
+
+        /* Arrange */
+        String accountClient = "0000000001";
+        String expenseCategory = "Service";
+        YearMonth currentMonth = YearMonth.now();
+
+        // 0.1 + 0.2 is not exactly 0.3 in double arithmetic
+        createExpenseTransactionEntity(accountClient, "USD", 0.1, expenseCategory,
+                currentMonth.atDay(1).atStartOfDay());
+        createExpenseTransactionEntity(accountClient, "USD", 0.2, expenseCategory,
+                currentMonth.atDay(1).atStartOfDay());
+
+        /* Act */
+        long[] monthlySums = monthlySpendAccumulator.getMonthlySums(accountClient, expenseCategory, currentMonth);
+        List<TransactionSumDto> transactionSumDtoList = monthlySpendRepository.findMonthlySpend(
+                accountClient, expenseCategory, currentMonth);
+
+        /* Assert */
+        assertEquals(30L, monthlySums[CurrencyType.USD.ordinal()]);
+        assertEquals(0, new BigDecimal("0.30").compareTo(transactionSumDtoList.get(0).getTransactionSum()));
+    }
+
+    @Test
+    public void testToMinorUnits_HalfUpRounding() {
+
+        /* Arrange */
+        // 1.005 and 0.285 are slightly less than their decimal values in double arithmetic
+        double firstAmount = 1.005;
+        double secondAmount = 0.285;
+
+        /* Act */
+        long firstMinorUnits = CurrencyType.USD.toMinorUnits(firstAmount);
+        long secondMinorUnits = CurrencyType.USD.toMinorUnits(secondAmount);
+
+        /* Assert */
+        // The double and the decimal amounts are rounded the same way
+        assertEquals(101L, firstMinorUnits);
+        assertEquals(29L, secondMinorUnits);
+        assertEquals(CurrencyType.USD.toMinorUnits(new BigDecimal("1.005")), firstMinorUnits);
+        assertEquals(CurrencyType.USD.toMinorUnits(new BigDecimal("0.285")), secondMinorUnits);
+    }
+
+    @Test
+    public void testAddTransactionSum_UpdatesLoadedTotals() {
+
+        /* Arrange */
+        String accountClient = "0000000001";
+        String expenseCategory = "Product";
+        YearMonth currentMonth = YearMonth.now();
+
+        createExpenseTransactionEntity(accountClient, "EUR", 50.0, expenseCategory,
+                currentMonth.atDay(1).atStartOfDay());
+        monthlySpendAccumulator.getMonthlySums(accountClient, expenseCategory, currentMonth);
+
+        /* Act */
+        monthlySpendAccumulator.addTransactionSum(accountClient, expenseCategory, currentMonth, "EUR", 25.0);
+        long[] monthlySums = monthlySpendAccumulator.getMonthlySums(accountClient, expenseCategory, currentMonth);
+
+        /* Assert */
+        assertEquals(7500L, monthlySums[CurrencyType.EUR.ordinal()]);
+    }
+
+    @Test
+    public void testAddTransactionSum_CachedTotalsEqualReloadedTotals() {
+
+        /* Arrange */
+        String accountClient = "0000000001";
+        String expenseCategory = "Service";
+        YearMonth currentMonth = YearMonth.now();
+
+        monthlySpendAccumulator.getMonthlySums(accountClient, expenseCategory, currentMonth);
+
+        /* Act */
+        // The transactions are saved with the totals of the month and added to the loaded running totals
+        for (double transactionSum : new double[] {1.005, 0.285}) {
+            createExpenseTransactionEntity(accountClient, "USD", transactionSum, expenseCategory,
+                    currentMonth.atDay(1).atStartOfDay());
+            monthlySpendAccumulator.addTransactionSum(accountClient, expenseCategory, currentMonth,
+                    "USD", transactionSum);
+        }
+
+        long[] cachedSums = monthlySpendAccumulator.getMonthlySums(accountClient, expenseCategory, currentMonth);
+
+        // The totals read again from the database, as after an eviction or a restart
+        long[] reloadedSums = new MonthlySpendAccumulator(monthlySpendRepository)
+                .getMonthlySums(accountClient, expenseCategory, currentMonth);
+
+        /* Assert */
+        assertEquals(130L, cachedSums[CurrencyType.USD.ordinal()]);
+        assertArrayEquals(reloadedSums, cachedSums);
+    }
+
+    @Test
+    public void testAddTransactionSum_NotLoadedTotalsAreSkipped() {
+
+        /* Arrange */
+        String accountClient = "0000000001";
+        String expenseCategory = "Product";
+        YearMonth currentMonth = YearMonth.now();
+
+        /* Act */
+        monthlySpendAccumulator.addTransactionSum(accountClient, expenseCategory, currentMonth, "RUB", 25.0);
+        long[] monthlySums = monthlySpendAccumulator.getMonthlySums(accountClient, expenseCategory, currentMonth);
+
+        /* Assert */
+        // There are no transactions in the database, so the totals are loaded as zero
+        assertEquals(0L, monthlySums[CurrencyType.RUB.ordinal()]);
+    }
+
+    // Method for create object of ExpenseTransactionEntity
+    private void createExpenseTransactionEntity(String account_client, String currency_code, double transaction_sum,
+                                                String expense_category, LocalDateTime transaction_date) {
+
+        ExpenseTransactionEntity expenseTransactionEntity = new ExpenseTransactionEntity();
+
+        expenseTransactionEntity.setAccountClient(account_client);
+        expenseTransactionEntity.setAccountCounterparty("9000000000");
+        expenseTransactionEntity.setCurrencyCode(currency_code);
+        expenseTransactionEntity.setExpenseCategory(expense_category);
+        expenseTransactionEntity.setTransactionSum(transaction_sum);
+        expenseTransactionEntity.setTransactionDateTime(Timestamp.valueOf(transaction_date));
+        expenseTransactionEntity.setLimitExceeded(false);
+
+        expenseTransactionRepository.save(expenseTransactionEntity);
+
+        // The totals of the month are saved together with the transaction, as by the service
+        monthlySpendRepository.addTransactions(List.of(expenseTransactionEntity));
+    }
+}
@@ -0,0 +1,65 @@
+package lab.solva.user.transaction.client;
+
+import lab.solva.user.transaction.dto.ExchangeInfoDto;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+public class ExchangeRateXmlParserTest {
+
+    private final ExchangeRateXmlParser exchangeRateXmlParser = new ExchangeRateXmlParser();
+
+    @Test
+    public void testParse_RecordedResponse() throws Exception {
+
+        /* Arrange */
+        InputStream inputStream = getClass().getResourceAsStream("/get_rates.xml");
+
+        /* Act */
+        ExchangeInfoDto exchangeInfoDto = exchangeRateXmlParser.parse(inputStream);
+
+        /* Assert */
+        assertNotNull(exchangeInfoDto);
+        assertEquals(LocalDate.of(2024, 2, 1), exchangeInfoDto.date);
+        assertEquals(3, exchangeInfoDto.item.size());
+    }
+
+    @Test
+    public void testParse_ExternalEntityIsNotResolved() {
+
+        /* Arrange */
+        String xmlData = "<?xml version=\"1.0\"?>" +
+                "<!DOCTYPE rates [<!ENTITY rate SYSTEM \"file:///etc/hostname\">]>" +
+                "<rates><link>https://nationalbank.kz</link><date>01.02.2024</date>" +
+                "<item><fullname>&rate;</fullname><title>USD</title><description>449.89</description></item>" +
+                "</rates>";
+
+        /* Act */
+        /* Assert */
+        assertThrows(XMLStreamException.class, () -> exchangeRateXmlParser.parse(
+                new ByteArrayInputStream(xmlData.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void testParse_MissingDate() throws Exception {
+
+        /* Arrange */
+        String xmlData = "<rates><link>https://nationalbank.kz</link>" +
+                "<item><fullname>ДОЛЛАР США</fullname><title>USD</title><description>449.89</description></item>" +
+                "</rates>";
+
+        /* Act */
+        ExchangeInfoDto exchangeInfoDto = exchangeRateXmlParser.parse(
+                new ByteArrayInputStream(xmlData.getBytes(StandardCharsets.UTF_8)));
+
+        /* Assert */
+        assertNull(exchangeInfoDto);
+    }
+}
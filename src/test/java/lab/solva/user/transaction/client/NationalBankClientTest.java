@@ -0,0 +1,173 @@
+package lab.solva.user.transaction.client;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lab.solva.user.transaction.dto.ExchangeInfoDto;
+import lab.solva.user.transaction.dto.ExchangeRateDto;
+import lab.solva.user.transaction.metrics.TransactionMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+public class NationalBankClientTest {
+
+    private static final LocalDate REQUEST_DATE = LocalDate.of(2024, 2, 1);
+
+    // Stub of the National Bank service serving the recorded get_rates.cfm response
+    private HttpServer httpServer;
+
+    private byte[] ratesXml;
+
+    // Status codes returned by the stub one after another, then 200
+    private final List<Integer> failureStatusCodes = new CopyOnWriteArrayList<>();
+
+    private final List<String> requestQueries = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+
+        try (InputStream inputStream = getClass().getResourceAsStream("/get_rates.xml")) {
+            ratesXml = inputStream.readAllBytes();
+        }
+
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/rss/get_rates.cfm", exchange -> {
+            requestQueries.add(exchange.getRequestURI().getQuery());
+            int requestIndex = requestCount.getAndIncrement();
+            int statusCode = requestIndex < failureStatusCodes.size() ? failureStatusCodes.get(requestIndex) : 200;
+
+            byte[] body = statusCode == 200 ? ratesXml : new byte[0];
+            exchange.sendResponseHeaders(statusCode, body.length > 0 ? body.length : -1);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        httpServer.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        httpServer.stop(0);
+    }
+
+    @Test
+    public void testFetchRates_FromStubServer() {
+
+        /* Arrange */
+        NationalBankClient nationalBankClient = createNationalBankClient(3, 3);
+
+        /* Act */
+        ExchangeInfoDto exchangeInfoDto = nationalBankClient.fetchRates(REQUEST_DATE);
+
+        /* Assert */
+        assertNotNull(exchangeInfoDto);
+        assertEquals(REQUEST_DATE, exchangeInfoDto.date);
+        assertEquals("https://nationalbank.kz", exchangeInfoDto.link);
+        assertEquals(List.of("fdate=01.02.2024"), requestQueries);
+
+        // Only the currencies of CurrencyType are included
+        Map<String, Double> exchangeRates = exchangeInfoDto.item.stream().collect(
+                Collectors.toMap(ExchangeRateDto::getTitle, ExchangeRateDto::getDescription));
+        assertEquals(Map.of("USD", 449.89, "EUR", 487.78, "RUB", 5.02), exchangeRates);
+
+        assertEquals(1, meterRegistry.get("exchange.rate.fetch").tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("exchange.rate.parse").timer().count());
+    }
+
+    @Test
+    public void testFetchRates_RetriedAfterServerError() {
+
+        /* Arrange */
+        NationalBankClient nationalBankClient = createNationalBankClient(3, 3);
+        failureStatusCodes.addAll(List.of(503, 500));
+
+        /* Act */
+        ExchangeInfoDto exchangeInfoDto = nationalBankClient.fetchRates(REQUEST_DATE);
+
+        /* Assert */
+        assertNotNull(exchangeInfoDto);
+        assertEquals(3, requestCount.get());
+        assertEquals(CircuitBreaker.State.CLOSED, nationalBankClient.getCircuitBreakerState());
+    }
+
+    @Test
+    public void testFetchRates_ClientErrorIsNotRetried() {
+
+        /* Arrange */
+        NationalBankClient nationalBankClient = createNationalBankClient(3, 3);
+        failureStatusCodes.add(404);
+
+        /* Act */
+        ExchangeInfoDto exchangeInfoDto = nationalBankClient.fetchRates(REQUEST_DATE);
+
+        /* Assert */
+        assertNull(exchangeInfoDto);
+        assertEquals(1, requestCount.get());
+    }
+
+    @Test
+    public void testFetchRates_CircuitBreakerOpens() {
+
+        /* Arrange */
+        NationalBankClient nationalBankClient = createNationalBankClient(1, 2);
+        failureStatusCodes.addAll(List.of(500, 500, 500));
+
+        /* Act */
+        nationalBankClient.fetchRates(REQUEST_DATE);
+        nationalBankClient.fetchRates(REQUEST_DATE);
+        ExchangeInfoDto exchangeInfoDto = nationalBankClient.fetchRates(REQUEST_DATE);
+
+        /* Assert */
+        // The third call is not sent to the service
+        assertNull(exchangeInfoDto);
+        assertEquals(2, requestCount.get());
+        assertEquals(CircuitBreaker.State.OPEN, nationalBankClient.getCircuitBreakerState());
+        assertEquals(2, meterRegistry.get("exchange.rate.fetch").tag("outcome", "failure").timer().count());
+        assertEquals(1.0, meterRegistry.get("exchange.rate.fetch.rejected").counter().count());
+    }
+
+    @Test
+    public void testFetchBackfillRates_CircuitBreakerOpensSeparately() {
+
+        /* Arrange */
+        NationalBankClient nationalBankClient = createNationalBankClient(1, 2);
+        failureStatusCodes.addAll(List.of(500, 500));
+
+        /* Act */
+        nationalBankClient.fetchBackfillRates(REQUEST_DATE);
+        nationalBankClient.fetchBackfillRates(REQUEST_DATE);
+        ExchangeInfoDto backfillExchangeInfoDto = nationalBankClient.fetchBackfillRates(REQUEST_DATE);
+        ExchangeInfoDto exchangeInfoDto = nationalBankClient.fetchRates(REQUEST_DATE);
+
+        /* Assert */
+        // The failures of the backfill do not stop the requests of the current rates
+        assertNull(backfillExchangeInfoDto);
+        assertNotNull(exchangeInfoDto);
+        assertEquals(3, requestCount.get());
+        assertEquals(CircuitBreaker.State.OPEN, nationalBankClient.getBackfillCircuitBreakerState());
+        assertEquals(CircuitBreaker.State.CLOSED, nationalBankClient.getCircuitBreakerState());
+    }
+
+    private NationalBankClient createNationalBankClient(int maxAttempts, int failureThreshold) {
+        return new NationalBankClient("http://localhost:" + httpServer.getAddress().getPort() + "/rss/get_rates.cfm",
+                1000, 2000, maxAttempts, 1, failureThreshold, 60000, new TransactionMetrics(meterRegistry));
+    }
+}
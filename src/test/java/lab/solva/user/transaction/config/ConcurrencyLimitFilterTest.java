@@ -0,0 +1,66 @@
+package lab.solva.user.transaction.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SuppressWarnings("unused")
+public class ConcurrencyLimitFilterTest {
+
+    @Test
+    public void testDoFilter_RequestAboveLimitIsRejected() throws Exception {
+
+        /* Arrange */
+        ConcurrencyLimitFilter concurrencyLimitFilter = new ConcurrencyLimitFilter(1, 100);
+
+        CountDownLatch requestStarted = new CountDownLatch(1);
+        CountDownLatch requestReleased = new CountDownLatch(1);
+
+        // The first request holds the only permit until it is released
+        FilterChain blockingFilterChain = (request, response) -> {
+            requestStarted.countDown();
+            try {
+                requestReleased.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        MockHttpServletResponse firstResponse = new MockHttpServletResponse();
+        Future<?> firstRequest = executorService.submit(() -> {
+            concurrencyLimitFilter.doFilter(new MockHttpServletRequest("GET", "/api/bank/limit/0000000001"),
+                    firstResponse, blockingFilterChain);
+            return null;
+        });
+        requestStarted.await(10, TimeUnit.SECONDS);
+
+        /* Act */
+        MockHttpServletResponse rejectedResponse = new MockHttpServletResponse();
+        concurrencyLimitFilter.doFilter(new MockHttpServletRequest("GET", "/api/bank/limit/0000000001"),
+                rejectedResponse, new MockFilterChain());
+
+        requestReleased.countDown();
+        firstRequest.get(10, TimeUnit.SECONDS);
+        executorService.shutdown();
+
+        MockHttpServletResponse acceptedResponse = new MockHttpServletResponse();
+        concurrencyLimitFilter.doFilter(new MockHttpServletRequest("GET", "/api/bank/limit/0000000001"),
+                acceptedResponse, new MockFilterChain());
+
+        /* Assert */
+        assertEquals(503, rejectedResponse.getStatus());
+        assertEquals(200, firstResponse.getStatus());
+        assertEquals(200, acceptedResponse.getStatus());
+    }
+}
@@ -0,0 +1,116 @@
+package lab.solva.user.transaction.journal;
+
+import lab.solva.user.transaction.model.JournalCheckpointEntity;
+import lab.solva.user.transaction.model.JournalDeadLetterEntity;
+import lab.solva.user.transaction.repository.ExpenseTransactionRepository;
+import lab.solva.user.transaction.repository.JournalCheckpointRepository;
+import lab.solva.user.transaction.repository.JournalDeadLetterRepository;
+import lab.solva.user.transaction.repository.MonthlySpendRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doThrow;
+
+// The records are written by the writer in its own database transactions and advance the checkpoint,
+// a separate database and journal keep them from the other tests
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:deadletterdb;DB_CLOSE_ON_EXIT=FALSE",
+        "transaction.journal.enabled=true"
+})
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+@SuppressWarnings("unused")
+public class TransactionJournalDeadLetterTest {
+
+    @TempDir
+    static Path journalDirectory;
+
+    @Autowired
+    private TransactionJournalWriter transactionJournalWriter;
+
+    @Autowired
+    private ExpenseTransactionRepository expenseTransactionRepository;
+
+    @Autowired
+    private JournalCheckpointRepository journalCheckpointRepository;
+
+    @Autowired
+    private JournalDeadLetterRepository journalDeadLetterRepository;
+
+    @SpyBean
+    private MonthlySpendRepository monthlySpendRepository;
+
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) {
+        registry.add("transaction.journal.directory", () -> journalDirectory.toString());
+    }
+
+    @Test
+    public void testReplay_RejectedRecordMovedToDeadLetters() {
+
+        /* Arrange */
+        long checkpoint = journalCheckpointRepository.findById("expense-transaction")
+                .map(JournalCheckpointEntity::getLastSequence).orElse(0L);
+        long transactionCount = expenseTransactionRepository.count();
+
+        // The account of the first record is longer than the column, the database rejects it every time
+        JournalRecord rejectedRecord = new JournalRecord(checkpoint + 1, "00000000031", "9000000000", "KZT",
+                100.0, "Service", System.currentTimeMillis(), false, 0L, null);
+        JournalRecord validRecord = new JournalRecord(checkpoint + 2, "0000000032", "9000000000", "KZT",
+                200.0, "Service", System.currentTimeMillis(), false, 0L, null);
+
+        /* Act */
+        transactionJournalWriter.replay(List.of(rejectedRecord, validRecord));
+
+        /* Assert */
+        // The record after the rejected one is written, the checkpoint is after both records
+        assertEquals(transactionCount + 1, expenseTransactionRepository.count());
+        assertEquals(checkpoint + 2, journalCheckpointRepository.findById("expense-transaction")
+                .map(JournalCheckpointEntity::getLastSequence).orElseThrow());
+
+        JournalDeadLetterEntity journalDeadLetterEntity = journalDeadLetterRepository.findById(checkpoint + 1)
+                .orElseThrow();
+        assertTrue(journalDeadLetterEntity.getJournalRecord().contains("00000000031"));
+        assertNotNull(journalDeadLetterEntity.getErrorMessage());
+    }
+
+    @Test
+    public void testReplay_RecordNotMovedToDeadLettersOnOtherErrors() {
+
+        /* Arrange */
+        long checkpoint = journalCheckpointRepository.findById("expense-transaction")
+                .map(JournalCheckpointEntity::getLastSequence).orElse(0L);
+        long transactionCount = expenseTransactionRepository.count();
+        long deadLetterCount = journalDeadLetterRepository.count();
+
+        // An error that is not a constraint violation, as a defect of the writer
+        doThrow(new IllegalStateException("Defect of the writer"))
+                .when(monthlySpendRepository).addTransactions(anyCollection());
+
+        JournalRecord journalRecord = new JournalRecord(checkpoint + 1, "0000000033", "9000000000", "KZT",
+                100.0, "Service", System.currentTimeMillis(), false, 0L, null);
+
+        /* Act */
+        /* Assert */
+        // The record remains in the journal to be written again, it is not moved to the dead letters
+        assertThrows(IllegalStateException.class, () -> transactionJournalWriter.replay(List.of(journalRecord)));
+
+        assertEquals(transactionCount, expenseTransactionRepository.count());
+        assertEquals(deadLetterCount, journalDeadLetterRepository.count());
+        assertEquals(checkpoint, journalCheckpointRepository.findById("expense-transaction")
+                .map(JournalCheckpointEntity::getLastSequence).orElse(0L));
+    }
+}
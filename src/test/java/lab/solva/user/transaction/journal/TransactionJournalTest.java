@@ -0,0 +1,194 @@
+package lab.solva.user.transaction.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+public class TransactionJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testOpen_RecoversAppendedRecords() throws Exception {
+
+        /* Arrange */
+        try (TransactionJournal transactionJournal = new TransactionJournal(directory, 1024 * 1024, 1)) {
+            transactionJournal.open();
+            transactionJournal.append(createJournalRecord("0000000001", 100.0));
+            transactionJournal.append(createJournalRecord("0000000002", 200.5));
+        }
+
+        /* Act */
+        List<JournalRecord> journalRecords;
+        JournalRecord appendedRecord;
+        try (TransactionJournal transactionJournal = new TransactionJournal(directory, 1024 * 1024, 1)) {
+            journalRecords = transactionJournal.open();
+            appendedRecord = transactionJournal.append(createJournalRecord("0000000003", 300.0));
+        }
+
+        /* Assert */
+        assertEquals(2, journalRecords.size());
+        assertEquals(createJournalRecord("0000000001", 100.0).withSequence(1), journalRecords.get(0));
+        assertEquals(createJournalRecord("0000000002", 200.5).withSequence(2), journalRecords.get(1));
+
+        // Sequences continue after the recovered records
+        assertEquals(3, appendedRecord.sequence());
+    }
+
+    @Test
+    public void testOpen_DamagedRecordSkipped() throws Exception {
+
+        /* Arrange */
+        try (TransactionJournal transactionJournal = new TransactionJournal(directory, 1024 * 1024, 1)) {
+            transactionJournal.open();
+            transactionJournal.append(createJournalRecord("0000000001", 100.0));
+            transactionJournal.append(createJournalRecord("0000000002", 200.0));
+        }
+
+        // Damaging the last byte of the second record, as if it had not been completely written
+        Path segmentFile = listSegmentFiles().get(0);
+        int recordSize = 4 + 4 + 8 + createJournalRecord("0000000001", 100.0).encodePayload().length;
+        try (FileChannel fileChannel = FileChannel.open(segmentFile, StandardOpenOption.WRITE)) {
+            fileChannel.write(ByteBuffer.wrap(new byte[] {(byte) 0xFF}), 2L * recordSize - 1);
+        }
+
+        /* Act */
+        List<JournalRecord> journalRecords;
+        try (TransactionJournal transactionJournal = new TransactionJournal(directory, 1024 * 1024, 1)) {
+            journalRecords = transactionJournal.open();
+        }
+
+        /* Assert */
+        assertEquals(1, journalRecords.size());
+        assertEquals("0000000001", journalRecords.get(0).accountClient());
+    }
+
+    @Test
+    public void testPollDurable_InOrderOfSequence() throws Exception {
+
+        /* Arrange */
+        try (TransactionJournal transactionJournal = new TransactionJournal(directory, 1024 * 1024, 1)) {
+            transactionJournal.open();
+            for (int i = 1; i <= 5; i++) {
+                transactionJournal.append(createJournalRecord("0000000001", i));
+            }
+
+            /* Act */
+            List<JournalRecord> firstBatch = transactionJournal.pollDurable(3, 100);
+            List<JournalRecord> secondBatch = transactionJournal.pollDurable(3, 100);
+            List<JournalRecord> emptyBatch = transactionJournal.pollDurable(3, 10);
+
+            /* Assert */
+            assertEquals(List.of(1L, 2L, 3L), firstBatch.stream().map(JournalRecord::sequence).toList());
+            assertEquals(List.of(4L, 5L), secondBatch.stream().map(JournalRecord::sequence).toList());
+            assertTrue(emptyBatch.isEmpty());
+        }
+    }
+
+    @Test
+    public void testDeleteSegmentsUpTo_WrittenSegmentsDeleted() throws Exception {
+
+        /* Arrange */
+        // Two records fit into a segment
+        int recordSize = 4 + 4 + 8 + createJournalRecord("0000000001", 1.0).encodePayload().length;
+
+        try (TransactionJournal transactionJournal = new TransactionJournal(directory, 2 * recordSize + 4, 1)) {
+            transactionJournal.open();
+            for (int i = 1; i <= 5; i++) {
+                transactionJournal.append(createJournalRecord("0000000001", i));
+            }
+            int segmentCount = transactionJournal.getSegmentCount();
+
+            /* Act */
+            transactionJournal.deleteSegmentsUpTo(3);
+
+            /* Assert */
+            // Segments [1, 2], [3, 4], [5], only the first one has been written completely
+            assertEquals(3, segmentCount);
+            assertEquals(2, transactionJournal.getSegmentCount());
+            assertEquals(2, listSegmentFiles().size());
+        }
+    }
+
+    @Test
+    public void testOpen_SequenceContinuesAfterDeletedSegments() throws Exception {
+
+        /* Arrange */
+        try (TransactionJournal transactionJournal = new TransactionJournal(directory, 1024 * 1024, 1)) {
+            transactionJournal.open();
+            transactionJournal.append(createJournalRecord("0000000001", 100.0));
+            transactionJournal.append(createJournalRecord("0000000002", 200.0));
+        }
+
+        // Replay: the recovered records are written to the database (checkpoint 2), their segment is deleted
+        long checkpoint;
+        try (TransactionJournal transactionJournal = new TransactionJournal(directory, 1024 * 1024, 1)) {
+            List<JournalRecord> journalRecords = transactionJournal.open();
+            checkpoint = journalRecords.get(journalRecords.size() - 1).sequence();
+            transactionJournal.deleteSegmentsUpTo(checkpoint);
+        }
+
+        // Restart without appends, only the empty segment remains and is deleted by open()
+        JournalRecord appendedRecord;
+        try (TransactionJournal transactionJournal = new TransactionJournal(directory, 1024 * 1024, 1)) {
+            assertTrue(transactionJournal.open(checkpoint).isEmpty());
+            appendedRecord = transactionJournal.append(createJournalRecord("0000000003", 300.0));
+        }
+
+        /* Act */
+        // Crash before the appended record has been written to the database, then replay
+        List<JournalRecord> journalRecords;
+        try (TransactionJournal transactionJournal = new TransactionJournal(directory, 1024 * 1024, 1)) {
+            journalRecords = transactionJournal.open(checkpoint);
+        }
+        long finalCheckpoint = checkpoint;
+
+        /* Assert */
+        // The acknowledged record is after the checkpoint and is written by the replay
+        assertEquals(3, appendedRecord.sequence());
+        assertEquals(List.of(appendedRecord), journalRecords.stream()
+                .filter(journalRecord -> journalRecord.sequence() > finalCheckpoint)
+                .toList());
+    }
+
+    @Test
+    public void testOpen_SequenceContinuesAfterCheckpoint() throws Exception {
+
+        /* Arrange */
+        // The segments of the written records are lost, the checkpoint remains in the database
+        long checkpoint = 42L;
+
+        /* Act */
+        JournalRecord appendedRecord;
+        try (TransactionJournal transactionJournal = new TransactionJournal(directory, 1024 * 1024, 1)) {
+            transactionJournal.open(checkpoint);
+            appendedRecord = transactionJournal.append(createJournalRecord("0000000001", 100.0));
+        }
+
+        /* Assert */
+        assertEquals(checkpoint + 1, appendedRecord.sequence());
+    }
+
+    private List<Path> listSegmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static JournalRecord createJournalRecord(String accountClient, double transactionSum) {
+        return new JournalRecord(0L, accountClient, "9000000000", "KZT", transactionSum, "Service",
+                1706778920000L, false, 1L, null);
+    }
+}
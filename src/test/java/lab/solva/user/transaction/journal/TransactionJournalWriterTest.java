@@ -0,0 +1,160 @@
+package lab.solva.user.transaction.journal;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lab.solva.user.transaction.dto.ExpenseTransactionDto;
+import lab.solva.user.transaction.model.JournalCheckpointEntity;
+import lab.solva.user.transaction.repository.AmountLimitRepository;
+import lab.solva.user.transaction.repository.ExpenseTransactionRepository;
+import lab.solva.user.transaction.repository.JournalCheckpointRepository;
+import lab.solva.user.transaction.repository.JournalDeadLetterRepository;
+import lab.solva.user.transaction.repository.MonthlySpendRepository;
+import lab.solva.user.transaction.service.BankService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+// Transactions are written to the database by the background writer in its own database transactions,
+// a separate database keeps them from the other tests
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:journaldb;DB_CLOSE_ON_EXIT=FALSE",
+        "transaction.journal.enabled=true"
+})
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+@SuppressWarnings("unused")
+public class TransactionJournalWriterTest {
+
+    @TempDir
+    static Path journalDirectory;
+
+    @Autowired
+    private BankService bankService;
+
+    @Autowired
+    private TransactionJournalWriter transactionJournalWriter;
+
+    @Autowired
+    private ExpenseTransactionRepository expenseTransactionRepository;
+
+    @Autowired
+    private JournalCheckpointRepository journalCheckpointRepository;
+
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) {
+        registry.add("transaction.journal.directory", () -> journalDirectory.toString());
+    }
+
+    @Test
+    public void testSaveExpenseTransactionDto_WrittenBehind() throws InterruptedException {
+
+        /* Arrange */
+        long transactionCount = expenseTransactionRepository.count();
+
+        /* Act */
+        bankService.saveExpenseTransactionDto(createExpenseTransactionDto("0000000001", 100.0));
+        bankService.saveExpenseTransactionDto(createExpenseTransactionDto("0000000001", 200.0));
+
+        /* Assert */
+        assertTrue(awaitTransactionCount(transactionCount + 2));
+
+        long checkpoint = journalCheckpointRepository.findById("expense-transaction")
+                .map(JournalCheckpointEntity::getLastSequence).orElse(0L);
+        assertTrue(checkpoint >= 2);
+    }
+
+    @Test
+    public void testReplay_WrittenRecordsSkipped() throws InterruptedException {
+
+        /* Arrange */
+        long writtenCount = expenseTransactionRepository.count();
+        bankService.saveExpenseTransactionDto(createExpenseTransactionDto("0000000002", 300.0));
+        assertTrue(awaitTransactionCount(writtenCount + 1));
+
+        long checkpoint = journalCheckpointRepository.findById("expense-transaction")
+                .map(JournalCheckpointEntity::getLastSequence).orElseThrow();
+        long transactionCount = expenseTransactionRepository.count();
+
+        JournalRecord writtenRecord = new JournalRecord(checkpoint, "0000000002", "9000000000", "KZT", 300.0,
+                "Service", System.currentTimeMillis(), false, 0L, null);
+
+        /* Act */
+        // The record of the checkpoint is already in the database, as after a restart
+        transactionJournalWriter.replay(List.of(writtenRecord));
+
+        /* Assert */
+        assertEquals(transactionCount, expenseTransactionRepository.count());
+    }
+
+    @Test
+    public void testStart_SpendCacheRequired() {
+
+        /* Arrange */
+        ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+                .withBean(ExpenseTransactionRepository.class, () -> mock(ExpenseTransactionRepository.class))
+                .withBean(AmountLimitRepository.class, () -> mock(AmountLimitRepository.class))
+                .withBean(MonthlySpendRepository.class, () -> mock(MonthlySpendRepository.class))
+                .withBean(JournalCheckpointRepository.class, () -> mock(JournalCheckpointRepository.class))
+                .withBean(JournalDeadLetterRepository.class, () -> mock(JournalDeadLetterRepository.class))
+                .withBean(TransactionTemplate.class, () -> mock(TransactionTemplate.class))
+                .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+                .withBean(TransactionJournalWriter.class);
+
+        /* Act */
+        /* Assert */
+        // The limits would be evaluated without the transactions of the journal not yet written to the database
+        contextRunner
+                .withPropertyValues("transaction.journal.enabled=true", "transaction.spend-cache.enabled=false",
+                        "transaction.journal.directory=" + journalDirectory.resolve("disabled-spend-cache"))
+                .run(context -> {
+                    Throwable startupFailure = context.getStartupFailure();
+                    while (startupFailure != null && startupFailure.getCause() != null) {
+                        startupFailure = startupFailure.getCause();
+                    }
+
+                    assertInstanceOf(IllegalStateException.class, startupFailure);
+                    assertTrue(startupFailure.getMessage().contains("transaction.spend-cache.enabled"));
+                });
+    }
+
+    private boolean awaitTransactionCount(long expectedCount) throws InterruptedException {
+
+        for (int i = 0; i < 100; i++) {
+            if (expenseTransactionRepository.count() >= expectedCount) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+
+        return false;
+    }
+
+    private static ExpenseTransactionDto createExpenseTransactionDto(String accountClient, double sum) {
+
+        ExpenseTransactionDto expenseTransactionDto = new ExpenseTransactionDto();
+
+        expenseTransactionDto.account_from = accountClient;
+        expenseTransactionDto.account_to = "9000000000";
+        expenseTransactionDto.currency_shortname = "KZT";
+        expenseTransactionDto.sum = sum;
+        expenseTransactionDto.expense_category = "Service";
+        expenseTransactionDto.datetime = ZonedDateTime.now().minusMinutes(1);
+
+        return expenseTransactionDto;
+    }
+}
@@ -0,0 +1,55 @@
+package lab.solva.user.transaction.lock;
+
+import lab.solva.user.transaction.repository.AmountLimitRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+@SuppressWarnings("unused")
+public class LimitLocksTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withBean(AmountLimitRepository.class, () -> mock(AmountLimitRepository.class))
+            .withBean(LimitLocks.class);
+
+    @Test
+    public void testInit_AdvisoryLockWithSpendCacheRejected() {
+
+        /* Arrange */
+        /* Act */
+        /* Assert */
+        // Several instances of the application with the totals kept in memory of each one
+        contextRunner
+                .withPropertyValues("transaction.limit-lock.advisory=true", "transaction.spend-cache.enabled=true")
+                .run(context -> {
+                    assertNotNull(context.getStartupFailure());
+                    assertInstanceOf(IllegalStateException.class, getRootCause(context.getStartupFailure()));
+                });
+    }
+
+    @Test
+    public void testInit_SupportedDeploymentModes() {
+
+        /* Arrange */
+        /* Act */
+        /* Assert */
+        // Several instances with the totals read from the database, or a single instance with the totals in memory
+        contextRunner
+                .withPropertyValues("transaction.limit-lock.advisory=true", "transaction.spend-cache.enabled=false")
+                .run(context -> assertNull(context.getStartupFailure()));
+        contextRunner
+                .withPropertyValues("transaction.limit-lock.advisory=false", "transaction.spend-cache.enabled=true")
+                .run(context -> assertNull(context.getStartupFailure()));
+    }
+
+    private static Throwable getRootCause(Throwable throwable) {
+
+        while (throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+
+        return throwable;
+    }
+}
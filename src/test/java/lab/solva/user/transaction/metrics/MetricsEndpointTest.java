@@ -0,0 +1,72 @@
+package lab.solva.user.transaction.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The export to Prometheus is enabled only in this context, a separate database keeps the schema
+// of the other test contexts from being recreated
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:metricsdb;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@Transactional
+@SuppressWarnings("unused")
+public class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testPrometheusEndpoint_HotPathMeters() throws Exception {
+
+        /* Arrange */
+        String content = "{\"account_from\":\"0000000001\",\"account_to\":\"9000000000\"," +
+                "\"currency_shortname\":\"USD\",\"Sum\":100.0,\"expense_category\":\"Service\"," +
+                "\"datetime\":\"2024-02-01T15:15:20+06:00\"}";
+
+        /* Act */
+        mockMvc.perform(post("/api/bank")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content))
+                .andExpect(status().isOk());
+
+        // The statements of an asynchronous request are executed on another thread, it is not recorded
+        mockMvc.perform(get("/api/client/transaction/0000000001/stream"))
+                .andExpect(status().isOk());
+
+        /* Assert */
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("transaction_save_seconds_count{")))
+                .andExpect(content().string(containsString("transaction_limit_evaluation_seconds_bucket{")))
+                .andExpect(content().string(containsString(
+                        "transaction_limit_decisions_total{application=\"user-transaction\",category=\"SERVICE\"," +
+                                "exceeded=\"false\",} 1.0")))
+                .andExpect(content().string(containsString("exchange_rate_staleness_days_count")))
+                .andExpect(content().string(containsString("exchange_rate_cache_requests_total{")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_count{")))
+                .andExpect(content().string(containsString(
+                        "http_server_requests_queries_count{application=\"user-transaction\",method=\"POST\"," +
+                                "uri=\"/api/bank\",}")))
+                .andExpect(content().string(not(containsString(
+                        "http_server_requests_queries_count{application=\"user-transaction\",method=\"GET\"," +
+                                "uri=\"/api/client/transaction/{account_client}/stream\",}"))));
+    }
+}
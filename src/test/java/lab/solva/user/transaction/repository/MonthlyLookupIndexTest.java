@@ -0,0 +1,53 @@
+package lab.solva.user.transaction.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.sql.Timestamp;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+@SuppressWarnings("unused")
+public class MonthlyLookupIndexTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testFindAmountLimitByAccountAndCategoryAndMonth_UsesIndex() {
+
+        /* Arrange */
+        // The same predicate as in AmountLimitRepository.findAmountLimitByAccountAndCategoryAndMonth
+        String sql = "EXPLAIN SELECT * " +
+                "FROM t_amount_limit " +
+                "WHERE account_client = ? AND expense_category = ? " +
+                    "AND limit_date >= ? AND limit_date < ? " +
+                "ORDER BY limit_date DESC";
+
+        /* Act */
+        String plan = explain(sql);
+
+        /* Assert */
+        assertTrue(plan.toLowerCase().contains("t_amount_limit_account_category_date_idx"),
+                "Expected the monthly limit lookup to use the index, plan: " + plan);
+    }
+
+    private String explain(String sql) {
+
+        YearMonth currentMonth = YearMonth.now();
+
+        return String.join("\n", jdbcTemplate.queryForList(sql, String.class,
+                "0000000001", "Service",
+                Timestamp.valueOf(currentMonth.atDay(1).atStartOfDay()),
+                Timestamp.valueOf(currentMonth.plusMonths(1).atDay(1).atStartOfDay())));
+    }
+}
@@ -0,0 +1,76 @@
+package lab.solva.user.transaction.repository;
+
+import lab.solva.user.transaction.dto.TransactionSumDto;
+import lab.solva.user.transaction.model.ExpenseTransactionEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+@Transactional
+@SuppressWarnings("unused")
+public class MonthlySpendRepositoryTest {
+
+    @Autowired
+    private MonthlySpendRepository monthlySpendRepository;
+
+    @Test
+    public void testAddTransactions_TotalsUpserted() {
+
+        /* Arrange */
+        String accountClient = "0000000001";
+        String expenseCategory = "Service";
+        YearMonth currentMonth = YearMonth.now();
+
+        /* Act */
+        // The first call inserts the rows of the month, the second one adds to them
+        monthlySpendRepository.addTransactions(List.of(
+                createExpenseTransactionEntity(accountClient, "KZT", 100.0, expenseCategory, currentMonth),
+                createExpenseTransactionEntity(accountClient, "KZT", 0.1, expenseCategory, currentMonth),
+                createExpenseTransactionEntity(accountClient, "USD", 10.0, expenseCategory, currentMonth)));
+        monthlySpendRepository.addTransactions(List.of(
+                createExpenseTransactionEntity(accountClient, "KZT", 0.2, expenseCategory, currentMonth),
+                createExpenseTransactionEntity(accountClient, "KZT", 500.0, expenseCategory,
+                        currentMonth.minusMonths(1))));
+
+        List<TransactionSumDto> transactionSumDtoList = monthlySpendRepository.findMonthlySpend(
+                accountClient, expenseCategory, currentMonth);
+
+        /* Assert */
+        // One row for each currency, the total is exact; The transaction of the previous month is not included
+        assertEquals(Map.of("KZT", new BigDecimal("100.30"), "USD", new BigDecimal("10.00")),
+                transactionSumDtoList.stream().collect(Collectors.toMap(TransactionSumDto::getCurrencyCode,
+                        TransactionSumDto::getTransactionSum)));
+        assertEquals(3, monthlySpendRepository.count());
+    }
+
+    private static ExpenseTransactionEntity createExpenseTransactionEntity(String accountClient, String currencyCode,
+            double transactionSum, String expenseCategory, YearMonth month) {
+
+        ExpenseTransactionEntity expenseTransactionEntity = new ExpenseTransactionEntity();
+
+        expenseTransactionEntity.setAccountClient(accountClient);
+        expenseTransactionEntity.setAccountCounterparty("9000000000");
+        expenseTransactionEntity.setCurrencyCode(currencyCode);
+        expenseTransactionEntity.setTransactionSum(transactionSum);
+        expenseTransactionEntity.setExpenseCategory(expenseCategory);
+        expenseTransactionEntity.setTransactionDateTime(Timestamp.valueOf(month.atDay(15).atStartOfDay()));
+
+        return expenseTransactionEntity;
+    }
+}
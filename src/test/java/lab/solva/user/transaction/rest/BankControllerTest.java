@@ -5,6 +5,8 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.datatype.jsr310.ser.ZonedDateTimeSerializer;
 import lab.solva.user.transaction.dto.ExpenseTransactionDto;
+import lab.solva.user.transaction.dto.ExpenseTransactionResultDto;
+import lab.solva.user.transaction.enumeration.ProcessingStatus;
 import lab.solva.user.transaction.service.BankService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -21,10 +23,12 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -76,6 +80,74 @@ public class BankControllerTest {
                 saveExpenseTransactionDto(ArgumentMatchers.any(ExpenseTransactionDto.class));
     }
 
+    @Test
+    public void testSaveExpenseTransactionList() throws Exception {
+
+        /* Arrange */
+        ExpenseTransactionDto expenseTransactionDto = createExpenseTransactionDto("USD", 100.0);
+        ExpenseTransactionDto invalidExpenseTransactionDto = createExpenseTransactionDto("USD", 200.0);
+        invalidExpenseTransactionDto.expense_category = "Unknown";
+
+        when(bankService.saveExpenseTransactionDtoList(ArgumentMatchers.anyList())).thenReturn(List.of(
+                new ExpenseTransactionResultDto(0, ProcessingStatus.SAVED.name(), false, null),
+                new ExpenseTransactionResultDto(1, ProcessingStatus.REJECTED.name(), null,
+                        "Expense Category not found in the list of valid values")));
+
+        /* Act & Assert */
+        mockMvc.perform(post("/api/bank/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(List.of(expenseTransactionDto, invalidExpenseTransactionDto))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].index", is(0)))
+                .andExpect(jsonPath("$[0].status", is("SAVED")))
+                .andExpect(jsonPath("$[0].limit_exceeded", is(false)))
+                .andExpect(jsonPath("$[1].index", is(1)))
+                .andExpect(jsonPath("$[1].status", is("REJECTED")));
+
+        // Verify that the service method was called once for the whole batch
+        verify(bankService, times(1)).saveExpenseTransactionDtoList(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    public void testSaveExpenseTransactionStream() throws Exception {
+
+        /* Arrange */
+        String content = asJsonString(createExpenseTransactionDto("KZT", 1000.0)) + "\n" +
+                asJsonString(createExpenseTransactionDto("EUR", 10.0)) + "\n";
+
+        when(bankService.saveExpenseTransactionDtoList(ArgumentMatchers.anyList())).thenReturn(List.of(
+                new ExpenseTransactionResultDto(0, ProcessingStatus.SAVED.name(), false, null),
+                new ExpenseTransactionResultDto(1, ProcessingStatus.SAVED.name(), true, null)));
+
+        /* Act & Assert */
+        mockMvc.perform(post("/api/bank/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(content))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].status", is("SAVED")))
+                .andExpect(jsonPath("$[1].limit_exceeded", is(true)));
+
+        // Verify that every line was passed to the service
+        verify(bankService, times(1)).saveExpenseTransactionDtoList(ArgumentMatchers.argThat(
+                (List<ExpenseTransactionDto> list) -> list.size() == 2 && "EUR".equals(list.get(1).currency_shortname)));
+    }
+
+    // Method for create object of ExpenseTransactionDto
+    private static ExpenseTransactionDto createExpenseTransactionDto(String currency_shortname, double sum) {
+
+        ExpenseTransactionDto expenseTransactionDto = new ExpenseTransactionDto();
+
+        expenseTransactionDto.account_from = "0000000001";
+        expenseTransactionDto.account_to = "9000000000";
+        expenseTransactionDto.currency_shortname = currency_shortname;
+        expenseTransactionDto.sum = sum;
+        expenseTransactionDto.expense_category = "Service";
+        expenseTransactionDto.datetime = ZonedDateTime.parse("2024-02-01T15:15:20+06:00",
+                DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+
+        return expenseTransactionDto;
+    }
+
     // Method to convert an object to a JSON string
     private static String asJsonString(final Object obj) {
         try {
@@ -16,19 +16,24 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.text.SimpleDateFormat;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -125,6 +130,46 @@ public class ClientControllerTest {
                 .andExpect(jsonPath("$[1].limit_datetime", is("2024-01-30T15:35:34+06:00")));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testStreamAllTransactionExceededLimitByAccountClient() throws Exception {
+
+        /* Arrange */
+        String accountClient = "0000000001";
+        String accountCounterparty = "9000000000";
+
+        // The service passes each transaction to the consumer as it is read
+        doAnswer(invocation -> {
+            Consumer<TransactionExceededLimitDto> consumer = invocation.getArgument(1);
+            consumer.accept(createTransactionExceededLimitDto(accountClient, accountCounterparty,
+                    "RUB", 1000.0, "Service",
+                    ZonedDateTime.parse("2024-01-30T16:30:45+06:00", DateTimeFormatter.ISO_OFFSET_DATE_TIME),
+                    500.0,"EUR",
+                    ZonedDateTime.parse("2024-01-30T15:35:34+06:00", DateTimeFormatter.ISO_OFFSET_DATE_TIME)));
+            consumer.accept(createTransactionExceededLimitDto(accountClient, accountCounterparty,
+                    "USD", 100.0, "Product",
+                    ZonedDateTime.parse("2024-01-30T14:30:45+06:00", DateTimeFormatter.ISO_OFFSET_DATE_TIME),
+                    200.0,"USD",
+                    ZonedDateTime.parse("2024-01-30T15:35:34+06:00", DateTimeFormatter.ISO_OFFSET_DATE_TIME)));
+            return null;
+        }).when(clientService).streamAllTransactionExceededLimitDtoByAccountClient(eq(accountClient),
+                ArgumentMatchers.any(Consumer.class));
+
+        /* Act */
+        MvcResult mvcResult = mockMvc.perform(get("/api/client/transaction/{account_client}/stream", accountClient))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        /* Assert */
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].currency_shortname", is("RUB")))
+                .andExpect(jsonPath("$[0].datetime", is("2024-01-30T16:30:45+06:00")))
+                .andExpect(jsonPath("$[1].currency_shortname", is("USD")))
+                .andExpect(jsonPath("$[1].limit_sum", is(200.0)));
+    }
+
     @Test
     public void testSaveAmountLimit() throws Exception {
 
@@ -1,6 +1,9 @@
 package lab.solva.user.transaction.rest;
 
+import lab.solva.user.transaction.dto.ExchangeRateBackfillJobDto;
 import lab.solva.user.transaction.dto.ExchangeRateDto;
+import lab.solva.user.transaction.enumeration.BackfillJobStatus;
+import lab.solva.user.transaction.service.ExchangeRateBackfillService;
 import lab.solva.user.transaction.service.ExchangeService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,13 +16,16 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -36,6 +42,9 @@ public class ExchangeControllerTest {
     @MockBean
     private ExchangeService exchangeService;
 
+    @MockBean
+    private ExchangeRateBackfillService exchangeRateBackfillService;
+
     @Test
     public void testGetAllExchangeRateByCurrentDate() throws Exception {
 
@@ -64,6 +73,37 @@ public class ExchangeControllerTest {
                 .andExpect(jsonPath("$[2].description", is(5.02)));
     }
 
+    @Test
+    public void testBackfillExchangeRates_JobStatusReturned() throws Exception {
+
+        /* Arrange */
+        LocalDate fromDate = LocalDate.of(2020, 1, 1);
+        LocalDate toDate = LocalDate.of(2023, 12, 31);
+        ExchangeRateBackfillJobDto exchangeRateBackfillJobDto = new ExchangeRateBackfillJobDto(
+                "b1a5c2d4", BackfillJobStatus.PENDING.name(), fromDate, toDate, null, null);
+
+        when(exchangeRateBackfillService.startBackfillExchangeRates(fromDate, toDate))
+                .thenReturn(exchangeRateBackfillJobDto);
+        when(exchangeRateBackfillService.getBackfillJob("b1a5c2d4")).thenReturn(Optional.of(exchangeRateBackfillJobDto));
+        when(exchangeRateBackfillService.getBackfillJob("unknown")).thenReturn(Optional.empty());
+
+        /* Act & Assert */
+        // The backfill is not performed on the request thread, the request is accepted
+        mockMvc.perform(post("/api/exchange/backfill")
+                .param("from_date", "2020-01-01")
+                .param("to_date", "2023-12-31"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.job_id", is("b1a5c2d4")))
+                .andExpect(jsonPath("$.status", is("PENDING")));
+
+        mockMvc.perform(get("/api/exchange/backfill/b1a5c2d4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("PENDING")));
+
+        mockMvc.perform(get("/api/exchange/backfill/unknown"))
+                .andExpect(status().isNotFound());
+    }
+
     // Method for create object of ExchangeRateDto
     private ExchangeRateDto createExchangeRateDto(String title, String fullname, double description) {
 
@@ -0,0 +1,312 @@
+package lab.solva.user.transaction.service.impl;
+
+import lab.solva.user.transaction.dto.ExpenseTransactionDto;
+import lab.solva.user.transaction.dto.ExpenseTransactionResultDto;
+import lab.solva.user.transaction.enumeration.ProcessingStatus;
+import lab.solva.user.transaction.lock.LimitLocks;
+import lab.solva.user.transaction.model.AmountLimitEntity;
+import lab.solva.user.transaction.model.ExpenseTransactionEntity;
+import lab.solva.user.transaction.repository.AmountLimitRepository;
+import lab.solva.user.transaction.repository.ExpenseTransactionRepository;
+import lab.solva.user.transaction.repository.MonthlySpendRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+
+// Transactions are saved by concurrent threads, each in its own database transaction,
+// a separate database keeps them from the other tests; The totals of the month are read from the database
+// on each evaluation, as with several instances of the application
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:concurrencydb;DB_CLOSE_ON_EXIT=FALSE",
+        "transaction.spend-cache.enabled=false"
+})
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+@SuppressWarnings("unused")
+public class BankServiceImplConcurrencyTest {
+
+    private static final int THREAD_COUNT = 16;
+
+    @Autowired
+    private BankServiceImpl bankServiceImpl;
+
+    @Autowired
+    private ExpenseTransactionRepository expenseTransactionRepository;
+
+    @Autowired
+    private AmountLimitRepository amountLimitRepository;
+
+    @SpyBean
+    private MonthlySpendRepository monthlySpendRepository;
+
+    @Autowired
+    private LimitLocks limitLocks;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    public void testSaveExpenseTransactionDto_ConcurrentLimitEvaluation() throws Exception {
+
+        /* Arrange */
+        String accountClient = "0000000071";
+
+        // Ten transactions of 100 are within the limit, all following transactions exceed it
+        AmountLimitEntity amountLimitEntity = new AmountLimitEntity();
+        amountLimitEntity.setAccountClient(accountClient);
+        amountLimitEntity.setLimitSum(1050.0);
+        amountLimitEntity.setLimitCurrencyCode("KZT");
+        amountLimitEntity.setExpenseCategory("Service");
+        amountLimitEntity.setLimitDateTime(Timestamp.valueOf(YearMonth.now().atDay(1).atStartOfDay()));
+        amountLimitRepository.save(amountLimitEntity);
+
+        /* Act */
+        // Single transactions and batches of two transactions of the same account at the same time
+        runConcurrently(thread -> {
+            if (thread % 2 == 0) {
+                bankServiceImpl.saveExpenseTransactionDto(createExpenseTransactionDto(accountClient, "Service"));
+                bankServiceImpl.saveExpenseTransactionDto(createExpenseTransactionDto(accountClient, "Service"));
+            } else {
+                bankServiceImpl.saveExpenseTransactionDtoList(List.of(
+                        createExpenseTransactionDto(accountClient, "Service"),
+                        createExpenseTransactionDto(accountClient, "Service")));
+            }
+        });
+
+        /* Assert */
+        List<ExpenseTransactionEntity> expenseTransactionEntityList = findExpenseTransactions(accountClient);
+
+        assertEquals(THREAD_COUNT * 2, expenseTransactionEntityList.size());
+        assertEquals(10, expenseTransactionEntityList.stream()
+                .filter(expenseTransactionEntity -> !expenseTransactionEntity.isLimitExceeded())
+                .count());
+
+        // The total of the month includes every saved transaction
+        assertEquals(new BigDecimal("3200.00"), monthlySpendRepository.findMonthlySpend(accountClient, "Service",
+                YearMonth.now()).get(0).getTransactionSum());
+    }
+
+    @Test
+    public void testSaveExpenseTransactionDto_ConcurrentDefaultLimit() throws Exception {
+
+        /* Arrange */
+        String accountClient = "0000000072";
+
+        /* Act */
+        // The first transactions of an account without a limit at the same time
+        runConcurrently(thread ->
+                bankServiceImpl.saveExpenseTransactionDto(createExpenseTransactionDto(accountClient, "Product")));
+
+        /* Assert */
+        // The default limit is saved once
+        assertEquals(1, amountLimitRepository.findAllAmountLimitByAccount(accountClient).size());
+        assertEquals(THREAD_COUNT, findExpenseTransactions(accountClient).size());
+    }
+
+    @Test
+    public void testSaveExpenseTransactionDtoList_KeySavedByAnotherInstance() {
+
+        /* Arrange */
+        String accountClient = "0000000073";
+        String savedKey = UUID.randomUUID().toString();
+
+        // The key has been saved without the cache of this instance, as by another instance of the application
+        ExpenseTransactionEntity savedEntity = new ExpenseTransactionEntity();
+        savedEntity.setAccountClient(accountClient);
+        savedEntity.setAccountCounterparty("9000000000");
+        savedEntity.setCurrencyCode("KZT");
+        savedEntity.setTransactionSum(100.0);
+        savedEntity.setExpenseCategory("Service");
+        savedEntity.setTransactionDateTime(Timestamp.from(ZonedDateTime.now().minusMinutes(1).toInstant()));
+        savedEntity.setTransactionKey(savedKey);
+        expenseTransactionRepository.save(savedEntity);
+
+        ExpenseTransactionDto retriedDto = createExpenseTransactionDto(accountClient, "Service");
+        retriedDto.transaction_key = savedKey;
+        ExpenseTransactionDto newDto = createExpenseTransactionDto(accountClient, "Service");
+        newDto.transaction_key = UUID.randomUUID().toString();
+
+        /* Act */
+        List<ExpenseTransactionResultDto> results =
+                bankServiceImpl.saveExpenseTransactionDtoList(List.of(retriedDto, newDto));
+
+        /* Assert */
+        // The unique index rejects the batch, it is saved again without the saved key
+        assertEquals(ProcessingStatus.DUPLICATE.name(), results.get(0).status);
+        assertEquals(ProcessingStatus.SAVED.name(), results.get(1).status);
+        assertEquals(2, findExpenseTransactions(accountClient).size());
+    }
+
+    @Test
+    public void testSaveExpenseTransactionDto_SpendOfAnotherInstanceIncluded() {
+
+        /* Arrange */
+        String accountClient = "0000000074";
+
+        AmountLimitEntity amountLimitEntity = new AmountLimitEntity();
+        amountLimitEntity.setAccountClient(accountClient);
+        amountLimitEntity.setLimitSum(150.0);
+        amountLimitEntity.setLimitCurrencyCode("KZT");
+        amountLimitEntity.setExpenseCategory("Service");
+        amountLimitEntity.setLimitDateTime(Timestamp.valueOf(YearMonth.now().atDay(1).atStartOfDay()));
+        amountLimitRepository.save(amountLimitEntity);
+
+        // The totals of the month are read by this instance with its first transaction
+        ExpenseTransactionDto firstDto = createExpenseTransactionDto(accountClient, "Service");
+        firstDto.sum = 10.0;
+        bankServiceImpl.saveExpenseTransactionDto(firstDto);
+
+        // A transaction saved with the totals of the month by another instance of the application
+        ExpenseTransactionEntity otherInstanceEntity = new ExpenseTransactionEntity();
+        otherInstanceEntity.setAccountClient(accountClient);
+        otherInstanceEntity.setAccountCounterparty("9000000000");
+        otherInstanceEntity.setCurrencyCode("KZT");
+        otherInstanceEntity.setTransactionSum(100.0);
+        otherInstanceEntity.setExpenseCategory("Service");
+        otherInstanceEntity.setTransactionDateTime(Timestamp.from(ZonedDateTime.now().minusMinutes(1).toInstant()));
+        transactionTemplate.executeWithoutResult(status -> {
+            expenseTransactionRepository.save(otherInstanceEntity);
+            monthlySpendRepository.addTransactions(List.of(otherInstanceEntity));
+        });
+
+        /* Act */
+        bankServiceImpl.saveExpenseTransactionDto(createExpenseTransactionDto(accountClient, "Service"));
+
+        /* Assert */
+        // 10 + 100 + 100 exceeds the limit of 150, the spend of the other instance is included
+        assertEquals(List.of(false, false, true), findExpenseTransactions(accountClient).stream()
+                .sorted(Comparator.comparing(ExpenseTransactionEntity::getId))
+                .map(ExpenseTransactionEntity::isLimitExceeded)
+                .toList());
+    }
+
+    @Test
+    public void testSaveExpenseTransactionDto_KeyInFlightNotAcknowledged() throws Exception {
+
+        /* Arrange */
+        String accountClient = "0000000075";
+        ExpenseTransactionDto expenseTransactionDto = createExpenseTransactionDto(accountClient, "Service");
+        expenseTransactionDto.transaction_key = UUID.randomUUID().toString();
+
+        // The first save of the transaction fails
+        doThrow(new DataAccessResourceFailureException("Connection to the database lost"))
+                .when(monthlySpendRepository).addTransactions(anyCollection());
+
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        ReentrantLock limitLock = limitLocks.lock(new LimitLocks.Key(accountClient, "Service"));
+
+        try {
+            // The first request claims the key and waits for the limit lock held by the test
+            Future<?> firstFuture = executorService.submit(() ->
+                    bankServiceImpl.saveExpenseTransactionDto(expenseTransactionDto));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (!limitLock.hasQueuedThreads()) {
+                assertTrue(System.nanoTime() < deadline);
+                Thread.sleep(10);
+            }
+
+            /* Act */
+            // Retries while the key is in flight
+            ResponseStatusException retryException = assertThrows(ResponseStatusException.class,
+                    () -> bankServiceImpl.saveExpenseTransactionDto(expenseTransactionDto));
+            List<ExpenseTransactionResultDto> batchResults =
+                    bankServiceImpl.saveExpenseTransactionDtoList(List.of(expenseTransactionDto));
+
+            limitLock.unlock();
+            limitLock = null;
+
+            ExecutionException firstException = assertThrows(ExecutionException.class,
+                    () -> firstFuture.get(60, TimeUnit.SECONDS));
+
+            // Retry after the first request has failed and the database is available again
+            reset(monthlySpendRepository);
+            bankServiceImpl.saveExpenseTransactionDto(expenseTransactionDto);
+
+            /* Assert */
+            // The retries in flight are not acknowledged as duplicates
+            assertEquals(HttpStatus.CONFLICT, retryException.getStatus());
+            assertEquals(ProcessingStatus.IN_PROGRESS.name(), batchResults.get(0).status);
+            assertInstanceOf(DataAccessResourceFailureException.class, firstException.getCause());
+
+            // The transaction is saved once, by the retry
+            assertEquals(1, findExpenseTransactions(accountClient).size());
+        } finally {
+            if (limitLock != null) {
+                limitLock.unlock();
+            }
+            executorService.shutdownNow();
+        }
+    }
+
+    private void runConcurrently(IntConsumer task) throws Exception {
+
+        ExecutorService executorService = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch startLatch = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                int thread = i;
+                futures.add(executorService.submit(() -> {
+                    startLatch.await();
+                    task.accept(thread);
+                    return null;
+                }));
+            }
+
+            startLatch.countDown();
+
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private List<ExpenseTransactionEntity> findExpenseTransactions(String accountClient) {
+        return expenseTransactionRepository.findAll().stream()
+                .filter(expenseTransactionEntity -> accountClient.equals(expenseTransactionEntity.getAccountClient()))
+                .toList();
+    }
+
+    private static ExpenseTransactionDto createExpenseTransactionDto(String accountClient, String expenseCategory) {
+
+        ExpenseTransactionDto expenseTransactionDto = new ExpenseTransactionDto();
+
+        expenseTransactionDto.account_from = accountClient;
+        expenseTransactionDto.account_to = "9000000000";
+        expenseTransactionDto.currency_shortname = "KZT";
+        expenseTransactionDto.sum = 100.0;
+        expenseTransactionDto.expense_category = expenseCategory;
+        expenseTransactionDto.datetime = ZonedDateTime.now().minusMinutes(1);
+
+        return expenseTransactionDto;
+    }
+}
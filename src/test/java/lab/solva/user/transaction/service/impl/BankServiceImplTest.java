@@ -1,10 +1,24 @@
 package lab.solva.user.transaction.service.impl;
 
+import lab.solva.user.transaction.cache.ExchangeRateCache;
+import lab.solva.user.transaction.cache.MonthlySpendAccumulator;
+import lab.solva.user.transaction.cache.TransactionKeyCache;
 import lab.solva.user.transaction.dto.ExpenseTransactionDto;
+import lab.solva.user.transaction.dto.ExpenseTransactionResultDto;
+import lab.solva.user.transaction.enumeration.ProcessingStatus;
 import lab.solva.user.transaction.model.AmountLimitEntity;
+import lab.solva.user.transaction.model.ExchangeInfoEntity;
+import lab.solva.user.transaction.model.ExchangeRateEntity;
 import lab.solva.user.transaction.model.ExpenseTransactionEntity;
 import lab.solva.user.transaction.repository.AmountLimitRepository;
+import lab.solva.user.transaction.repository.ExchangeInfoRepository;
 import lab.solva.user.transaction.repository.ExpenseTransactionRepository;
+import lab.solva.user.transaction.repository.MonthlySpendRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,14 +27,24 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
 import java.lang.reflect.Field;
 import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
+import java.time.YearMonth;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -34,12 +58,49 @@ public class BankServiceImplTest {
     @Autowired
     private ExpenseTransactionRepository expenseTransactionRepository;
 
+    @Autowired
+    private MonthlySpendRepository monthlySpendRepository;
+
     @Autowired
     private AmountLimitRepository amountLimitRepository;
 
     @Autowired
     private BankServiceImpl bankServiceImpl;
 
+    @Autowired
+    private ExchangeInfoRepository exchangeInfoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MonthlySpendAccumulator monthlySpendAccumulator;
+
+    @Autowired
+    private ExchangeRateCache exchangeRateCache;
+
+    @Autowired
+    private TransactionKeyCache transactionKeyCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+
+        // Totals loaded in previous tests refer to rolled back data
+        monthlySpendAccumulator.clear();
+
+        // Exchange rates for the current date, so that the snapshot is refreshed without an external service;
+        // Snapshots of previous tests refer to rolled back data
+        exchangeRateCache.clear();
+        createSampleExchangeRates(LocalDate.now());
+        exchangeRateCache.refresh();
+    }
+
     @Test
     public void testSaveExpenseTransactionDto() {
 
@@ -98,6 +159,283 @@ public class BankServiceImplTest {
                 "Transaction DateTime should be before Current DateTime");
     }
 
+    @Test
+    public void testSaveExpenseTransactionDto_StatementCount() {
+
+        /* Arrange */
+        String accountClient = "0000000001";
+        String expenseCategory = "Service";
+
+        ExpenseTransactionDto expenseTransactionDto = new ExpenseTransactionDto();
+
+        expenseTransactionDto.account_from = accountClient;
+        expenseTransactionDto.account_to = "9000000000";
+        expenseTransactionDto.currency_shortname = "USD";
+        expenseTransactionDto.sum = 100.0;
+        expenseTransactionDto.expense_category = expenseCategory;
+        expenseTransactionDto.datetime = ZonedDateTime.now().minusMinutes(1).withNano(0);
+
+        // Setting the limit for the current month
+        createAmountLimitEntity(accountClient, 1000.0, "USD", expenseCategory,
+                ZonedDateTime.of(LocalDateTime.now().withNano(0), ZoneId.systemDefault()));
+
+        // Inserts of pending entities are deferred until flush, they should not be counted
+        entityManager.flush();
+
+        long sequenceValue = getSequenceValue("T_EXPENSE_TRANSACTION_ID_SEQ");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        /* Act */
+        bankServiceImpl.saveExpenseTransactionDto(expenseTransactionDto);
+        entityManager.flush();
+        long queryExecutionCount = statistics.getQueryExecutionCount();
+        long entityInsertCount = statistics.getEntityInsertCount();
+        long prepareStatementCount = statistics.getPrepareStatementCount();
+
+        /* Assert */
+        // Selecting the limit, selecting the totals of the month, inserting the transaction and adding it
+        // to the totals of the month; The id sequence is called only when the pool of allocated ids is exhausted
+        long sequenceCallCount = (getSequenceValue("T_EXPENSE_TRANSACTION_ID_SEQ") - sequenceValue) / 50;
+        assertEquals(2, queryExecutionCount);
+        assertEquals(1, entityInsertCount);
+        assertEquals(4 + sequenceCallCount, prepareStatementCount);
+    }
+
+    @Test
+    public void testSaveExpenseTransactionDto_OneRatesLookupPerTransaction() {
+
+        /* Arrange */
+        ZonedDateTime transactionDateTime = ZonedDateTime.now().minusMinutes(1).withNano(0);
+        double requestCount = countExchangeRateCacheRequests();
+
+        /* Act */
+        bankServiceImpl.saveExpenseTransactionDto(createExpenseTransactionDto("0000000001", "USD", 10.0,
+                "Service", transactionDateTime));
+        bankServiceImpl.saveExpenseTransactionDtoList(List.of(
+                createExpenseTransactionDto("0000000001", "USD", 10.0, "Service", transactionDateTime),
+                createExpenseTransactionDto("0000000001", "KZT", 10.0, "Service", transactionDateTime)));
+
+        /* Assert */
+        // Only the rates of the transaction date are looked up, once for each transaction
+        assertEquals(3.0, countExchangeRateCacheRequests() - requestCount);
+    }
+
+    @Test
+    public void testSaveExpenseTransactionDtoList_BatchInserts() {
+
+        /* Arrange */
+        String accountClient = "0000000001";
+        String expenseCategory = "Product";
+        int transactionCount = 120;
+        ZonedDateTime currentDateTime = ZonedDateTime.now().minusMinutes(1).withNano(0);
+
+        List<ExpenseTransactionDto> expenseTransactionDtoList = new ArrayList<>();
+        for (int i = 0; i < transactionCount; i++) {
+            expenseTransactionDtoList.add(createExpenseTransactionDto(accountClient, "KZT", 10.0,
+                    expenseCategory, currentDateTime.minusSeconds(i)));
+        }
+
+        // Setting the limit for the current month, so that only transactions are inserted
+        createAmountLimitEntity(accountClient, 1000000.0, "KZT", expenseCategory,
+                ZonedDateTime.of(LocalDateTime.now().withNano(0), ZoneId.systemDefault()));
+
+        // Inserts of pending entities are deferred until flush, they should not be counted
+        entityManager.flush();
+
+        long sequenceValue = getSequenceValue("T_EXPENSE_TRANSACTION_ID_SEQ");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        /* Act */
+        bankServiceImpl.saveExpenseTransactionDtoList(expenseTransactionDtoList);
+        entityManager.flush();
+        long entityInsertCount = statistics.getEntityInsertCount();
+        long prepareStatementCount = statistics.getPrepareStatementCount();
+
+        /* Assert */
+        assertEquals(transactionCount, entityInsertCount);
+
+        // With IDENTITY ids each transaction is a separate statement; with pooled sequence ids the transactions
+        // are inserted in JDBC batches of 50 (50 + 50 + 20) of one prepared statement and ids are allocated
+        // in blocks of 50: selecting the limit, selecting the totals of the month, inserting the transactions,
+        // adding them to the totals of the month and one call to the id sequence for each block of ids allocated
+        long sequenceCallCount = (getSequenceValue("T_EXPENSE_TRANSACTION_ID_SEQ") - sequenceValue) / 50;
+        assertEquals(4 + sequenceCallCount, prepareStatementCount);
+    }
+
+    @Test
+    public void testSaveExpenseTransactionDtoList_RatesOfTransactionDate() {
+
+        /* Arrange */
+        String accountClient = "0000000001";
+        String expenseCategory = "Service";
+        ZonedDateTime transactionDateTime = ZonedDateTime.of(2024, 1, 20, 12, 0, 0, 0, ZoneId.systemDefault());
+
+        // Setting the limit for the month of the transaction
+        createAmountLimitEntity(accountClient, 5000.0, "KZT", expenseCategory,
+                ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneId.systemDefault()));
+
+        // Exchange rates of a previous date are in effect on the transaction date
+        ExchangeInfoEntity exchangeInfoEntity = new ExchangeInfoEntity();
+        exchangeInfoEntity.setResource("https://nationalbank.kz");
+        exchangeInfoEntity.setRequestDate(LocalDate.of(2024, 1, 15));
+        exchangeInfoEntity.setExchangeRateEntities(Set.of(
+                createExchangeRateEntity("Доллар США", "USD", 100.0, exchangeInfoEntity)));
+        exchangeInfoRepository.save(exchangeInfoEntity);
+        exchangeRateCache.addSnapshots(List.of(exchangeInfoEntity));
+
+        ExpenseTransactionDto expenseTransactionDto = createExpenseTransactionDto(accountClient, "USD", 30.0,
+                expenseCategory, transactionDateTime);
+
+        /* Act */
+        List<ExpenseTransactionResultDto> resultDtoList = bankServiceImpl.saveExpenseTransactionDtoList(
+                List.of(expenseTransactionDto));
+
+        /* Assert */
+        // 30 USD are 3000 KZT at the rate of the transaction date, but 13496.70 KZT at the current rate
+        assertEquals(ProcessingStatus.SAVED.name(), resultDtoList.get(0).status);
+        assertFalse(resultDtoList.get(0).limit_exceeded,
+                "Expected the amount to be converted at the rate of the transaction date");
+    }
+
+    @Test
+    public void testSaveExpenseTransactionDtoList_SequentialLimitEvaluation() {
+
+        /* Arrange */
+        String accountClient = "0000000001";
+        String expenseCategory = "Service";
+        ZonedDateTime currentDateTime = ZonedDateTime.now().minusMinutes(10).withNano(0);
+
+        // Setting the limit for the current month
+        createAmountLimitEntity(accountClient, 1000.0, "USD", expenseCategory,
+                ZonedDateTime.of(LocalDateTime.now().withNano(0), ZoneId.systemDefault()));
+
+        // Transactions are received out of order, the limit is evaluated in the order of date and time
+        ExpenseTransactionDto thirdTransactionDto = createExpenseTransactionDto(accountClient, "USD", 400.0,
+                expenseCategory, currentDateTime.plusMinutes(3));
+        ExpenseTransactionDto firstTransactionDto = createExpenseTransactionDto(accountClient, "USD", 400.0,
+                expenseCategory, currentDateTime.plusMinutes(1));
+        ExpenseTransactionDto invalidTransactionDto = createExpenseTransactionDto(accountClient, "USD", 400.0,
+                "Unknown", currentDateTime.plusMinutes(1));
+        ExpenseTransactionDto secondTransactionDto = createExpenseTransactionDto(accountClient, "USD", 400.0,
+                expenseCategory, currentDateTime.plusMinutes(2));
+
+        /* Act */
+        List<ExpenseTransactionResultDto> resultDtoList = bankServiceImpl.saveExpenseTransactionDtoList(
+                List.of(thirdTransactionDto, firstTransactionDto, invalidTransactionDto, secondTransactionDto));
+
+        /* Assert */
+        assertEquals(4, resultDtoList.size());
+
+        assertEquals(ProcessingStatus.SAVED.name(), resultDtoList.get(0).status);
+        assertTrue(resultDtoList.get(0).limit_exceeded, "Expected limit to be exceeded by the third transaction");
+        assertFalse(resultDtoList.get(1).limit_exceeded);
+        assertFalse(resultDtoList.get(3).limit_exceeded);
+
+        assertEquals(2, resultDtoList.get(2).index);
+        assertEquals(ProcessingStatus.REJECTED.name(), resultDtoList.get(2).status);
+        assertNotNull(resultDtoList.get(2).message);
+
+        assertEquals(3, expenseTransactionRepository.findAll().size());
+    }
+
+    @Test
+    public void testSaveExpenseTransactionDto_DuplicateKeyNotSaved() {
+
+        /* Arrange */
+        // Keys remain in the cache after the test data is rolled back, each test uses new keys
+        String transactionKey = UUID.randomUUID().toString();
+        ZonedDateTime transactionDateTime = ZonedDateTime.now().minusMinutes(1).withNano(0);
+        long transactionCount = expenseTransactionRepository.count();
+
+        ExpenseTransactionDto expenseTransactionDto = createExpenseTransactionDto("0000000001", "KZT", 100.0,
+                "Service", transactionDateTime);
+        expenseTransactionDto.transaction_key = transactionKey;
+
+        /* Act */
+        bankServiceImpl.saveExpenseTransactionDto(expenseTransactionDto);
+
+        // A retry while the key is a recent key
+        bankServiceImpl.saveExpenseTransactionDto(expenseTransactionDto);
+
+        // A retry after the key has left the recent keys, it is looked up in the database
+        transactionKeyCache.release(transactionKey);
+        bankServiceImpl.saveExpenseTransactionDto(expenseTransactionDto);
+
+        /* Assert */
+        assertEquals(transactionCount + 1, expenseTransactionRepository.count());
+        assertTrue(expenseTransactionRepository.existsByTransactionKey(transactionKey));
+        assertArrayEquals(new long[] {10000L, 0L, 0L, 0L},
+                monthlySpendAccumulator.getMonthlySums("0000000001", "Service",
+                        YearMonth.from(transactionDateTime)));
+    }
+
+    @Test
+    public void testSaveExpenseTransactionDtoList_DuplicateKeys() {
+
+        /* Arrange */
+        String savedKey = UUID.randomUUID().toString();
+        String repeatedKey = UUID.randomUUID().toString();
+        ZonedDateTime transactionDateTime = ZonedDateTime.now().minusMinutes(1).withNano(0);
+
+        ExpenseTransactionDto savedDto = createExpenseTransactionDto("0000000001", "KZT", 100.0,
+                "Service", transactionDateTime);
+        savedDto.transaction_key = savedKey;
+        bankServiceImpl.saveExpenseTransactionDto(savedDto);
+        transactionKeyCache.release(savedKey);
+
+        List<ExpenseTransactionDto> expenseTransactionDtoList = new ArrayList<>();
+        for (String transactionKey : new String[] {repeatedKey, savedKey, repeatedKey, null}) {
+            ExpenseTransactionDto expenseTransactionDto = createExpenseTransactionDto("0000000001", "KZT", 100.0,
+                    "Service", transactionDateTime);
+            expenseTransactionDto.transaction_key = transactionKey;
+            expenseTransactionDtoList.add(expenseTransactionDto);
+        }
+        long transactionCount = expenseTransactionRepository.count();
+
+        /* Act */
+        List<ExpenseTransactionResultDto> results =
+                bankServiceImpl.saveExpenseTransactionDtoList(expenseTransactionDtoList);
+
+        /* Assert */
+        // The saved key is found in the database, the repeated key in the batch itself
+        assertEquals(ProcessingStatus.SAVED.name(), results.get(0).status);
+        assertEquals(ProcessingStatus.DUPLICATE.name(), results.get(1).status);
+        assertEquals(ProcessingStatus.DUPLICATE.name(), results.get(2).status);
+        assertEquals(ProcessingStatus.SAVED.name(), results.get(3).status);
+        assertEquals(transactionCount + 2, expenseTransactionRepository.count());
+    }
+
+    @Test
+    public void testSaveExpenseTransactionDtoList_ColumnConstraintsRejected() {
+
+        /* Arrange */
+        ZonedDateTime transactionDateTime = ZonedDateTime.now().minusMinutes(1).withNano(0);
+
+        ExpenseTransactionDto longAccountDto = createExpenseTransactionDto("00000000011", "KZT", 100.0,
+                "Service", transactionDateTime);
+        ExpenseTransactionDto emptyCounterpartyDto = createExpenseTransactionDto("0000000001", "KZT", 100.0,
+                "Service", transactionDateTime);
+        emptyCounterpartyDto.account_to = null;
+        ExpenseTransactionDto emptyCurrencyDto = createExpenseTransactionDto("0000000001", null, 100.0,
+                "Service", transactionDateTime);
+        ExpenseTransactionDto infiniteSumDto = createExpenseTransactionDto("0000000001", "KZT",
+                Double.POSITIVE_INFINITY, "Service", transactionDateTime);
+        long transactionCount = expenseTransactionRepository.count();
+
+        /* Act */
+        List<ExpenseTransactionResultDto> results = bankServiceImpl.saveExpenseTransactionDtoList(
+                List.of(longAccountDto, emptyCounterpartyDto, emptyCurrencyDto, infiniteSumDto));
+
+        /* Assert */
+        // The transactions would be rejected by the database, they are not saved (nor appended to the journal)
+        for (ExpenseTransactionResultDto result : results) {
+            assertEquals(ProcessingStatus.REJECTED.name(), result.status);
+        }
+        assertEquals(transactionCount, expenseTransactionRepository.count());
+    }
+
     @Test
     public void testGetLimitExceeded1_True() {
 
@@ -236,6 +574,43 @@ public class BankServiceImplTest {
         assertFalse(limitExceeded, "Expected limit not to be exceeded for the provided data");
     }
 
+    @Test
+    public void testGetLimitExceeded3_False() {
+
+        /* Arrange */
+        // Transaction data for verification
+        String accountClient = "0000000001";
+        String expenseCategory = "Service";
+        String currencyCode = "KZT";
+        double currentTransactionSum = 0.2;
+
+        // Receiving the 1st day of the current month with the start time 00:00:00
+        LocalDateTime firstDayOfMonth = LocalDateTime.now().withDayOfMonth(1).toLocalDate().atStartOfDay();
+        ZonedDateTime zonedDateTime = ZonedDateTime.of(firstDayOfMonth, ZoneId.systemDefault());
+
+        // Setting the required values in existingLimit
+        AmountLimitEntity amountLimitEntity = createAmountLimitEntity(accountClient,
+                0.3, "KZT", expenseCategory,
+                ZonedDateTime.parse(zonedDateTime.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)));
+
+        // Use the current date and time in the required OffsetDateTime format
+        OffsetDateTime currentOffsetDateTime = OffsetDateTime.now().withNano(0);
+
+        // Filling in some previous transaction data
+        createExpenseTransactionEntity(accountClient, "9000000000",
+                currencyCode, 0.1, expenseCategory,
+                ZonedDateTime.parse(currentOffsetDateTime.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)),
+                false, amountLimitEntity);
+
+        /* Act */
+        boolean limitExceeded = bankServiceImpl.getLimitExceeded(accountClient, expenseCategory,
+                currencyCode, currentTransactionSum);
+
+        /* Assert */
+        // Amount of the limit and all transaction amounts are equal (0.1 + 0.2 > 0.3 in double arithmetic)
+        assertFalse(limitExceeded, "Expected limit not to be exceeded for the provided data");
+    }
+
     @Test
     public void testGetAmountLimitWhenLimitExists() {
 
@@ -282,6 +657,23 @@ public class BankServiceImplTest {
         assertEquals(expenseCategory, result.getExpenseCategory());
     }
 
+    @Test
+    public void testGetAmountLimit_LoadsConstantNumberOfRows() {
+
+        /* Arrange */
+        String accountClient = "0000000001";
+        String expenseCategory = "Service";
+
+        /* Act */
+        long entityLoadCountFew = countEntityLoadsOfAmountLimit(accountClient, expenseCategory, 1);
+        long entityLoadCountMany = countEntityLoadsOfAmountLimit(accountClient, expenseCategory, 100);
+
+        /* Assert */
+        // Only the limit itself is loaded, regardless of the number of its transactions
+        assertEquals(1, entityLoadCountFew);
+        assertEquals(entityLoadCountFew, entityLoadCountMany);
+    }
+
     @Test
     public void testSaveAmountDefaultLimit() throws NoSuchFieldException, IllegalAccessException {
 
@@ -310,6 +702,66 @@ public class BankServiceImplTest {
         assertEquals("USD", defaultLimitCurrencyCode, "Default limit currency code should be USD");
     }
 
+    // Method for create object of ExpenseTransactionDto
+    private ExpenseTransactionDto createExpenseTransactionDto(String account_from, String currency_shortname,
+                                                              double sum, String expense_category,
+                                                              ZonedDateTime datetime) {
+
+        ExpenseTransactionDto expenseTransactionDto = new ExpenseTransactionDto();
+
+        expenseTransactionDto.account_from = account_from;
+        expenseTransactionDto.account_to = "9000000000";
+        expenseTransactionDto.currency_shortname = currency_shortname;
+        expenseTransactionDto.sum = sum;
+        expenseTransactionDto.expense_category = expense_category;
+        expenseTransactionDto.datetime = datetime;
+
+        return expenseTransactionDto;
+    }
+
+    // Method for reading the next value of a sequence, the sequence is advanced by each block of allocated ids
+    private long getSequenceValue(String sequenceName) {
+        return ((Number) entityManager.createNativeQuery(
+                        "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = :sequenceName")
+                .setParameter("sequenceName", sequenceName)
+                .getSingleResult()).longValue();
+    }
+
+    private double countExchangeRateCacheRequests() {
+        return meterRegistry.find("exchange.rate.cache.requests").functionCounters().stream()
+                .mapToDouble(FunctionCounter::count)
+                .sum();
+    }
+
+    // Method for counting the entities loaded when reading the limit that has the specified number of transactions
+    private long countEntityLoadsOfAmountLimit(String accountClient, String expenseCategory, int transactionCount) {
+
+        AmountLimitEntity amountLimitEntity = createAmountLimitEntity(accountClient, 5000.0, "KZT", expenseCategory,
+                ZonedDateTime.of(LocalDateTime.now().withNano(0), ZoneId.systemDefault()));
+
+        for (int i = 0; i < transactionCount; i++) {
+            createExpenseTransactionEntity(accountClient, "9000000000", "KZT", 1.0, expenseCategory,
+                    ZonedDateTime.now(), false, amountLimitEntity);
+        }
+
+        // Reading the limit from the database, not from the persistence context
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        bankServiceImpl.getAmountLimit(accountClient, expenseCategory);
+        long entityLoadCount = statistics.getEntityLoadCount();
+
+        // Removing the limit so that it does not affect the next measurement
+        amountLimitRepository.deleteAll();
+        entityManager.flush();
+        entityManager.clear();
+
+        return entityLoadCount;
+    }
+
     // Method for create object of AmountLimitEntity
     private AmountLimitEntity createAmountLimitEntity(String account_from, double limit_sum,
                               String limit_currency_shortname, String expense_category, ZonedDateTime limit_datetime) {
@@ -346,5 +798,38 @@ public class BankServiceImplTest {
         expenseTransactionEntity.setAmountLimitEntity(amount_limit);
 
         expenseTransactionRepository.save(expenseTransactionEntity);
+
+        // The totals of the month are saved together with the transaction, as by the service
+        monthlySpendRepository.addTransactions(List.of(expenseTransactionEntity));
+    }
+
+    private void createSampleExchangeRates(LocalDate paramDate) {
+
+        ExchangeInfoEntity exchangeInfoEntity = new ExchangeInfoEntity();
+
+        exchangeInfoEntity.setResource("https://nationalbank.kz");
+        exchangeInfoEntity.setRequestDate(paramDate);
+
+        Set<ExchangeRateEntity> exchangeRateEntitySet = new HashSet<>();
+        exchangeRateEntitySet.add(createExchangeRateEntity("Доллар США", "USD", 449.89, exchangeInfoEntity));
+        exchangeRateEntitySet.add(createExchangeRateEntity("Евро", "EUR", 487.78, exchangeInfoEntity));
+        exchangeRateEntitySet.add(createExchangeRateEntity("Российский рубль", "RUB", 5.02, exchangeInfoEntity));
+
+        exchangeInfoEntity.setExchangeRateEntities(exchangeRateEntitySet);
+
+        exchangeInfoRepository.save(exchangeInfoEntity);
+    }
+
+    private ExchangeRateEntity createExchangeRateEntity(String currency_name, String currency_code,
+                                                        double exchange_rate, ExchangeInfoEntity exchange_info) {
+
+        ExchangeRateEntity exchangeRateEntity = new ExchangeRateEntity();
+
+        exchangeRateEntity.setCurrencyName(currency_name);
+        exchangeRateEntity.setCurrencyCode(currency_code);
+        exchangeRateEntity.setExchangeRate(exchange_rate);
+        exchangeRateEntity.setExchangeInfoEntity(exchange_info);
+
+        return exchangeRateEntity;
     }
 }
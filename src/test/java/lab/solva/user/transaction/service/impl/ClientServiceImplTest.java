@@ -3,6 +3,7 @@ package lab.solva.user.transaction.service.impl;
 import lab.solva.user.transaction.dto.AmountLimitDateDto;
 import lab.solva.user.transaction.dto.AmountLimitDto;
 import lab.solva.user.transaction.dto.TransactionExceededLimitDto;
+import lab.solva.user.transaction.dto.TransactionExceededLimitPageDto;
 import lab.solva.user.transaction.model.AmountLimitEntity;
 import lab.solva.user.transaction.model.ExpenseTransactionEntity;
 import lab.solva.user.transaction.repository.AmountLimitRepository;
@@ -22,10 +23,12 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -159,6 +162,71 @@ public class ClientServiceImplTest {
         assertEquals(2, actualDtoList.size());
     }
 
+    @Test
+    public void testGetTransactionExceededLimitPageDtoByAccountClient() {
+
+        /* Arrange */
+        String accountClient = "0000000001";
+
+        AmountLimitEntity amountLimitEntity = createAmountLimitEntity(accountClient,
+                50000.0, "KZT", "Service", ZonedDateTime.now().withNano(0));
+
+        // Two transactions with the same date and time, the order between them is determined by the id
+        // (the ids of the pooled sequence are not always in the order of creation, the sequence is shared
+        // by the test contexts)
+        ExpenseTransactionEntity firstEntity = createExpenseTransactionEntity(accountClient, "9000000000", "KZT",
+                60000.0, "Service", "2024-02-01T15:15:20+06:00", true, amountLimitEntity);
+        ExpenseTransactionEntity secondEntity = createExpenseTransactionEntity(accountClient, "9100000000", "KZT",
+                70000.0, "Service", "2024-02-01T15:15:20+06:00", true, amountLimitEntity);
+        boolean firstEntityHasLowerId = firstEntity.getId() < secondEntity.getId();
+        createExpenseTransactionEntity(accountClient, "9200000000", "KZT", 80000.0, "Service",
+                "2024-02-02T10:00:00+06:00", true, amountLimitEntity);
+
+        /* Act */
+        TransactionExceededLimitPageDto firstPageDto = clientServiceImpl.
+                getTransactionExceededLimitPageDtoByAccountClient(accountClient, null, null, 2);
+        TransactionExceededLimitPageDto secondPageDto = clientServiceImpl.
+                getTransactionExceededLimitPageDtoByAccountClient(accountClient,
+                        firstPageDto.next_datetime, firstPageDto.next_id, 2);
+
+        /* Assert */
+        assertEquals(2, firstPageDto.transactions.size());
+        assertEquals(firstEntityHasLowerId ? "9000000000" : "9100000000", firstPageDto.transactions.get(0).account_to);
+        assertEquals(firstEntityHasLowerId ? "9100000000" : "9000000000", firstPageDto.transactions.get(1).account_to);
+        assertNotNull(firstPageDto.next_id);
+
+        assertEquals(1, secondPageDto.transactions.size());
+        assertEquals("9200000000", secondPageDto.transactions.get(0).account_to);
+        assertNull(secondPageDto.next_datetime);
+        assertNull(secondPageDto.next_id);
+    }
+
+    @Test
+    public void testStreamAllTransactionExceededLimitDtoByAccountClient() {
+
+        /* Arrange */
+        String accountClient = "0000000001";
+
+        AmountLimitEntity amountLimitEntity = createAmountLimitEntity(accountClient,
+                50000.0, "KZT", "Service", ZonedDateTime.now().withNano(0));
+
+        createExpenseTransactionEntity(accountClient, "9000000000", "KZT", 60000.0, "Service",
+                "2024-02-02T15:15:20+06:00", true, amountLimitEntity);
+        createExpenseTransactionEntity(accountClient, "9100000000", "KZT", 70000.0, "Service",
+                "2024-02-01T15:15:20+06:00", true, amountLimitEntity);
+        createExpenseTransactionEntity(accountClient, "9200000000", "KZT", 100.0, "Service",
+                "2024-02-03T15:15:20+06:00", false, amountLimitEntity);
+
+        List<TransactionExceededLimitDto> actualDtoList = new ArrayList<>();
+
+        /* Act */
+        clientServiceImpl.streamAllTransactionExceededLimitDtoByAccountClient(accountClient, actualDtoList::add);
+
+        /* Assert */
+        assertEquals(clientServiceImpl.getAllTransactionExceededLimitDtoByAccountClient(accountClient), actualDtoList);
+        assertEquals(2, actualDtoList.size());
+    }
+
     // Method for create object of AmountLimitEntity
     private AmountLimitEntity createAmountLimitEntity(String account_from, double limit_sum,
                String limit_currency_shortname, String expense_category, ZonedDateTime limit_datetime) {
@@ -0,0 +1,285 @@
+package lab.solva.user.transaction.service.impl;
+
+import com.sun.net.httpserver.HttpServer;
+import lab.solva.user.transaction.dto.ExchangeRateBackfillDto;
+import lab.solva.user.transaction.dto.ExchangeRateBackfillJobDto;
+import lab.solva.user.transaction.enumeration.BackfillJobStatus;
+import lab.solva.user.transaction.model.ExchangeInfoEntity;
+import lab.solva.user.transaction.model.ExchangeRateEntity;
+import lab.solva.user.transaction.repository.ExchangeInfoRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+@Transactional
+@SuppressWarnings("unused")
+public class ExchangeRateBackfillServiceImplTest {
+
+    // Stub of the National Bank service serving the recorded get_rates.cfm response for any date
+    private static HttpServer httpServer;
+
+    private static final AtomicInteger requestCount = new AtomicInteger();
+
+    // Called by the stub with the requested date before the response is sent
+    private static volatile Consumer<LocalDate> requestListener = requestDate -> { };
+
+    @Autowired
+    private ExchangeInfoRepository exchangeInfoRepository;
+
+    @Autowired
+    private ExchangeRateBackfillServiceImpl exchangeRateBackfillServiceImpl;
+
+    @BeforeAll
+    public static void startStubServer() throws IOException {
+
+        String ratesXml;
+        try (InputStream inputStream =
+                     ExchangeRateBackfillServiceImplTest.class.getResourceAsStream("/get_rates.xml")) {
+            ratesXml = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/rss/get_rates.cfm", exchange -> {
+            requestCount.incrementAndGet();
+
+            // The date of the document is the requested date (fdate=dd.MM.yyyy)
+            String requestDate = exchange.getRequestURI().getQuery().substring("fdate=".length());
+            requestListener.accept(LocalDate.parse(requestDate, DateTimeFormatter.ofPattern("dd.MM.yyyy")));
+
+            byte[] body = ratesXml.replace("<date>01.02.2024</date>", "<date>" + requestDate + "</date>")
+                    .getBytes(StandardCharsets.UTF_8);
+
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        httpServer.start();
+    }
+
+    @AfterAll
+    public static void stopStubServer() {
+        httpServer.stop(0);
+    }
+
+    @DynamicPropertySource
+    public static void exchangeRateClientProperties(DynamicPropertyRegistry registry) {
+        registry.add("transaction.exchange-rate.client.url",
+                () -> "http://localhost:" + httpServer.getAddress().getPort() + "/rss/get_rates.cfm");
+    }
+
+    @Test
+    public void testBackfillExchangeRates() {
+
+        /* Arrange */
+        LocalDate fromDate = LocalDate.of(2024, 2, 1);
+        LocalDate toDate = LocalDate.of(2024, 2, 10);
+
+        // The rates of one date are already stored
+        createSampleExchangeRates(LocalDate.of(2024, 2, 3), 450.0);
+        requestCount.set(0);
+
+        /* Act */
+        ExchangeRateBackfillDto exchangeRateBackfillDto =
+                exchangeRateBackfillServiceImpl.backfillExchangeRates(fromDate, toDate);
+
+        /* Assert */
+        assertEquals(10, exchangeRateBackfillDto.requested_days);
+        assertEquals(9, exchangeRateBackfillDto.saved_days);
+        assertEquals(1, exchangeRateBackfillDto.skipped_days);
+        assertEquals(0, exchangeRateBackfillDto.failed_days);
+        assertEquals(9, requestCount.get());
+
+        Set<LocalDate> storedDates = exchangeInfoRepository.findRequestDatesBetween(fromDate, toDate);
+        assertEquals(10, storedDates.size());
+
+        // The stored rate of the skipped date is not replaced
+        assertEquals(450.0, exchangeInfoRepository.findCurrentExchangeInfo(LocalDate.of(2024, 2, 3)).orElseThrow()
+                .getExchangeRateEntities().iterator().next().getExchangeRate());
+    }
+
+    @Test
+    public void testBackfillExchangeRates_InvalidRange() {
+
+        /* Arrange */
+        LocalDate fromDate = LocalDate.now();
+
+        /* Act */
+        /* Assert */
+        assertThrows(IllegalArgumentException.class, () ->
+                exchangeRateBackfillServiceImpl.backfillExchangeRates(fromDate, fromDate.minusDays(1)));
+        assertThrows(IllegalArgumentException.class, () ->
+                exchangeRateBackfillServiceImpl.backfillExchangeRates(fromDate, fromDate.plusDays(1)));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testStartBackfillExchangeRates_DateSavedAtTheSameMomentSkipped() throws InterruptedException {
+
+        /* Arrange */
+        LocalDate fromDate = LocalDate.of(2020, 3, 1);
+        LocalDate toDate = LocalDate.of(2020, 3, 5);
+        LocalDate savedDate = LocalDate.of(2020, 3, 3);
+
+        // The rates of one date are saved by the refresh after the stored dates have been read
+        requestListener = requestDate -> {
+            if (requestDate.equals(savedDate)) {
+                createSampleExchangeRates(savedDate, 450.0);
+            }
+        };
+
+        try {
+            /* Act */
+            ExchangeRateBackfillJobDto startedJobDto =
+                    exchangeRateBackfillServiceImpl.startBackfillExchangeRates(fromDate, toDate);
+            ExchangeRateBackfillJobDto exchangeRateBackfillJobDto = awaitBackfillJob(startedJobDto.job_id);
+
+            /* Assert */
+            assertEquals(BackfillJobStatus.COMPLETED.name(), exchangeRateBackfillJobDto.status);
+            assertEquals(5, exchangeRateBackfillJobDto.result.requested_days);
+            assertEquals(4, exchangeRateBackfillJobDto.result.saved_days);
+            assertEquals(1, exchangeRateBackfillJobDto.result.skipped_days);
+
+            // The rates of the date are stored once, the rate saved first is kept
+            assertEquals(1, exchangeInfoRepository.findExchangeInfoByRequestDate(savedDate).size());
+            assertEquals(450.0, exchangeInfoRepository.findCurrentExchangeInfo(savedDate).orElseThrow()
+                    .getExchangeRateEntities().iterator().next().getExchangeRate());
+            assertEquals(5, exchangeInfoRepository.findRequestDatesBetween(fromDate, toDate).size());
+
+        } finally {
+            requestListener = requestDate -> { };
+            for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+                exchangeInfoRepository.deleteAll(exchangeInfoRepository.findExchangeInfoByRequestDate(date));
+            }
+        }
+    }
+
+    @Test
+    public void testImportExchangeRatesXml() throws Exception {
+
+        /* Arrange */
+        InputStream inputStream = getClass().getResourceAsStream("/get_rates.xml");
+
+        /* Act */
+        ExchangeRateBackfillDto exchangeRateBackfillDto =
+                exchangeRateBackfillServiceImpl.importExchangeRatesXml(inputStream);
+
+        /* Assert */
+        assertEquals(1, exchangeRateBackfillDto.saved_days);
+
+        ExchangeInfoEntity exchangeInfoEntity =
+                exchangeInfoRepository.findCurrentExchangeInfo(LocalDate.of(2024, 2, 1)).orElseThrow();
+        assertEquals(Map.of("USD", 449.89, "EUR", 487.78, "RUB", 5.02),
+                exchangeInfoEntity.getExchangeRateEntities().stream().collect(
+                        Collectors.toMap(ExchangeRateEntity::getCurrencyCode, ExchangeRateEntity::getExchangeRate)));
+    }
+
+    @Test
+    public void testImportExchangeRatesCsv() throws Exception {
+
+        /* Arrange */
+        String csvData = String.join("\n",
+                "date,currency_code,currency_name,exchange_rate",
+                "2023-12-29,USD,ДОЛЛАР США,454.56",
+                "2023-12-29,EUR,ЕВРО,502.24",
+                "2023-12-29,GBP,ФУНТ СТЕРЛИНГОВ,578.82",
+                "2023-12-30,USD,ДОЛЛАР США,454.56",
+                "2023-12-31,USD,ДОЛЛАР США,454.56");
+
+        // The rates of one date are already stored
+        createSampleExchangeRates(LocalDate.of(2023, 12, 31), 454.56);
+
+        /* Act */
+        ExchangeRateBackfillDto exchangeRateBackfillDto = exchangeRateBackfillServiceImpl.importExchangeRatesCsv(
+                new ByteArrayInputStream(csvData.getBytes(StandardCharsets.UTF_8)));
+
+        /* Assert */
+        assertEquals(3, exchangeRateBackfillDto.requested_days);
+        assertEquals(2, exchangeRateBackfillDto.saved_days);
+        assertEquals(1, exchangeRateBackfillDto.skipped_days);
+
+        // Only the currencies of CurrencyType are saved
+        ExchangeInfoEntity exchangeInfoEntity =
+                exchangeInfoRepository.findCurrentExchangeInfo(LocalDate.of(2023, 12, 29)).orElseThrow();
+        assertEquals(Set.of("USD", "EUR"), exchangeInfoEntity.getExchangeRateEntities().stream()
+                .map(ExchangeRateEntity::getCurrencyCode).collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void testImportExchangeRatesCsv_InvalidLine() {
+
+        /* Arrange */
+        String csvData = "2023-12-29,USD,ДОЛЛАР США,not-a-rate";
+
+        /* Act */
+        /* Assert */
+        assertThrows(IllegalArgumentException.class, () -> exchangeRateBackfillServiceImpl.importExchangeRatesCsv(
+                new ByteArrayInputStream(csvData.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private ExchangeRateBackfillJobDto awaitBackfillJob(String jobId) throws InterruptedException {
+
+        for (int i = 0; i < 100; i++) {
+            ExchangeRateBackfillJobDto exchangeRateBackfillJobDto =
+                    exchangeRateBackfillServiceImpl.getBackfillJob(jobId).orElseThrow();
+            if (!exchangeRateBackfillJobDto.status.equals(BackfillJobStatus.PENDING.name()) &&
+                    !exchangeRateBackfillJobDto.status.equals(BackfillJobStatus.RUNNING.name())) {
+                return exchangeRateBackfillJobDto;
+            }
+            Thread.sleep(50);
+        }
+
+        return exchangeRateBackfillServiceImpl.getBackfillJob(jobId).orElseThrow();
+    }
+
+    private void createSampleExchangeRates(LocalDate paramDate, double usdRate) {
+
+        ExchangeInfoEntity exchangeInfoEntity = new ExchangeInfoEntity();
+
+        exchangeInfoEntity.setResource("https://nationalbank.kz");
+        exchangeInfoEntity.setRequestDate(paramDate);
+
+        Set<ExchangeRateEntity> exchangeRateEntitySet = new HashSet<>();
+
+        // Added USD
+        ExchangeRateEntity exchangeRateEntity = new ExchangeRateEntity();
+        exchangeRateEntity.setCurrencyName("Доллар США");
+        exchangeRateEntity.setCurrencyCode("USD");
+        exchangeRateEntity.setExchangeRate(usdRate);
+        exchangeRateEntity.setExchangeInfoEntity(exchangeInfoEntity);
+        exchangeRateEntitySet.add(exchangeRateEntity);
+
+        exchangeInfoEntity.setExchangeRateEntities(exchangeRateEntitySet);
+
+        exchangeInfoRepository.save(exchangeInfoEntity);
+    }
+}